@@ -0,0 +1,310 @@
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Almacén de contactos organizado por columnas.
+ *
+ * Cada campo se guarda en su propio arreglo: los IDs y las fechas (como días
+ * desde la época) en arreglos de enteros, y los campos de texto como códigos
+ * enteros de un diccionario de cadenas. Recorrer un solo campo, como hacen la
+ * reconstrucción de índices o los recorridos por niveles, es así un barrido
+ * secuencial de memoria. Los objetos Contacto se crean solo bajo demanda.
+ *
+ * Las instantáneas comparten los arreglos por copia en escritura: tomar una
+ * no copia nada, y la primera modificación posterior que reescriba filas
+ * existentes copia antes los arreglos. Agregar al final no necesita copiar,
+ * porque la instantánea solo lee las filas que había al tomarla. Los códigos
+ * se decodifican con las tablas del diccionario congeladas a la vez, así que
+ * liberar o reutilizar un código después no altera la instantánea.
+ *
+ */
+public class AlmacenColumnar implements AlmacenContactos {
+    private static final CampoContacto[] COLUMNAS_TEXTO = { CampoContacto.NOMBRE, CampoContacto.APELLIDO,
+            CampoContacto.APODO, CampoContacto.TELEFONO, CampoContacto.EMAIL, CampoContacto.DIRECCION };
+    private static final int SIN_VALOR = -1;
+    private static final int SIN_FECHA = Integer.MIN_VALUE;
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    private int[] ids;
+    private int[] fechas;
+    private int[][] columnas;
+    private int tamano;
+    private Map<Integer, Integer> posicionPorId;
+    private DiccionarioCadenas diccionario;
+    private boolean compartido;
+
+    /**
+     * Constructor de la clase AlmacenColumnar.
+     *
+     * @param diccionario Diccionario donde se codifican los campos de texto
+     */
+    public AlmacenColumnar(DiccionarioCadenas diccionario) {
+        this.diccionario = diccionario;
+        ids = new int[CAPACIDAD_INICIAL];
+        fechas = new int[CAPACIDAD_INICIAL];
+        columnas = new int[COLUMNAS_TEXTO.length][CAPACIDAD_INICIAL];
+        posicionPorId = new HashMap<>();
+    }
+
+    @Override
+    public void agregar(Contacto contacto) {
+        asegurarCapacidad(tamano + 1);
+        escribirFila(tamano, contacto);
+        posicionPorId.put(contacto.getId(), tamano);
+        tamano++;
+    }
+
+    @Override
+    public Contacto buscarPorId(int id) {
+        Integer posicion = posicionPorId.get(id);
+        return posicion != null ? obtener(posicion) : null;
+    }
+
+    @Override
+    public Contacto obtener(int posicion) {
+        if (posicion < 0 || posicion >= tamano) {
+            throw new IndexOutOfBoundsException("Posición " + posicion + " fuera del almacén de " + tamano);
+        }
+        return new Contacto(ids[posicion], texto(0, posicion), texto(1, posicion), texto(2, posicion),
+                texto(3, posicion), texto(4, posicion), texto(5, posicion),
+                fechas[posicion] != SIN_FECHA ? LocalDate.ofEpochDay(fechas[posicion]) : null);
+    }
+
+    @Override
+    public boolean eliminar(int id) {
+        Integer posicion = posicionPorId.remove(id);
+        if (posicion == null)
+            return false;
+        separar();
+        liberarFila(posicion);
+
+        // Desplazar las filas siguientes para conservar el orden de inserción
+        int desplazar = tamano - posicion - 1;
+        System.arraycopy(ids, posicion + 1, ids, posicion, desplazar);
+        System.arraycopy(fechas, posicion + 1, fechas, posicion, desplazar);
+        for (int[] columna : columnas) {
+            System.arraycopy(columna, posicion + 1, columna, posicion, desplazar);
+        }
+        tamano--;
+
+        for (int i = posicion; i < tamano; i++) {
+            posicionPorId.put(ids[i], i);
+        }
+        return true;
+    }
+
+    @Override
+    public int eliminarTodos(Collection<Integer> idsEliminar) {
+        int eliminados = 0;
+        for (int id : idsEliminar) {
+            if (posicionPorId.remove(id) != null) {
+                eliminados++;
+            }
+        }
+        if (eliminados == 0)
+            return 0;
+        separar();
+
+        // Compactar todas las filas en una sola pasada conservando el orden
+        int destino = 0;
+        for (int origen = 0; origen < tamano; origen++) {
+            if (!posicionPorId.containsKey(ids[origen])) {
+                liberarFila(origen);
+                continue;
+            }
+            if (destino != origen) {
+                ids[destino] = ids[origen];
+                fechas[destino] = fechas[origen];
+                for (int[] columna : columnas) {
+                    columna[destino] = columna[origen];
+                }
+                posicionPorId.put(ids[destino], destino);
+            }
+            destino++;
+        }
+        tamano = destino;
+        return eliminados;
+    }
+
+    @Override
+    public void actualizar(Contacto contacto) {
+        Integer posicion = posicionPorId.get(contacto.getId());
+        if (posicion != null) {
+            separar();
+            // Se retienen los valores nuevos antes de liberar los anteriores, que suelen coincidir
+            int[] anteriores = new int[columnas.length];
+            for (int c = 0; c < columnas.length; c++) {
+                anteriores[c] = columnas[c][posicion];
+            }
+            escribirFila(posicion, contacto);
+            for (int c = 0; c < columnas.length; c++) {
+                if (anteriores[c] != SIN_VALOR) {
+                    diccionario.liberar(COLUMNAS_TEXTO[c].getNombre(), anteriores[c]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<Contacto> instantanea() {
+        compartido = true;
+        int[] idsCongelados = ids;
+        int[] fechasCongeladas = fechas;
+        int[][] columnasCongeladas = columnas.clone();
+        String[][] valoresCongelados = new String[COLUMNAS_TEXTO.length][];
+        for (int c = 0; c < valoresCongelados.length; c++) {
+            valoresCongelados[c] = diccionario.valores(COLUMNAS_TEXTO[c].getNombre());
+        }
+        int filas = tamano;
+        return new AbstractList<>() {
+            @Override
+            public Contacto get(int fila) {
+                Objects.checkIndex(fila, filas);
+                String[] textos = new String[COLUMNAS_TEXTO.length];
+                for (int c = 0; c < textos.length; c++) {
+                    int codigo = columnasCongeladas[c][fila];
+                    textos[c] = codigo != SIN_VALOR ? valoresCongelados[c][codigo] : null;
+                }
+                return new Contacto(idsCongelados[fila], textos[0], textos[1], textos[2], textos[3], textos[4],
+                        textos[5], fechasCongeladas[fila] != SIN_FECHA
+                                ? LocalDate.ofEpochDay(fechasCongeladas[fila])
+                                : null);
+            }
+
+            @Override
+            public int size() {
+                return filas;
+            }
+        };
+    }
+
+    @Override
+    public void recorrerValores(CampoContacto campo, ObjIntConsumer<String> accion) {
+        if (campo == CampoContacto.ID) {
+            for (int i = 0; i < tamano; i++) {
+                accion.accept(Integer.toString(ids[i]), ids[i]);
+            }
+        } else if (campo == CampoContacto.FECHA_NACIMIENTO) {
+            for (int i = 0; i < tamano; i++) {
+                if (fechas[i] != SIN_FECHA) {
+                    accion.accept(LocalDate.ofEpochDay(fechas[i]).toString(), ids[i]);
+                }
+            }
+        } else {
+            int c = indiceColumna(campo);
+            if (c == SIN_VALOR)
+                return;
+            int[] codigos = columnas[c];
+            String nombre = campo.getNombre();
+            for (int i = 0; i < tamano; i++) {
+                if (codigos[i] != SIN_VALOR) {
+                    accion.accept(diccionario.valor(nombre, codigos[i]), ids[i]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int tamano() {
+        return tamano;
+    }
+
+    @Override
+    public Iterator<Contacto> iterator() {
+        return new Iterator<>() {
+            private int siguiente = 0;
+
+            @Override
+            public boolean hasNext() {
+                return siguiente < tamano;
+            }
+
+            @Override
+            public Contacto next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return obtener(siguiente++);
+            }
+        };
+    }
+
+    /**
+     * Copia los valores de un contacto en una fila de las columnas,
+     * reteniéndolos en el diccionario.
+     *
+     * @param fila     Posición a escribir
+     * @param contacto Contacto con los valores
+     */
+    private void escribirFila(int fila, Contacto contacto) {
+        ids[fila] = contacto.getId();
+        fechas[fila] = contacto.getFechaNacimiento() != null
+                ? (int) contacto.getFechaNacimiento().toEpochDay()
+                : SIN_FECHA;
+        for (int c = 0; c < COLUMNAS_TEXTO.length; c++) {
+            String valor = COLUMNAS_TEXTO[c].texto(contacto);
+            columnas[c][fila] = valor != null ? diccionario.retener(COLUMNAS_TEXTO[c].getNombre(), valor) : SIN_VALOR;
+        }
+    }
+
+    /**
+     * Libera en el diccionario los valores de una fila que se va a eliminar.
+     */
+    private void liberarFila(int fila) {
+        for (int c = 0; c < columnas.length; c++) {
+            if (columnas[c][fila] != SIN_VALOR) {
+                diccionario.liberar(COLUMNAS_TEXTO[c].getNombre(), columnas[c][fila]);
+            }
+        }
+    }
+
+    /**
+     * Decodifica el texto de una columna en una fila.
+     */
+    private String texto(int columna, int fila) {
+        int codigo = columnas[columna][fila];
+        return codigo != SIN_VALOR ? diccionario.valor(COLUMNAS_TEXTO[columna].getNombre(), codigo) : null;
+    }
+
+    /**
+     * Obtiene la posición de una columna de texto por su nombre.
+     */
+    private static int indiceColumna(CampoContacto campo) {
+        for (int c = 0; c < COLUMNAS_TEXTO.length; c++) {
+            if (COLUMNAS_TEXTO[c] == campo) {
+                return c;
+            }
+        }
+        return SIN_VALOR;
+    }
+
+    /**
+     * Copia los arreglos antes de reescribir filas si una instantánea los
+     * comparte.
+     */
+    private void separar() {
+        if (compartido) {
+            ids = ids.clone();
+            fechas = fechas.clone();
+            for (int c = 0; c < columnas.length; c++) {
+                columnas[c] = columnas[c].clone();
+            }
+            compartido = false;
+        }
+    }
+
+    /**
+     * Amplía los arreglos de columnas si no caben más filas.
+     */
+    private void asegurarCapacidad(int minimo) {
+        if (minimo <= ids.length)
+            return;
+        int capacidad = Math.max(minimo, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacidad);
+        fechas = Arrays.copyOf(fechas, capacidad);
+        for (int c = 0; c < columnas.length; c++) {
+            columnas[c] = Arrays.copyOf(columnas[c], capacidad);
+        }
+    }
+}
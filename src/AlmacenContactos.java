@@ -0,0 +1,101 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Interfaz de los almacenes de contactos utilizados por GestorContactos.
+ *
+ * Define las operaciones básicas sobre la colección de contactos para poder
+ * cambiar la representación en memoria (lista de objetos o almacenamiento
+ * por columnas) sin modificar la lógica de gestión ni de índices.
+ *
+ */
+public interface AlmacenContactos extends Iterable<Contacto> {
+    /**
+     * Agrega un contacto al final del almacén.
+     *
+     * @param contacto El contacto a agregar
+     */
+    void agregar(Contacto contacto);
+
+    /**
+     * Busca un contacto por su ID.
+     *
+     * @param id El ID del contacto
+     * @return El contacto, o null si no existe
+     */
+    Contacto buscarPorId(int id);
+
+    /**
+     * Obtiene el contacto almacenado en una posición.
+     *
+     * @param posicion Posición entre 0 y tamano() - 1
+     * @return El contacto de esa posición
+     */
+    Contacto obtener(int posicion);
+
+    /**
+     * Elimina un contacto por su ID.
+     *
+     * @param id El ID del contacto
+     * @return true si el contacto existía y fue eliminado, false en caso contrario
+     */
+    boolean eliminar(int id);
+
+    /**
+     * Elimina varios contactos por su ID. Las implementaciones pueden hacerlo
+     * en una sola pasada en lugar de una eliminación por contacto.
+     *
+     * @param ids Los IDs de los contactos (los que no existen se ignoran)
+     * @return El número de contactos eliminados
+     */
+    default int eliminarTodos(Collection<Integer> ids) {
+        int eliminados = 0;
+        for (int id : ids) {
+            if (eliminar(id)) {
+                eliminados++;
+            }
+        }
+        return eliminados;
+    }
+
+    /**
+     * Guarda en el almacén los cambios de un contacto. Para no alterar las
+     * instantáneas, los cambios se hacen sobre una copia del contacto
+     * (Contacto.copia()) que sustituye a la almacenada.
+     *
+     * @param contacto El contacto modificado (se localiza por su ID)
+     */
+    void actualizar(Contacto contacto);
+
+    /**
+     * Congela el contenido actual del almacén. La lista devuelta no cambia con
+     * las modificaciones posteriores y se puede recorrer desde otro hilo sin
+     * bloqueos. Las implementaciones la comparten por copia en escritura, así
+     * que tomarla no copia los contactos.
+     *
+     * @return Los contactos en el orden del almacén, de solo lectura
+     */
+    List<Contacto> instantanea();
+
+    /**
+     * Recorre en orden los valores no nulos de un campo, en el mismo formato de
+     * texto que se guarda en los índices, junto con el ID de cada contacto.
+     *
+     * @param campo  El campo a recorrer
+     * @param accion Acción que recibe el valor y el ID del contacto
+     */
+    void recorrerValores(CampoContacto campo, ObjIntConsumer<String> accion);
+
+    /**
+     * @return El número de contactos almacenados
+     */
+    int tamano();
+
+    /**
+     * @return true si el almacén no contiene contactos
+     */
+    default boolean estaVacio() {
+        return tamano() == 0;
+    }
+}
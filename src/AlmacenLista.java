@@ -0,0 +1,177 @@
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Almacén de contactos basado en una lista de objetos Contacto.
+ *
+ * Es la representación por defecto: cada contacto es un objeto completo y se
+ * mantiene un mapa auxiliar de ID a posición en la lista para las búsquedas
+ * por ID.
+ *
+ * La lista se comparte con las instantáneas por copia en escritura: tomar una
+ * instantánea no copia nada y la primera modificación posterior copia las
+ * referencias a una lista nueva. Los contactos modificados se sustituyen en
+ * la lista con actualizar(), sin cambiar el objeto que ve la instantánea.
+ *
+ * Los valores de texto de los contactos guardados se retienen en un
+ * diccionario de cadenas, que devuelve su instancia compartida, y se liberan
+ * al eliminar el contacto o sustituir el valor.
+ *
+ */
+public class AlmacenLista implements AlmacenContactos {
+    private List<Contacto> contactos;
+    private Map<Integer, Integer> posicionPorId;
+    private boolean compartida;
+    private DiccionarioCadenas diccionario;
+
+    /**
+     * Constructor de la clase AlmacenLista.
+     *
+     * @param diccionario Diccionario donde se retienen los valores de texto
+     */
+    public AlmacenLista(DiccionarioCadenas diccionario) {
+        this.diccionario = diccionario;
+        contactos = new ArrayList<>();
+        posicionPorId = new HashMap<>();
+    }
+
+    @Override
+    public void agregar(Contacto contacto) {
+        retener(contacto);
+        separar();
+        posicionPorId.put(contacto.getId(), contactos.size());
+        contactos.add(contacto);
+    }
+
+    @Override
+    public Contacto buscarPorId(int id) {
+        Integer posicion = posicionPorId.get(id);
+        return posicion != null ? contactos.get(posicion) : null;
+    }
+
+    @Override
+    public Contacto obtener(int posicion) {
+        return contactos.get(posicion);
+    }
+
+    @Override
+    public boolean eliminar(int id) {
+        Integer posicion = posicionPorId.remove(id);
+        if (posicion == null)
+            return false;
+        separar();
+        liberar(contactos.remove((int) posicion));
+        renumerar(posicion);
+        return true;
+    }
+
+    @Override
+    public int eliminarTodos(Collection<Integer> ids) {
+        int primera = Integer.MAX_VALUE;
+        int eliminados = 0;
+        for (int id : ids) {
+            Integer posicion = posicionPorId.remove(id);
+            if (posicion != null) {
+                primera = Math.min(primera, posicion);
+                eliminados++;
+            }
+        }
+        if (eliminados > 0) {
+            separar();
+            contactos.removeIf(contacto -> {
+                if (posicionPorId.containsKey(contacto.getId()))
+                    return false;
+                liberar(contacto);
+                return true;
+            });
+            renumerar(primera);
+        }
+        return eliminados;
+    }
+
+    @Override
+    public void actualizar(Contacto contacto) {
+        Integer posicion = posicionPorId.get(contacto.getId());
+        if (posicion != null && contactos.get(posicion) != contacto) {
+            // Se retienen los valores nuevos antes de liberar los anteriores, que suelen coincidir
+            retener(contacto);
+            separar();
+            liberar(contactos.set(posicion, contacto));
+        }
+    }
+
+    @Override
+    public List<Contacto> instantanea() {
+        compartida = true;
+        return Collections.unmodifiableList(contactos);
+    }
+
+    @Override
+    public void recorrerValores(CampoContacto campo, ObjIntConsumer<String> accion) {
+        for (Contacto contacto : contactos) {
+            String valor = campo.texto(contacto);
+            if (valor != null) {
+                accion.accept(valor, contacto.getId());
+            }
+        }
+    }
+
+    @Override
+    public int tamano() {
+        return contactos.size();
+    }
+
+    @Override
+    public Iterator<Contacto> iterator() {
+        return Collections.unmodifiableList(contactos).iterator();
+    }
+
+    /**
+     * Copia la lista antes de modificarla si una instantánea la comparte.
+     */
+    private void separar() {
+        if (compartida) {
+            contactos = new ArrayList<>(contactos);
+            compartida = false;
+        }
+    }
+
+    /**
+     * Retiene en el diccionario los valores de texto de un contacto que se va
+     * a guardar y los sustituye por su instancia compartida.
+     */
+    private void retener(Contacto contacto) {
+        for (CampoContacto campo : CampoContacto.values()) {
+            String valor = campo.esTexto() ? campo.texto(contacto) : null;
+            if (valor != null) {
+                String nombre = campo.getNombre();
+                String canonico = diccionario.valor(nombre, diccionario.retener(nombre, valor));
+                if (canonico != valor) {
+                    campo.asignar(contacto, canonico);
+                }
+            }
+        }
+    }
+
+    /**
+     * Libera en el diccionario los valores de texto de un contacto que deja
+     * de estar guardado.
+     */
+    private void liberar(Contacto contacto) {
+        for (CampoContacto campo : CampoContacto.values()) {
+            if (campo.esTexto()) {
+                diccionario.liberar(campo.getNombre(), campo.texto(contacto));
+            }
+        }
+    }
+
+    /**
+     * Actualiza las posiciones de los contactos a partir de una posición,
+     * tras eliminar contactos anteriores a ellos.
+     */
+    private void renumerar(int desde) {
+        for (int i = desde; i < contactos.size(); i++) {
+            posicionPorId.put(contactos.get(i).getId(), i);
+        }
+    }
+}
@@ -1,4 +1,6 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 /**
@@ -31,6 +33,8 @@ public class ArbolAVL<T extends Comparable<T>> {
     }
 
     private Nodo raiz;
+    private int tamano;
+    private final EstadisticasArbol.Contadores contadores = new EstadisticasArbol.Contadores();
 
     /**
      * Calcula la altura de un nodo.
@@ -61,6 +65,7 @@ public class ArbolAVL<T extends Comparable<T>> {
      * @return El nuevo nodo raíz después de la rotación
      */
     private Nodo rotarDerecha(Nodo y) {
+        contadores.rotaciones.increment();
         Nodo x = y.izquierdo;
         Nodo T2 = x.derecho;
 
@@ -80,6 +85,7 @@ public class ArbolAVL<T extends Comparable<T>> {
      * @return El nuevo nodo raíz después de la rotación
      */
     private Nodo rotarIzquierda(Nodo x) {
+        contadores.rotaciones.increment();
         Nodo y = x.derecho;
         Nodo T2 = y.izquierdo;
 
@@ -122,6 +128,7 @@ public class ArbolAVL<T extends Comparable<T>> {
      */
     private Nodo insertar(Nodo nodo, T clave) {
         if (nodo == null) {
+            tamano++;
             return new Nodo(clave);
         }
 
@@ -184,28 +191,58 @@ public class ArbolAVL<T extends Comparable<T>> {
      * @return true si el valor existe en el árbol, false en caso contrario
      */
     public boolean buscar(T clave) {
-        return buscar(raiz, clave);
+        int comparaciones = 0;
+        Nodo nodo = raiz;
+        while (nodo != null) {
+            int cmp = clave.compareTo(nodo.clave);
+            comparaciones++;
+            if (cmp == 0) {
+                contadores.busqueda(comparaciones);
+                return true;
+            }
+            nodo = cmp < 0 ? nodo.izquierdo : nodo.derecho;
+        }
+        contadores.busqueda(comparaciones);
+        return false;
     }
 
     /**
-     * Método recursivo auxiliar para buscar un valor en el árbol.
+     * Obtiene en orden las claves del árbol comprendidas en un rango.
      *
-     * @param nodo  El nodo actual en la recursión
-     * @param clave El valor a buscar
-     * @return true si el valor existe en el subárbol, false en caso contrario
+     * @param desde Límite inferior inclusivo (null para no limitar)
+     * @param hasta Límite superior inclusivo (null para no limitar)
+     * @return Una lista ordenada con las claves del rango
      */
-    private boolean buscar(Nodo nodo, T clave) {
+    public List<T> rango(T desde, T hasta) {
+        List<T> resultado = new ArrayList<>();
+        rango(raiz, desde, hasta, resultado);
+        return resultado;
+    }
+
+    /**
+     * Método recursivo auxiliar para recorrer en inorden solo los subárboles que
+     * pueden contener claves del rango.
+     *
+     * @param nodo      El nodo actual en la recursión
+     * @param desde     Límite inferior inclusivo (null para no limitar)
+     * @param hasta     Límite superior inclusivo (null para no limitar)
+     * @param resultado Lista donde se acumulan las claves encontradas
+     */
+    private void rango(Nodo nodo, T desde, T hasta, List<T> resultado) {
         if (nodo == null)
-            return false;
+            return;
 
-        int cmp = clave.compareTo(nodo.clave);
+        int cmpDesde = desde == null ? 1 : nodo.clave.compareTo(desde);
+        int cmpHasta = hasta == null ? -1 : nodo.clave.compareTo(hasta);
 
-        if (cmp < 0) {
-            return buscar(nodo.izquierdo, clave);
-        } else if (cmp > 0) {
-            return buscar(nodo.derecho, clave);
-        } else {
-            return true;
+        if (cmpDesde > 0) {
+            rango(nodo.izquierdo, desde, hasta, resultado);
+        }
+        if (cmpDesde >= 0 && cmpHasta <= 0) {
+            resultado.add(nodo.clave);
+        }
+        if (cmpHasta < 0) {
+            rango(nodo.derecho, desde, hasta, resultado);
         }
     }
 
@@ -238,10 +275,13 @@ public class ArbolAVL<T extends Comparable<T>> {
             nodo.derecho = eliminar(nodo.derecho, clave);
         } else {
             // Caso 1: Nodo hoja o con un solo hijo
-            if (nodo.izquierdo == null)
+            if (nodo.izquierdo == null) {
+                tamano--;
                 return nodo.derecho;
-            else if (nodo.derecho == null)
+            } else if (nodo.derecho == null) {
+                tamano--;
                 return nodo.izquierdo;
+            }
 
             // Caso 2: Nodo con dos hijos
             // Encontrar el sucesor inorden (el mínimo valor en el subárbol derecho)
@@ -278,6 +318,51 @@ public class ArbolAVL<T extends Comparable<T>> {
         return nodo;
     }
 
+    /**
+     * @return La altura del árbol (0 si está vacío)
+     */
+    public int altura() {
+        return altura(raiz);
+    }
+
+    /**
+     * @return El número de claves del árbol
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Obtiene las estadísticas del árbol. La profundidad media se calcula
+     * recorriendo todos los nodos; el resto de valores se mantiene al
+     * modificar o consultar el árbol.
+     *
+     * @return Las estadísticas actuales
+     */
+    public EstadisticasArbol estadisticas() {
+        long sumaProfundidades = 0;
+        if (raiz != null) {
+            Deque<Nodo> pendientes = new ArrayDeque<>();
+            Deque<Integer> profundidades = new ArrayDeque<>();
+            pendientes.push(raiz);
+            profundidades.push(1);
+            while (!pendientes.isEmpty()) {
+                Nodo nodo = pendientes.pop();
+                int profundidad = profundidades.pop();
+                sumaProfundidades += profundidad;
+                if (nodo.izquierdo != null) {
+                    pendientes.push(nodo.izquierdo);
+                    profundidades.push(profundidad + 1);
+                }
+                if (nodo.derecho != null) {
+                    pendientes.push(nodo.derecho);
+                    profundidades.push(profundidad + 1);
+                }
+            }
+        }
+        return new EstadisticasArbol(tamano, altura(), sumaProfundidades, contadores);
+    }
+
     /**
      * Realiza un recorrido por niveles (BFS) del árbol y devuelve los valores en
      * orden, agregando un "null" después de cada nodo derecho para indicar el
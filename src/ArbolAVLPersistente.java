@@ -0,0 +1,418 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * Implementación de un Árbol AVL persistente (inmutable) que asocia un valor
+ * a cada clave.
+ *
+ * Cada inserción o eliminación devuelve un árbol nuevo que copia solo los
+ * nodos del camino modificado y comparte el resto de subárboles con la
+ * versión anterior. Una referencia a un árbol es, por tanto, una instantánea
+ * consistente que puede leerse desde cualquier hilo sin bloqueos mientras
+ * otros hilos publican versiones nuevas.
+ *
+ * Los contadores de búsquedas y rotaciones se comparten entre todas las
+ * versiones que derivan de un mismo árbol vacío, de modo que las estadísticas
+ * acumulan la historia completa del índice. Solo cuentan como búsquedas las de buscar() y
+ * obtener(); el mantenimiento y los recorridos no las alteran.
+ *
+ * @param <K> Tipo de las claves, debe implementar Comparable
+ * @param <V> Tipo de los valores asociados (deben tratarse como inmutables)
+ */
+public final class ArbolAVLPersistente<K extends Comparable<K>, V> {
+    /**
+     * Nodo inmutable del árbol. La altura se calcula al construirlo.
+     */
+    private static final class Nodo<K, V> {
+        final K clave;
+        final V valor;
+        final Nodo<K, V> izquierdo;
+        final Nodo<K, V> derecho;
+        final int altura;
+
+        Nodo(K clave, V valor, Nodo<K, V> izquierdo, Nodo<K, V> derecho) {
+            this.clave = clave;
+            this.valor = valor;
+            this.izquierdo = izquierdo;
+            this.derecho = derecho;
+            this.altura = 1 + Math.max(altura(izquierdo), altura(derecho));
+        }
+    }
+
+    private final Nodo<K, V> raiz;
+    private final int tamano;
+    private final EstadisticasArbol.Contadores contadores;
+
+    private ArbolAVLPersistente(Nodo<K, V> raiz, int tamano, EstadisticasArbol.Contadores contadores) {
+        this.raiz = raiz;
+        this.tamano = tamano;
+        this.contadores = contadores;
+    }
+
+    /**
+     * Crea un árbol vacío.
+     *
+     * @param <K> Tipo de las claves
+     * @param <V> Tipo de los valores
+     * @return Un árbol sin nodos
+     */
+    public static <K extends Comparable<K>, V> ArbolAVLPersistente<K, V> vacio() {
+        return new ArbolAVLPersistente<>(null, 0, new EstadisticasArbol.Contadores());
+    }
+
+    /**
+     * Devuelve un árbol nuevo con la clave asociada al valor indicado. Si la
+     * clave ya existía, su valor se sustituye.
+     *
+     * @param clave La clave a insertar
+     * @param valor El valor asociado
+     * @return La nueva versión del árbol
+     */
+    public ArbolAVLPersistente<K, V> insertar(K clave, V valor) {
+        boolean existia = nodo(clave) != null;
+        return new ArbolAVLPersistente<>(insertar(raiz, clave, valor), existia ? tamano : tamano + 1, contadores);
+    }
+
+    private Nodo<K, V> insertar(Nodo<K, V> nodo, K clave, V valor) {
+        if (nodo == null) {
+            return new Nodo<>(clave, valor, null, null);
+        }
+
+        int cmp = clave.compareTo(nodo.clave);
+
+        if (cmp < 0) {
+            return balancear(nodo.clave, nodo.valor, insertar(nodo.izquierdo, clave, valor), nodo.derecho);
+        } else if (cmp > 0) {
+            return balancear(nodo.clave, nodo.valor, nodo.izquierdo, insertar(nodo.derecho, clave, valor));
+        } else {
+            return new Nodo<>(nodo.clave, valor, nodo.izquierdo, nodo.derecho);
+        }
+    }
+
+    /**
+     * Devuelve un árbol nuevo sin la clave indicada.
+     *
+     * @param clave La clave a eliminar
+     * @return La nueva versión del árbol (este mismo si la clave no existía)
+     */
+    public ArbolAVLPersistente<K, V> eliminar(K clave) {
+        if (nodo(clave) == null)
+            return this;
+        return new ArbolAVLPersistente<>(eliminar(raiz, clave), tamano - 1, contadores);
+    }
+
+    private Nodo<K, V> eliminar(Nodo<K, V> nodo, K clave) {
+        int cmp = clave.compareTo(nodo.clave);
+
+        if (cmp < 0) {
+            return balancear(nodo.clave, nodo.valor, eliminar(nodo.izquierdo, clave), nodo.derecho);
+        } else if (cmp > 0) {
+            return balancear(nodo.clave, nodo.valor, nodo.izquierdo, eliminar(nodo.derecho, clave));
+        }
+
+        // Caso 1: Nodo hoja o con un solo hijo
+        if (nodo.izquierdo == null)
+            return nodo.derecho;
+        if (nodo.derecho == null)
+            return nodo.izquierdo;
+
+        // Caso 2: Nodo con dos hijos, se sustituye por el sucesor inorden
+        Nodo<K, V> sucesor = nodo.derecho;
+        while (sucesor.izquierdo != null) {
+            sucesor = sucesor.izquierdo;
+        }
+        return balancear(sucesor.clave, sucesor.valor, nodo.izquierdo, eliminarMinimo(nodo.derecho));
+    }
+
+    private Nodo<K, V> eliminarMinimo(Nodo<K, V> nodo) {
+        if (nodo.izquierdo == null)
+            return nodo.derecho;
+        return balancear(nodo.clave, nodo.valor, eliminarMinimo(nodo.izquierdo), nodo.derecho);
+    }
+
+    /**
+     * Crea un nodo con los hijos indicados aplicando, si hace falta, la
+     * rotación simple o doble que restablece el balance AVL.
+     */
+    private Nodo<K, V> balancear(K clave, V valor, Nodo<K, V> izquierdo, Nodo<K, V> derecho) {
+        int balance = altura(izquierdo) - altura(derecho);
+
+        if (balance > 1) {
+            if (altura(izquierdo.izquierdo) >= altura(izquierdo.derecho)) {
+                // Caso Izquierda-Izquierda: rotación derecha
+                contadores.rotaciones.increment();
+                return new Nodo<>(izquierdo.clave, izquierdo.valor, izquierdo.izquierdo,
+                        new Nodo<>(clave, valor, izquierdo.derecho, derecho));
+            }
+            // Caso Izquierda-Derecha: rotación doble
+            contadores.rotaciones.add(2);
+            Nodo<K, V> medio = izquierdo.derecho;
+            return new Nodo<>(medio.clave, medio.valor,
+                    new Nodo<>(izquierdo.clave, izquierdo.valor, izquierdo.izquierdo, medio.izquierdo),
+                    new Nodo<>(clave, valor, medio.derecho, derecho));
+        }
+
+        if (balance < -1) {
+            if (altura(derecho.derecho) >= altura(derecho.izquierdo)) {
+                // Caso Derecha-Derecha: rotación izquierda
+                contadores.rotaciones.increment();
+                return new Nodo<>(derecho.clave, derecho.valor,
+                        new Nodo<>(clave, valor, izquierdo, derecho.izquierdo), derecho.derecho);
+            }
+            // Caso Derecha-Izquierda: rotación doble
+            contadores.rotaciones.add(2);
+            Nodo<K, V> medio = derecho.izquierdo;
+            return new Nodo<>(medio.clave, medio.valor,
+                    new Nodo<>(clave, valor, izquierdo, medio.izquierdo),
+                    new Nodo<>(derecho.clave, derecho.valor, medio.derecho, derecho.derecho));
+        }
+
+        return new Nodo<>(clave, valor, izquierdo, derecho);
+    }
+
+    /**
+     * Busca una clave en el árbol.
+     *
+     * @param clave La clave a buscar
+     * @return true si la clave existe en el árbol, false en caso contrario
+     */
+    public boolean buscar(K clave) {
+        return buscarContando(clave) != null;
+    }
+
+    /**
+     * Obtiene el valor asociado a una clave.
+     *
+     * @param clave La clave a buscar
+     * @return El valor asociado, o null si la clave no existe
+     */
+    public V obtener(K clave) {
+        Nodo<K, V> nodo = buscarContando(clave);
+        return nodo != null ? nodo.valor : null;
+    }
+
+    /**
+     * Obtiene el valor asociado a una clave sin registrarlo como búsqueda en
+     * las estadísticas. Es para el mantenimiento del índice (comprobar el
+     * valor anterior antes de insertar o eliminar), que no es una consulta.
+     *
+     * @param clave La clave a buscar
+     * @return El valor asociado, o null si la clave no existe
+     */
+    public V obtenerSinContar(K clave) {
+        Nodo<K, V> nodo = nodo(clave);
+        return nodo != null ? nodo.valor : null;
+    }
+
+    /**
+     * Localiza el nodo de una clave y registra la búsqueda en los contadores.
+     * Las comprobaciones internas de insertar y eliminar usan nodo() para no
+     * contarse como búsquedas.
+     */
+    private Nodo<K, V> buscarContando(K clave) {
+        int comparaciones = 0;
+        Nodo<K, V> actual = raiz;
+        while (actual != null) {
+            int cmp = clave.compareTo(actual.clave);
+            comparaciones++;
+            if (cmp == 0)
+                break;
+            actual = cmp < 0 ? actual.izquierdo : actual.derecho;
+        }
+        contadores.busqueda(comparaciones);
+        return actual;
+    }
+
+    private Nodo<K, V> nodo(K clave) {
+        Nodo<K, V> actual = raiz;
+        while (actual != null) {
+            int cmp = clave.compareTo(actual.clave);
+            if (cmp == 0)
+                return actual;
+            actual = cmp < 0 ? actual.izquierdo : actual.derecho;
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene en orden las claves del árbol comprendidas en un rango.
+     *
+     * @param desde Límite inferior inclusivo (null para no limitar)
+     * @param hasta Límite superior inclusivo (null para no limitar)
+     * @return Una lista ordenada con las claves del rango
+     */
+    public List<K> rango(K desde, K hasta) {
+        List<K> resultado = new ArrayList<>();
+        rango(raiz, desde, hasta, resultado);
+        return resultado;
+    }
+
+    private void rango(Nodo<K, V> nodo, K desde, K hasta, List<K> resultado) {
+        if (nodo == null)
+            return;
+
+        int cmpDesde = desde == null ? 1 : nodo.clave.compareTo(desde);
+        int cmpHasta = hasta == null ? -1 : nodo.clave.compareTo(hasta);
+
+        if (cmpDesde > 0) {
+            rango(nodo.izquierdo, desde, hasta, resultado);
+        }
+        if (cmpDesde >= 0 && cmpHasta <= 0) {
+            resultado.add(nodo.clave);
+        }
+        if (cmpHasta < 0) {
+            rango(nodo.derecho, desde, hasta, resultado);
+        }
+    }
+
+    /**
+     * Obtiene en orden los valores asociados a las claves comprendidas en un
+     * rango, sin buscar cada clave por separado.
+     *
+     * @param desde Límite inferior inclusivo (null para no limitar)
+     * @param hasta Límite superior inclusivo (null para no limitar)
+     * @return Una lista con los valores del rango, en el orden de sus claves
+     */
+    public List<V> valoresEnRango(K desde, K hasta) {
+        List<V> resultado = new ArrayList<>();
+        recorrerRango(desde, hasta, valor -> {
+            resultado.add(valor);
+            return true;
+        });
+        return resultado;
+    }
+
+    /**
+     * Recorre en orden los valores de las claves de un rango, visitando solo
+     * los subárboles que pueden contenerlas, hasta terminar el rango o hasta
+     * que la acción pida parar.
+     *
+     * @param desde  Límite inferior inclusivo (null para no limitar)
+     * @param hasta  Límite superior inclusivo (null para no limitar)
+     * @param accion Acción que recibe cada valor y devuelve false para parar
+     */
+    public void recorrerRango(K desde, K hasta, Predicate<? super V> accion) {
+        recorrerRango(raiz, desde, hasta, accion);
+    }
+
+    private boolean recorrerRango(Nodo<K, V> nodo, K desde, K hasta, Predicate<? super V> accion) {
+        if (nodo == null)
+            return true;
+
+        int cmpDesde = desde == null ? 1 : nodo.clave.compareTo(desde);
+        int cmpHasta = hasta == null ? -1 : nodo.clave.compareTo(hasta);
+
+        if (cmpDesde > 0 && !recorrerRango(nodo.izquierdo, desde, hasta, accion))
+            return false;
+        if (cmpDesde >= 0 && cmpHasta <= 0 && !accion.test(nodo.valor))
+            return false;
+        if (cmpHasta < 0)
+            return recorrerRango(nodo.derecho, desde, hasta, accion);
+        return true;
+    }
+
+    /**
+     * Realiza un recorrido por niveles (BFS) del árbol con el mismo formato que
+     * ArbolAVL: los valores en orden, con un "null" después de cada nodo
+     * derecho para indicar el cambio.
+     *
+     * @return Una lista con las claves del árbol en recorrido por niveles
+     */
+    public List<String> recorridoPorNivel() {
+        return recorridoPorNivel((clave, valor) -> clave.toString());
+    }
+
+    /**
+     * Realiza un recorrido por niveles con el mismo formato que
+     * recorridoPorNivel(), pero escribiendo cada nodo a partir de su clave y
+     * su valor. Lee el valor del propio nodo, sin volver a buscar la clave.
+     *
+     * @param formato Función que da el texto de cada nodo
+     * @return Una lista con el texto de cada nodo en recorrido por niveles
+     */
+    public List<String> recorridoPorNivel(BiFunction<? super K, ? super V, String> formato) {
+        List<String> resultado = new ArrayList<>();
+        if (raiz == null)
+            return resultado;
+
+        Queue<Nodo<K, V>> cola = new LinkedList<>();
+        Queue<Boolean> esDerecho = new LinkedList<>();
+        cola.add(raiz);
+        esDerecho.add(false);
+
+        while (!cola.isEmpty()) {
+            Nodo<K, V> actual = cola.poll();
+            boolean esHijoDerecho = esDerecho.poll();
+
+            resultado.add(formato.apply(actual.clave, actual.valor));
+            if (actual.izquierdo != null) {
+                cola.add(actual.izquierdo);
+                esDerecho.add(false);
+            }
+            if (actual.derecho != null) {
+                cola.add(actual.derecho);
+                esDerecho.add(true);
+            }
+            if (esHijoDerecho) {
+                resultado.add("null");
+            }
+        }
+
+        return resultado;
+    }
+
+    /**
+     * @return El número de claves del árbol
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * @return La altura del árbol (0 si está vacío)
+     */
+    public int altura() {
+        return altura(raiz);
+    }
+
+    /**
+     * Obtiene las estadísticas de esta versión del árbol. La profundidad
+     * media se calcula recorriendo todos los nodos; las búsquedas y
+     * rotaciones son las acumuladas por todas las versiones relacionadas.
+     *
+     * @return Las estadísticas actuales
+     */
+    public EstadisticasArbol estadisticas() {
+        long sumaProfundidades = 0;
+        if (raiz != null) {
+            Deque<Nodo<K, V>> pendientes = new ArrayDeque<>();
+            Deque<Integer> profundidades = new ArrayDeque<>();
+            pendientes.push(raiz);
+            profundidades.push(1);
+            while (!pendientes.isEmpty()) {
+                Nodo<K, V> nodo = pendientes.pop();
+                int profundidad = profundidades.pop();
+                sumaProfundidades += profundidad;
+                if (nodo.izquierdo != null) {
+                    pendientes.push(nodo.izquierdo);
+                    profundidades.push(profundidad + 1);
+                }
+                if (nodo.derecho != null) {
+                    pendientes.push(nodo.derecho);
+                    profundidades.push(profundidad + 1);
+                }
+            }
+        }
+        return new EstadisticasArbol(tamano, altura(), sumaProfundidades, contadores);
+    }
+
+    private static int altura(Nodo<?, ?> nodo) {
+        return (nodo == null) ? 0 : nodo.altura;
+    }
+}
@@ -1,5 +1,10 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Implementación de un Árbol Binario de Búsqueda (BST).
@@ -7,6 +12,15 @@ import java.util.List;
  * Esta clase proporciona una estructura de datos jerárquica que mantiene
  * sus elementos ordenados para realizar búsquedas eficientes.
  *
+ * Cada nodo guarda la altura de su subárbol, que se actualiza en el camino
+ * de cada inserción o eliminación; así la altura del árbol se conoce en O(1)
+ * y permite detectar cuándo el árbol ha degenerado en una lista.
+ *
+ * Las operaciones que recorren un camino o un rango son iterativas, con una
+ * pila propia en el heap, para que un árbol degenerado (con el rebalanceo
+ * desactivado o antes de que termine la reconstrucción) no desborde la pila
+ * de llamadas.
+ *
  * @param <T> Tipo de datos que se almacenarán en el árbol, debe implementar
  *            Comparable
  */
@@ -19,6 +33,7 @@ public class ArbolBST<T extends Comparable<T>> {
         //punteros a los hijos izquierdos y derechos
         Nodo izquierdo;
         Nodo derecho;
+        int altura;
 
         /**
          * Constructor de un nodo.
@@ -27,41 +42,57 @@ public class ArbolBST<T extends Comparable<T>> {
          */
         public Nodo(T clave) {
             this.clave = clave;
+            this.altura = 1;
         }
     }
 
     private Nodo raiz;
+    private int tamano;
+    private final EstadisticasArbol.Contadores contadores;
 
     /**
-     * Inserta un nuevo valor en el árbol BST.
-     *
-     * @param clave El valor a insertar
+     * Constructor de un árbol BST vacío.
      */
-    public void insertar(T clave) {
-        raiz = insertar(raiz, clave);
+    public ArbolBST() {
+        this(new EstadisticasArbol.Contadores());
+    }
+
+    private ArbolBST(EstadisticasArbol.Contadores contadores) {
+        this.contadores = contadores;
     }
 
     /**
-     * Método recursivo auxiliar para insertar un valor en el árbol.
+     * Inserta un nuevo valor en el árbol BST.
      *
-     * @param nodo  El nodo actual en la recursión
      * @param clave El valor a insertar
-     * @return El nodo actualizado después de la inserción
      */
-    private Nodo insertar(Nodo nodo, T clave) {
-        if (nodo == null) {
-            return new Nodo(clave);
+    public void insertar(T clave) {
+        if (raiz == null) {
+            raiz = new Nodo(clave);
+            tamano++;
+            return;
         }
 
-        int cmp = clave.compareTo(nodo.clave);
-
-        if (cmp < 0) {
-            nodo.izquierdo = insertar(nodo.izquierdo, clave);
-        } else if (cmp > 0) {
-            nodo.derecho = insertar(nodo.derecho, clave);
+        Deque<Nodo> camino = new ArrayDeque<>();
+        Nodo nodo = raiz;
+        while (true) {
+            int cmp = clave.compareTo(nodo.clave);
+            if (cmp == 0)
+                return;
+            camino.push(nodo);
+            Nodo hijo = cmp < 0 ? nodo.izquierdo : nodo.derecho;
+            if (hijo == null) {
+                if (cmp < 0) {
+                    nodo.izquierdo = new Nodo(clave);
+                } else {
+                    nodo.derecho = new Nodo(clave);
+                }
+                tamano++;
+                break;
+            }
+            nodo = hijo;
         }
-
-        return nodo;
+        actualizarAlturas(camino);
     }
 
     /**
@@ -71,99 +102,262 @@ public class ArbolBST<T extends Comparable<T>> {
      * @return true si el valor existe en el árbol, false en caso contrario
      */
     public boolean buscar(T clave) {
-        return buscar(raiz, clave);
+        int comparaciones = 0;
+        Nodo nodo = raiz;
+        while (nodo != null) {
+            int cmp = clave.compareTo(nodo.clave);
+            comparaciones++;
+            if (cmp == 0) {
+                contadores.busqueda(comparaciones);
+                return true;
+            }
+            nodo = cmp < 0 ? nodo.izquierdo : nodo.derecho;
+        }
+        contadores.busqueda(comparaciones);
+        return false;
     }
 
     /**
-     * Método recursivo auxiliar para buscar un valor en el árbol.
+     * Obtiene en orden las claves del árbol comprendidas en un rango.
      *
-     * @param nodo  El nodo actual en la recursión
-     * @param clave El valor a buscar
-     * @return true si el valor existe en el subárbol, false en caso contrario
+     * @param desde Límite inferior inclusivo (null para no limitar)
+     * @param hasta Límite superior inclusivo (null para no limitar)
+     * @return Una lista ordenada con las claves del rango
      */
-    private boolean buscar(Nodo nodo, T clave) {
-        if (nodo == null)
-            return false;
-
-        int cmp = clave.compareTo(nodo.clave);
-
-        if (cmp < 0) {
-            return buscar(nodo.izquierdo, clave);
-        } else if (cmp > 0) {
-            return buscar(nodo.derecho, clave);
-        } else {
+    public List<T> rango(T desde, T hasta) {
+        List<T> resultado = new ArrayList<>();
+        recorrerRango(desde, hasta, clave -> {
+            resultado.add(clave);
             return true;
-        }
+        });
+        return resultado;
     }
 
     /**
-     * Elimina un valor del árbol BST.
+     * Recorre en inorden las claves de un rango, visitando solo los
+     * subárboles que pueden contenerlas, hasta terminar el rango o hasta que
+     * la acción pida parar.
      *
-     * @param clave El valor a eliminar
+     * @param desde  Límite inferior inclusivo (null para no limitar)
+     * @param hasta  Límite superior inclusivo (null para no limitar)
+     * @param accion Acción que recibe cada clave y devuelve false para parar
      */
-    public void eliminar(T clave) {
-        raiz = eliminar(raiz, clave);
+    public void recorrerRango(T desde, T hasta, Predicate<T> accion) {
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        Nodo actual = raiz;
+        while (actual != null || !pendientes.isEmpty()) {
+            while (actual != null) {
+                if (desde != null && actual.clave.compareTo(desde) < 0) {
+                    // El nodo y su subárbol izquierdo quedan por debajo del rango
+                    actual = actual.derecho;
+                } else {
+                    pendientes.push(actual);
+                    actual = actual.izquierdo;
+                }
+            }
+            actual = pendientes.pop();
+            // En inorden, las claves siguientes son todas mayores
+            if (hasta != null && actual.clave.compareTo(hasta) > 0)
+                return;
+            if (!accion.test(actual.clave))
+                return;
+            actual = actual.derecho;
+        }
     }
 
     /**
-     * Método recursivo auxiliar para eliminar un valor del árbol.
+     * Elimina un valor del árbol BST.
      *
-     * @param nodo  El nodo actual en la recursión
      * @param clave El valor a eliminar
-     * @return El nodo actualizado después de la eliminación
      */
-    private Nodo eliminar(Nodo nodo, T clave) {
+    public void eliminar(T clave) {
+        Deque<Nodo> camino = new ArrayDeque<>();
+        Nodo padre = null;
+        Nodo nodo = raiz;
+        while (nodo != null) {
+            int cmp = clave.compareTo(nodo.clave);
+            if (cmp == 0)
+                break;
+            camino.push(nodo);
+            padre = nodo;
+            nodo = cmp < 0 ? nodo.izquierdo : nodo.derecho;
+        }
         if (nodo == null)
-            return null;
+            return;
 
-        int cmp = clave.compareTo(nodo.clave);
-
-        if (cmp < 0) {
-            nodo.izquierdo = eliminar(nodo.izquierdo, clave);
-        } else if (cmp > 0) {
-            nodo.derecho = eliminar(nodo.derecho, clave);
-        } else {
-            if (nodo.izquierdo == null) {
-                return nodo.derecho;
-            } else if (nodo.derecho == null) {
-                return nodo.izquierdo;
-            } else {
-                Nodo sucesor = minimoNodo(nodo.derecho);
-                nodo.clave = sucesor.clave;
-                nodo.derecho = eliminar(nodo.derecho, sucesor.clave);
+        if (nodo.izquierdo != null && nodo.derecho != null) {
+            // Nodo con dos hijos: toma la clave del sucesor inorden, que se
+            // elimina en su lugar porque no tiene hijo izquierdo
+            camino.push(nodo);
+            padre = nodo;
+            Nodo sucesor = nodo.derecho;
+            while (sucesor.izquierdo != null) {
+                camino.push(sucesor);
+                padre = sucesor;
+                sucesor = sucesor.izquierdo;
             }
+            nodo.clave = sucesor.clave;
+            nodo = sucesor;
         }
 
-        return nodo;
+        Nodo hijo = nodo.izquierdo != null ? nodo.izquierdo : nodo.derecho;
+        if (padre == null) {
+            raiz = hijo;
+        } else if (padre.izquierdo == nodo) {
+            padre.izquierdo = hijo;
+        } else {
+            padre.derecho = hijo;
+        }
+        tamano--;
+        actualizarAlturas(camino);
     }
 
     /**
-     * Encuentra el nodo con el valor mínimo en un subárbol.
+     * Recalcula las alturas de los nodos de un camino, del más profundo a la
+     * raíz. Se detiene en cuanto un nodo conserva su altura, porque entonces
+     * la de sus antecesores tampoco cambia.
      *
-     * @param nodo La raíz del subárbol
-     * @return El nodo con el valor mínimo
+     * @param camino Los nodos del camino, el más profundo en la cima
      */
-    private Nodo minimoNodo(Nodo nodo) {
-        while (nodo.izquierdo != null) {
-            nodo = nodo.izquierdo;
+    private void actualizarAlturas(Deque<Nodo> camino) {
+        while (!camino.isEmpty()) {
+            Nodo nodo = camino.pop();
+            int anterior = nodo.altura;
+            actualizarAltura(nodo);
+            if (nodo.altura == anterior)
+                return;
         }
-        return nodo;
     }
 
     /**
-     * Calcula la altura del árbol.
+     * Recalcula la altura de un nodo a partir de la de sus hijos.
      *
-     * @param nodo El nodo raíz para calcular la altura
-     * @return La altura del árbol
+     * @param nodo El nodo a actualizar
      */
-    private int altura(Nodo nodo) {
-        if (nodo == null)
-            return 0;
+    private void actualizarAltura(Nodo nodo) {
+        int alturaIzq = nodo.izquierdo != null ? nodo.izquierdo.altura : 0;
+        int alturaDer = nodo.derecho != null ? nodo.derecho.altura : 0;
+        nodo.altura = Math.max(alturaIzq, alturaDer) + 1;
+    }
 
-        int alturaIzq = altura(nodo.izquierdo);
-        int alturaDer = altura(nodo.derecho);
+    /**
+     * @return La altura del árbol (0 si está vacío), en O(1)
+     */
+    public int altura() {
+        return raiz != null ? raiz.altura : 0;
+    }
 
-        return Math.max(alturaIzq, alturaDer) + 1;
+    /**
+     * @return El número de claves del árbol
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Crea un árbol perfectamente balanceado con las mismas claves, en tiempo
+     * lineal. Este árbol solo se lee, así que otros hilos pueden seguir
+     * consultándolo mientras tanto. El árbol nuevo comparte los contadores
+     * de uso de este, de modo que las estadísticas continúan.
+     *
+     * @return Un árbol nuevo con las claves de este y altura mínima
+     */
+    public ArbolBST<T> balanceado() {
+        return balanceado(Collections.emptyList());
+    }
+
+    /**
+     * Crea un árbol perfectamente balanceado con las claves de este más las
+     * indicadas, en una sola construcción. Sirve para terminar una inserción
+     * masiva sin que el árbol degenere a mitad de camino.
+     *
+     * @param adicionales Claves a añadir, en cualquier orden y con posibles
+     *                    repeticiones
+     * @return Un árbol nuevo con todas las claves y altura mínima
+     */
+    public ArbolBST<T> balanceado(Collection<T> adicionales) {
+        List<T> nuevas = new ArrayList<>(adicionales);
+        Collections.sort(nuevas);
+
+        // Recorrido inorden iterativo (un árbol degenerado desbordaría la pila)
+        // mezclado con las claves nuevas ya ordenadas, sin repetir ninguna
+        List<T> claves = new ArrayList<>(tamano + nuevas.size());
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        Nodo actual = raiz;
+        int siguiente = 0;
+        while (actual != null || !pendientes.isEmpty()) {
+            while (actual != null) {
+                pendientes.push(actual);
+                actual = actual.izquierdo;
+            }
+            actual = pendientes.pop();
+            while (siguiente < nuevas.size() && nuevas.get(siguiente).compareTo(actual.clave) <= 0) {
+                agregarSinRepetir(claves, nuevas.get(siguiente++));
+            }
+            agregarSinRepetir(claves, actual.clave);
+            actual = actual.derecho;
+        }
+        while (siguiente < nuevas.size()) {
+            agregarSinRepetir(claves, nuevas.get(siguiente++));
+        }
+
+        ArbolBST<T> resultado = new ArbolBST<>(contadores);
+        resultado.raiz = resultado.construir(claves, 0, claves.size() - 1);
+        resultado.tamano = claves.size();
+        contadores.reconstrucciones.increment();
+        return resultado;
+    }
+
+    private static <T extends Comparable<T>> void agregarSinRepetir(List<T> claves, T clave) {
+        if (claves.isEmpty() || claves.get(claves.size() - 1).compareTo(clave) != 0) {
+            claves.add(clave);
+        }
+    }
+
+    /**
+     * Construye el subárbol balanceado de las claves ordenadas entre dos
+     * posiciones, tomando como raíz la clave central.
+     */
+    private Nodo construir(List<T> claves, int desde, int hasta) {
+        if (desde > hasta)
+            return null;
+        int medio = (desde + hasta) >>> 1;
+        Nodo nodo = new Nodo(claves.get(medio));
+        nodo.izquierdo = construir(claves, desde, medio - 1);
+        nodo.derecho = construir(claves, medio + 1, hasta);
+        actualizarAltura(nodo);
+        return nodo;
+    }
+
+    /**
+     * Obtiene las estadísticas del árbol. La profundidad media se calcula
+     * recorriendo todos los nodos; el resto de valores se mantiene al
+     * modificar o consultar el árbol.
+     *
+     * @return Las estadísticas actuales
+     */
+    public EstadisticasArbol estadisticas() {
+        long sumaProfundidades = 0;
+        if (raiz != null) {
+            Deque<Nodo> pendientes = new ArrayDeque<>();
+            Deque<Integer> profundidades = new ArrayDeque<>();
+            pendientes.push(raiz);
+            profundidades.push(1);
+            while (!pendientes.isEmpty()) {
+                Nodo nodo = pendientes.pop();
+                int profundidad = profundidades.pop();
+                sumaProfundidades += profundidad;
+                if (nodo.izquierdo != null) {
+                    pendientes.push(nodo.izquierdo);
+                    profundidades.push(profundidad + 1);
+                }
+                if (nodo.derecho != null) {
+                    pendientes.push(nodo.derecho);
+                    profundidades.push(profundidad + 1);
+                }
+            }
+        }
+        return new EstadisticasArbol(tamano, altura(), sumaProfundidades, contadores);
     }
 
     /**
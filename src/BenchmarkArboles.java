@@ -0,0 +1,361 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Banco de pruebas de los árboles usados por los índices: ArbolBST, ArbolAVL
+ * y ArbolAVLPersistente.
+ *
+ * Mide insertar, buscar, recorridoPorNivel y eliminar con varias
+ * distribuciones de claves (aleatoria, ordenada, inversa, Zipf y apellidos
+ * españoles) y varios tamaños. Para cada medida muestra las operaciones por
+ * segundo, los nanosegundos y los bytes reservados por operación, de modo
+ * que una regresión de tiempo o de memoria se vea al comparar dos versiones.
+ * El recorrido por niveles se cuenta por nodo visitado.
+ *
+ * Cada medida es la mediana de varias repeticiones, tras un calentamiento
+ * común para que el compilador JIT haya optimizado los árboles. El BST no se
+ * mide con claves ordenadas o inversas por encima de LIMITE_DEGENERADO: se
+ * convierte en una lista y cada operación es O(n), así que la medida tardaría
+ * horas.
+ *
+ * Uso: java BenchmarkArboles [tamaños separados por comas] [repeticiones]
+ * (por defecto 1000,10000,100000,1000000 y 3). Para 10000000 hace falta
+ * ampliar el heap, por ejemplo con -Xmx4g.
+ *
+ */
+public class BenchmarkArboles {
+    private static final int LIMITE_DEGENERADO = 5_000;
+    private static final int TAMANO_CALENTAMIENTO = 100_000;
+    private static final int RONDAS_CALENTAMIENTO = 3;
+    private static final long SEMILLA = 42;
+
+    /** Evita que el compilador JIT elimine como código muerto las búsquedas. */
+    private static volatile long sumidero;
+
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private enum Distribucion {
+        ALEATORIA, ORDENADA, INVERSA, ZIPF, APELLIDOS
+    }
+
+    /**
+     * Operaciones comunes de los tres árboles para medirlos con el mismo
+     * código.
+     */
+    private interface Arbol {
+        void insertar(String clave);
+
+        boolean buscar(String clave);
+
+        void eliminar(String clave);
+
+        List<String> recorridoPorNivel();
+    }
+
+    private static class Bst implements Arbol {
+        private final ArbolBST<String> arbol = new ArbolBST<>();
+
+        public void insertar(String clave) {
+            arbol.insertar(clave);
+        }
+
+        public boolean buscar(String clave) {
+            return arbol.buscar(clave);
+        }
+
+        public void eliminar(String clave) {
+            arbol.eliminar(clave);
+        }
+
+        public List<String> recorridoPorNivel() {
+            return arbol.recorridoPorNivel();
+        }
+    }
+
+    private static class Avl implements Arbol {
+        private final ArbolAVL<String> arbol = new ArbolAVL<>();
+
+        public void insertar(String clave) {
+            arbol.insertar(clave);
+        }
+
+        public boolean buscar(String clave) {
+            return arbol.buscar(clave);
+        }
+
+        public void eliminar(String clave) {
+            arbol.eliminar(clave);
+        }
+
+        public List<String> recorridoPorNivel() {
+            return arbol.recorridoPorNivel();
+        }
+    }
+
+    private static class AvlPersistente implements Arbol {
+        private ArbolAVLPersistente<String, Boolean> arbol = ArbolAVLPersistente.vacio();
+
+        public void insertar(String clave) {
+            arbol = arbol.insertar(clave, Boolean.TRUE);
+        }
+
+        public boolean buscar(String clave) {
+            return arbol.buscar(clave);
+        }
+
+        public void eliminar(String clave) {
+            arbol = arbol.eliminar(clave);
+        }
+
+        public List<String> recorridoPorNivel() {
+            return arbol.recorridoPorNivel();
+        }
+    }
+
+    private static final String[] NOMBRES_ARBOLES = { "BST", "AVL", "AVL persistente" };
+
+    private static Arbol nuevoArbol(int tipo) {
+        switch (tipo) {
+            case 0:
+                return new Bst();
+            case 1:
+                return new Avl();
+            default:
+                return new AvlPersistente();
+        }
+    }
+
+    /**
+     * Tiempo y memoria reservada de una medida, junto al número de
+     * operaciones que incluye.
+     */
+    private static class Medida implements Comparable<Medida> {
+        final long nanos;
+        final long bytes;
+        final long operaciones;
+
+        Medida(long nanos, long bytes, long operaciones) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.operaciones = Math.max(1, operaciones);
+        }
+
+        @Override
+        public int compareTo(Medida otra) {
+            return Long.compare(nanos * otra.operaciones, otra.nanos * operaciones);
+        }
+    }
+
+    /**
+     * Método principal del banco de pruebas.
+     *
+     * @param args Tamaños separados por comas y número de repeticiones
+     */
+    public static void main(String[] args) {
+        int[] tamanos = Arrays.stream((args.length > 0 ? args[0] : "1000,10000,100000,1000000").split(","))
+                .mapToInt(t -> Integer.parseInt(t.trim())).toArray();
+        int repeticiones = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        if (!HILOS.isThreadAllocatedMemorySupported()) {
+            System.out.println("La JVM no permite medir la memoria reservada; la columna B/op será 0.");
+        }
+
+        String[] calentamiento = generarClaves(Distribucion.ALEATORIA, TAMANO_CALENTAMIENTO, new Random(SEMILLA));
+        for (int ronda = 0; ronda < RONDAS_CALENTAMIENTO; ronda++) {
+            for (int tipo = 0; tipo < NOMBRES_ARBOLES.length; tipo++) {
+                medirCiclo(nuevoArbol(tipo), calentamiento, calentamiento);
+            }
+        }
+
+        System.out.printf("%-16s %-10s %10s %-10s %14s %10s %10s%n", "Árbol", "Claves", "Tamaño", "Operación",
+                "ops/s", "ns/op", "B/op");
+        for (Distribucion distribucion : Distribucion.values()) {
+            for (int tamano : tamanos) {
+                Random aleatorio = new Random(SEMILLA + tamano);
+                String[] claves = generarClaves(distribucion, tamano, aleatorio);
+                String[] buscadas = generarBuscadas(distribucion, claves, aleatorio);
+                for (int tipo = 0; tipo < NOMBRES_ARBOLES.length; tipo++) {
+                    if (tipo == 0 && tamano > LIMITE_DEGENERADO
+                            && (distribucion == Distribucion.ORDENADA || distribucion == Distribucion.INVERSA)) {
+                        System.out.printf("%-16s %-10s %10d %-10s omitido (árbol degenerado)%n",
+                                NOMBRES_ARBOLES[tipo], distribucion.name().toLowerCase(), tamano, "-");
+                        continue;
+                    }
+                    medirConfiguracion(tipo, distribucion, tamano, claves, buscadas, repeticiones);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mide una combinación de árbol, distribución y tamaño y muestra la
+     * mediana de cada operación.
+     */
+    private static void medirConfiguracion(int tipo, Distribucion distribucion, int tamano, String[] claves,
+                                           String[] buscadas, int repeticiones) {
+        String[] operaciones = { "insertar", "buscar", "recorrido", "eliminar" };
+        List<List<Medida>> medidas = new ArrayList<>();
+        for (int i = 0; i < operaciones.length; i++) {
+            medidas.add(new ArrayList<>());
+        }
+        for (int r = 0; r < repeticiones; r++) {
+            System.gc();
+            Medida[] ciclo = medirCiclo(nuevoArbol(tipo), claves, buscadas);
+            for (int i = 0; i < operaciones.length; i++) {
+                medidas.get(i).add(ciclo[i]);
+            }
+        }
+        for (int i = 0; i < operaciones.length; i++) {
+            List<Medida> lista = medidas.get(i);
+            lista.sort(null);
+            Medida mediana = lista.get(lista.size() / 2);
+            double nsPorOperacion = mediana.nanos / (double) mediana.operaciones;
+            System.out.printf("%-16s %-10s %10d %-10s %14.0f %10.1f %10.1f%n", NOMBRES_ARBOLES[tipo],
+                    distribucion.name().toLowerCase(), tamano, operaciones[i], 1e9 / nsPorOperacion,
+                    nsPorOperacion, mediana.bytes / (double) mediana.operaciones);
+        }
+    }
+
+    /**
+     * Inserta todas las claves, busca las indicadas, recorre el árbol por
+     * niveles y elimina todas las claves, midiendo cada fase.
+     */
+    private static Medida[] medirCiclo(Arbol arbol, String[] claves, String[] buscadas) {
+        Medida[] resultado = new Medida[4];
+
+        long bytes = reservados();
+        long inicio = System.nanoTime();
+        for (String clave : claves) {
+            arbol.insertar(clave);
+        }
+        resultado[0] = new Medida(System.nanoTime() - inicio, reservados() - bytes, claves.length);
+
+        long encontrados = 0;
+        bytes = reservados();
+        inicio = System.nanoTime();
+        for (String clave : buscadas) {
+            if (arbol.buscar(clave))
+                encontrados++;
+        }
+        resultado[1] = new Medida(System.nanoTime() - inicio, reservados() - bytes, buscadas.length);
+
+        bytes = reservados();
+        inicio = System.nanoTime();
+        List<String> recorrido = arbol.recorridoPorNivel();
+        resultado[2] = new Medida(System.nanoTime() - inicio, reservados() - bytes, recorrido.size());
+
+        bytes = reservados();
+        inicio = System.nanoTime();
+        for (String clave : claves) {
+            arbol.eliminar(clave);
+        }
+        resultado[3] = new Medida(System.nanoTime() - inicio, reservados() - bytes, claves.length);
+
+        sumidero += encontrados + recorrido.size();
+        return resultado;
+    }
+
+    private static long reservados() {
+        return HILOS.isThreadAllocatedMemorySupported()
+                ? HILOS.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : 0;
+    }
+
+    /**
+     * Genera la secuencia de claves a insertar. Las distribuciones Zipf y de
+     * apellidos repiten claves, como ocurre con los valores reales de un
+     * campo indexado.
+     */
+    private static String[] generarClaves(Distribucion distribucion, int tamano, Random aleatorio) {
+        String[] claves = new String[tamano];
+        switch (distribucion) {
+            case ALEATORIA: {
+                int[] permutacion = new int[tamano];
+                for (int i = 0; i < tamano; i++) {
+                    permutacion[i] = i;
+                }
+                for (int i = tamano - 1; i > 0; i--) {
+                    int j = aleatorio.nextInt(i + 1);
+                    int t = permutacion[i];
+                    permutacion[i] = permutacion[j];
+                    permutacion[j] = t;
+                }
+                for (int i = 0; i < tamano; i++) {
+                    claves[i] = clave(permutacion[i]);
+                }
+                break;
+            }
+            case ORDENADA:
+                for (int i = 0; i < tamano; i++) {
+                    claves[i] = clave(i);
+                }
+                break;
+            case INVERSA:
+                for (int i = 0; i < tamano; i++) {
+                    claves[i] = clave(tamano - 1 - i);
+                }
+                break;
+            case ZIPF: {
+                double[] acumulada = GeneradorContactos.zipf(tamano, 1.0);
+                for (int i = 0; i < tamano; i++) {
+                    claves[i] = clave(mezclar(rangoZipf(acumulada, aleatorio)));
+                }
+                break;
+            }
+            case APELLIDOS: {
+                String[] apellidos = GeneradorContactos.APELLIDOS;
+                double[] acumulada = GeneradorContactos.zipf(apellidos.length, 1.0);
+                for (int i = 0; i < tamano; i++) {
+                    claves[i] = apellidos[rangoZipf(acumulada, aleatorio)] + " "
+                            + apellidos[rangoZipf(acumulada, aleatorio)];
+                }
+                break;
+            }
+        }
+        return claves;
+    }
+
+    /**
+     * Genera las claves a buscar: la misma cantidad que las insertadas, la
+     * mitad presentes y la mitad ausentes salvo en las distribuciones
+     * sesgadas, donde se buscan con el mismo sesgo con que se insertaron.
+     */
+    private static String[] generarBuscadas(Distribucion distribucion, String[] claves, Random aleatorio) {
+        String[] buscadas = new String[claves.length];
+        boolean sesgada = distribucion == Distribucion.ZIPF || distribucion == Distribucion.APELLIDOS;
+        for (int i = 0; i < buscadas.length; i++) {
+            if (sesgada || aleatorio.nextBoolean()) {
+                buscadas[i] = claves[aleatorio.nextInt(claves.length)];
+            } else {
+                buscadas[i] = clave(claves.length + aleatorio.nextInt(claves.length)) + "x";
+            }
+        }
+        return buscadas;
+    }
+
+    /**
+     * Clave de texto de ancho fijo, para que el orden lexicográfico coincida
+     * con el numérico.
+     */
+    private static String clave(int numero) {
+        String digitos = Integer.toString(numero);
+        return "k" + "0000000000".substring(digitos.length()) + digitos;
+    }
+
+    private static int rangoZipf(double[] acumulada, Random aleatorio) {
+        int pos = Arrays.binarySearch(acumulada, aleatorio.nextDouble());
+        return Math.min(acumulada.length - 1, pos >= 0 ? pos : -pos - 1);
+    }
+
+    /**
+     * Dispersa los rangos de Zipf para que las claves frecuentes no sean
+     * también las menores. La multiplicación por un impar módulo 2^31 es biyectiva, así
+     * que rangos distintos dan claves distintas.
+     */
+    private static int mezclar(int rango) {
+        return (int) ((rango * 0x9E3779B1L) & 0x7FFFFFFFL);
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Banco de pruebas del ciclo de vida completo de GestorContactos sobre un
+ * archivo generado con GeneradorContactos.
+ *
+ * Mide, por fases, la importación en el constructor, crearIndice en cada
+ * campo, una mezcla de altas, actualizaciones y bajas, exportarContactos y
+ * el recorrido por niveles de cada índice. Para cada fase muestra las
+ * operaciones, el tiempo, las operaciones por segundo y la memoria reservada
+ * por todos los hilos, y puede guardar la misma tabla en CSV para comparar
+ * dos versiones. Con la misma semilla los datos y las operaciones son
+ * idénticos entre ejecuciones.
+ *
+ * Uso: java BenchmarkGestor [filas] [operaciones] [AVL|BST] [--columnar]
+ * [--salida informe.csv]
+ *
+ */
+public class BenchmarkGestor {
+    private static final long SEMILLA = 1;
+    private static final double SESGO = 1.0;
+    private static final double DUPLICADOS = 0.05;
+    private static final String[] CAMPOS = { "nombre", "apellido", "apodo", "telefono", "email", "direccion",
+            "fechanacimiento" };
+    private static final String[] MUTACIONES = { "agregar", "actualizar", "eliminar" };
+
+    private static final com.sun.management.ThreadMXBean HILOS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Resultado de una fase del ciclo de vida.
+     */
+    private static class Fase {
+        final String nombre;
+        final long operaciones;
+        final long nanos;
+        final long bytes;
+
+        Fase(String nombre, long operaciones, long nanos, long bytes) {
+            this.nombre = nombre;
+            this.operaciones = operaciones;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+    }
+
+    private final List<Fase> fases = new ArrayList<>();
+    private final RegistroLatencias[] latencias = new RegistroLatencias[MUTACIONES.length];
+    private long inicioFase;
+    private long bytesFase;
+
+    /**
+     * Método principal del banco de pruebas.
+     *
+     * @param args Filas del archivo (100000 por defecto), operaciones mixtas
+     *             (la décima parte de las filas por defecto), tipo de índice
+     *             (AVL por defecto), "--columnar" y "--salida archivo"
+     * @throws IOException Si no se pueden crear los archivos temporales
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> lista = Arrays.asList(args);
+        int filas = args.length > 0 && !args[0].startsWith("--") ? Integer.parseInt(args[0]) : 100_000;
+        int operaciones = args.length > 1 && !args[1].startsWith("--") ? Integer.parseInt(args[1]) : filas / 10;
+        String tipo = args.length > 2 && !args[2].startsWith("--") ? args[2].toUpperCase() : "AVL";
+        boolean columnar = lista.contains("--columnar");
+        int posSalida = lista.indexOf("--salida");
+        String salida = posSalida >= 0 && posSalida + 1 < args.length ? args[posSalida + 1] : null;
+
+        new BenchmarkGestor().ejecutar(filas, operaciones, tipo, columnar, salida);
+    }
+
+    private void ejecutar(int filas, int operaciones, String tipo, boolean columnar, String salida)
+            throws IOException {
+        Path archivo = Files.createTempFile("benchmark-gestor", ".csv");
+        Path exportado = Files.createTempFile("benchmark-exportado", ".csv");
+        try {
+            GeneradorContactos generador = new GeneradorContactos(SEMILLA, SESGO, DUPLICADOS);
+            empezar();
+            generador.escribirCSV(archivo, filas);
+            terminar("generar", filas);
+
+            empezar();
+            GestorContactos gestor = new GestorContactos(archivo.toString(), columnar);
+            terminar("importar", gestor.cantidadContactos());
+
+            for (String campo : CAMPOS) {
+                empezar();
+                gestor.crearIndice(campo, tipo);
+                terminar("indice " + campo, filas);
+            }
+
+            mezclarMutaciones(gestor, generador, filas, operaciones);
+
+            empezar();
+            gestor.exportarContactos(exportado.toString());
+            terminar("exportar", gestor.cantidadContactos());
+
+            for (String campo : CAMPOS) {
+                empezar();
+                String recorrido = gestor.recorridoPorNivel(campo);
+                long ids = recorrido != null ? recorrido.chars().filter(c -> c == ',').count() + 1 : 0;
+                terminar("recorrido " + campo, ids);
+            }
+
+            empezar();
+            gestor.cerrar();
+            terminar("cerrar", 1);
+        } finally {
+            Files.deleteIfExists(archivo);
+            Files.deleteIfExists(exportado);
+        }
+
+        String parametros = String.format("filas=%d operaciones=%d indice=%s almacen=%s java=%s", filas,
+                operaciones, tipo, columnar ? "columnar" : "lista", System.getProperty("java.version"));
+        mostrarInforme(parametros);
+        if (salida != null) {
+            guardarInforme(salida, parametros);
+        }
+    }
+
+    /**
+     * Ejecuta la mezcla de modificaciones: 50% altas, 30% actualizaciones y
+     * 20% bajas sobre IDs al azar. Registra la latencia de cada tipo y, como
+     * fase, el total incluida la espera final hasta que todo está en disco.
+     */
+    private void mezclarMutaciones(GestorContactos gestor, GeneradorContactos generador, int filas,
+                                   int operaciones) {
+        Random aleatorio = new Random(SEMILLA);
+        for (int i = 0; i < latencias.length; i++) {
+            latencias[i] = new RegistroLatencias();
+        }
+
+        int siguienteId = filas + 1;
+        empezar();
+        for (int i = 0; i < operaciones; i++) {
+            int r = aleatorio.nextInt(100);
+            long antes = System.nanoTime();
+            if (r < 50) {
+                Contacto c = generador.siguiente(siguienteId++);
+                gestor.agregarContacto(c.getNombre(), c.getApellido(), c.getApodo(), c.getTelefono(), c.getEmail(),
+                        c.getDireccion(), c.getFechaNacimiento());
+                latencias[0].registrar(System.nanoTime() - antes);
+            } else if (r < 80) {
+                Contacto c = generador.siguiente(1 + aleatorio.nextInt(filas));
+                gestor.actualizarContacto(c.getId(), c.getNombre(), c.getApellido(), c.getApodo(), c.getTelefono(),
+                        c.getEmail(), c.getDireccion(), c.getFechaNacimiento());
+                latencias[1].registrar(System.nanoTime() - antes);
+            } else {
+                gestor.eliminarContacto(1 + aleatorio.nextInt(filas));
+                latencias[2].registrar(System.nanoTime() - antes);
+            }
+        }
+        gestor.sincronizar().join();
+        terminar("mutaciones", operaciones);
+    }
+
+    private void empezar() {
+        bytesFase = reservados();
+        inicioFase = System.nanoTime();
+    }
+
+    private void terminar(String nombre, long operaciones) {
+        long nanos = System.nanoTime() - inicioFase;
+        // Si termina un hilo durante la fase su memoria desaparece de la suma
+        fases.add(new Fase(nombre, operaciones, nanos, Math.max(0, reservados() - bytesFase)));
+    }
+
+    /**
+     * Suma la memoria reservada por todos los hilos vivos, porque las fases
+     * también trabajan en el hilo del escritor y en el pool de flujos
+     * paralelos. Lo reservado por hilos que ya terminaron no se cuenta.
+     */
+    private static long reservados() {
+        if (!HILOS.isThreadAllocatedMemorySupported())
+            return 0;
+        long total = 0;
+        for (long bytes : HILOS.getThreadAllocatedBytes(HILOS.getAllThreadIds())) {
+            if (bytes > 0)
+                total += bytes;
+        }
+        return total;
+    }
+
+    private void mostrarInforme(String parametros) {
+        System.out.println(parametros);
+        System.out.printf("%-26s %12s %12s %14s %14s%n", "Fase", "Operaciones", "ms", "ops/s", "MB reservados");
+        for (Fase fase : fases) {
+            double ms = fase.nanos / 1e6;
+            System.out.printf("%-26s %12d %12.1f %14.0f %14.1f%n", fase.nombre, fase.operaciones, ms,
+                    fase.operaciones / (ms / 1000), fase.bytes / (1024.0 * 1024));
+        }
+        System.out.println(RegistroLatencias.cabecera());
+        for (int i = 0; i < MUTACIONES.length; i++) {
+            System.out.println(latencias[i].resumen(MUTACIONES[i]));
+        }
+    }
+
+    /**
+     * Guarda el informe en CSV con los parámetros en la primera línea,
+     * precedida de '#', para poder comparar dos ejecuciones fase a fase.
+     */
+    private void guardarInforme(String salida, String parametros) {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(salida))) {
+            writer.write("# " + parametros);
+            writer.newLine();
+            writer.write("fase,operaciones,ms,ops_s,mb_reservados");
+            writer.newLine();
+            for (Fase fase : fases) {
+                double ms = fase.nanos / 1e6;
+                writer.write(String.format(Locale.ROOT, "%s,%d,%.1f,%.0f,%.1f", fase.nombre, fase.operaciones, ms,
+                        fase.operaciones / (ms / 1000), fase.bytes / (1024.0 * 1024)));
+                writer.newLine();
+            }
+            System.out.println("Informe guardado en " + salida);
+        } catch (IOException e) {
+            System.out.println("Error al guardar el informe: " + e.getMessage());
+        }
+    }
+}
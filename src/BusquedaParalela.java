@@ -0,0 +1,118 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+
+/**
+ * Búsqueda por recorrido completo del almacén repartida entre varios hilos.
+ *
+ * Se utiliza para los campos que no tienen índice: el almacén se divide en
+ * tramos de posiciones que se evalúan en paralelo en un ForkJoinPool, y los
+ * IDs encontrados en cada tramo se combinan ordenados por ID.
+ *
+ */
+public class BusquedaParalela {
+    /**
+     * Tamaño de tramo por debajo del cual no merece la pena seguir dividiendo.
+     */
+    private static final int UMBRAL_SECUENCIAL = 4096;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor que utiliza el pool común de ForkJoin (un hilo por núcleo).
+     */
+    public BusquedaParalela() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor con un pool específico.
+     *
+     * @param pool El pool donde se ejecutarán los tramos de la búsqueda
+     */
+    public BusquedaParalela(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Busca los contactos cuyo valor en un campo cumple un predicado.
+     *
+     * @param contactos El almacén a recorrer
+     * @param campo     El nombre del campo a evaluar (id, nombre, apellido, etc.)
+     * @param predicado Condición sobre el valor del campo (nunca recibe null)
+     * @return Los IDs de los contactos que cumplen, ordenados
+     */
+    public int[] buscar(AlmacenContactos contactos, String campo, Predicate<Object> predicado) {
+        CampoContacto descriptor = CampoContacto.resolver(campo);
+        if (descriptor == null)
+            return new int[0];
+        return buscar(contactos, contacto -> {
+            Object valor = descriptor.valor(contacto);
+            return valor != null && predicado.test(valor);
+        });
+    }
+
+    /**
+     * Busca los contactos que cumplen un predicado.
+     *
+     * @param contactos El almacén a recorrer
+     * @param predicado Condición sobre el contacto
+     * @return Los IDs de los contactos que cumplen, ordenados
+     */
+    public int[] buscar(AlmacenContactos contactos, Predicate<Contacto> predicado) {
+        int tamano = contactos.tamano();
+        if (tamano == 0)
+            return new int[0];
+        return pool.invoke(new Tramo(contactos, predicado, 0, tamano));
+    }
+
+    /**
+     * Tarea que evalúa un tramo de posiciones del almacén, dividiéndolo en dos
+     * mitades mientras sea mayor que el umbral secuencial.
+     */
+    private static class Tramo extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final AlmacenContactos contactos;
+        private final Predicate<Contacto> predicado;
+        private final int desde;
+        private final int hasta;
+
+        Tramo(AlmacenContactos contactos, Predicate<Contacto> predicado, int desde, int hasta) {
+            this.contactos = contactos;
+            this.predicado = predicado;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (hasta - desde <= UMBRAL_SECUENCIAL) {
+                return recorrer();
+            }
+
+            int mitad = (desde + hasta) >>> 1;
+            Tramo izquierdo = new Tramo(contactos, predicado, desde, mitad);
+            Tramo derecho = new Tramo(contactos, predicado, mitad, hasta);
+            izquierdo.fork();
+            int[] idsDerecho = derecho.compute();
+            return ListaIds.union(izquierdo.join(), idsDerecho);
+        }
+
+        private int[] recorrer() {
+            int[] ids = new int[hasta - desde];
+            int k = 0;
+            for (int i = desde; i < hasta; i++) {
+                Contacto contacto = contactos.obtener(i);
+                if (predicado.test(contacto)) {
+                    ids[k++] = contacto.getId();
+                }
+            }
+            ids = Arrays.copyOf(ids, k);
+            // El orden del almacén es el de inserción, que no tiene por qué ser el de los IDs
+            Arrays.sort(ids);
+            return ids;
+        }
+    }
+}
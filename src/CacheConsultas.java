@@ -0,0 +1,284 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Caché acotada de resultados de consultas con expulsión LRU.
+ *
+ * Guarda los resultados materializados de las consultas repetidas (búsquedas
+ * en índices, listas de contactos y recorridos por niveles) agrupados por
+ * campo y valor, de forma que una modificación invalide únicamente las
+ * entradas de los valores afectados en lugar de vaciar toda la caché.
+ *
+ * Las lecturas no toman ningún bloqueo: cada entrada registra su último
+ * acceso y, al superar el peso máximo, se expulsan las menos usadas
+ * recientemente (LRU aproximado). Las escrituras e invalidaciones se
+ * serializan entre sí.
+ *
+ */
+public class CacheConsultas {
+    /**
+     * Tipos de consulta que se pueden almacenar en la caché.
+     */
+    public enum TipoConsulta {
+        BUSQUEDA, CONTACTOS, RECORRIDO
+    }
+
+    /**
+     * Clave de una entrada: tipo de consulta, campo y valor consultado.
+     * Para los recorridos por niveles el valor es null.
+     */
+    private static final class Clave {
+        final TipoConsulta tipo;
+        final String campo;
+        final String valor;
+
+        Clave(TipoConsulta tipo, String campo, String valor) {
+            this.tipo = tipo;
+            this.campo = campo;
+            this.valor = valor;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Clave))
+                return false;
+            Clave otra = (Clave) o;
+            return tipo == otra.tipo && campo.equals(otra.campo) && Objects.equals(valor, otra.valor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tipo, campo, valor);
+        }
+    }
+
+    /**
+     * Resultado almacenado junto con su peso (número aproximado de elementos).
+     */
+    private static final class Entrada {
+        final Object resultado;
+        final int peso;
+        volatile long ultimoAcceso;
+
+        Entrada(Object resultado, int peso, long ultimoAcceso) {
+            this.resultado = resultado;
+            this.peso = peso;
+            this.ultimoAcceso = ultimoAcceso;
+        }
+    }
+
+    // Fracción de entradas que se expulsa de una vez al superar el peso máximo
+    private static final int DIVISOR_EXPULSION = 8;
+
+    private final ConcurrentHashMap<Clave, Entrada> entradas;
+    private final Map<String, Set<Clave>> clavesPorCampo;
+    private final int pesoMaximo;
+    private final AtomicLong reloj = new AtomicLong();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private int pesoActual;
+
+    /**
+     * Constructor de la caché.
+     *
+     * @param pesoMaximo Peso total máximo (suma de elementos de todos los
+     *                   resultados) antes de empezar a expulsar entradas
+     */
+    public CacheConsultas(int pesoMaximo) {
+        this.entradas = new ConcurrentHashMap<>(256);
+        this.clavesPorCampo = new HashMap<>();
+        this.pesoMaximo = pesoMaximo;
+    }
+
+    /**
+     * Obtiene un resultado almacenado.
+     *
+     * @param tipo  Tipo de consulta
+     * @param campo Campo consultado
+     * @param valor Valor consultado (null para recorridos)
+     * @return El resultado almacenado, o null si no está en la caché
+     */
+    public Object obtener(TipoConsulta tipo, String campo, String valor) {
+        Entrada entrada = entradas.get(new Clave(tipo, campo, valor));
+        if (entrada == null) {
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        // Una marca aproximada basta para ordenar la expulsión
+        entrada.ultimoAcceso = reloj.get();
+        return entrada.resultado;
+    }
+
+    /**
+     * Guarda un resultado solo si sigue siendo válido en el momento de
+     * guardarlo. La comprobación se hace con el monitor de la caché tomado, de
+     * modo que una invalidación no puede colarse entre la comprobación y el
+     * guardado; sirve para resultados calculados sin bloquear a los escritores.
+     *
+     * @param tipo      Tipo de consulta
+     * @param campo     Campo consultado
+     * @param valor     Valor consultado (puede ser null)
+     * @param resultado Resultado a guardar
+     * @param peso      Peso aproximado del resultado
+     * @param vigente   Indica si el resultado sigue correspondiendo a los datos
+     */
+    public synchronized void guardar(TipoConsulta tipo, String campo, String valor, Object resultado, int peso,
+                                     BooleanSupplier vigente) {
+        if (vigente.getAsBoolean()) {
+            guardar(tipo, campo, valor, resultado, peso);
+        }
+    }
+
+    /**
+     * Guarda un resultado en la caché, expulsando las entradas menos usadas
+     * si se supera el peso máximo.
+     *
+     * @param tipo      Tipo de consulta
+     * @param campo     Campo consultado
+     * @param valor     Valor consultado (null para recorridos)
+     * @param resultado Resultado a guardar
+     * @param peso      Número aproximado de elementos del resultado
+     */
+    public synchronized void guardar(TipoConsulta tipo, String campo, String valor, Object resultado, int peso) {
+        int pesoEntrada = Math.max(1, peso);
+        if (pesoEntrada > pesoMaximo)
+            return;
+
+        Clave clave = new Clave(tipo, campo, valor);
+        Entrada anterior = entradas.put(clave, new Entrada(resultado, pesoEntrada, reloj.incrementAndGet()));
+        if (anterior != null) {
+            pesoActual -= anterior.peso;
+        } else {
+            clavesPorCampo.computeIfAbsent(campo, c -> new HashSet<>()).add(clave);
+        }
+        pesoActual += pesoEntrada;
+
+        if (pesoActual > pesoMaximo) {
+            expulsarMenosUsadas();
+        }
+    }
+
+    /**
+     * Expulsa las entradas con el acceso más antiguo hasta volver por debajo
+     * del peso máximo, liberando además un margen para no repetir la
+     * ordenación en cada inserción.
+     */
+    private void expulsarMenosUsadas() {
+        List<Map.Entry<Clave, Entrada>> candidatas = new ArrayList<>(entradas.entrySet());
+        candidatas.sort(Comparator.comparingLong(e -> e.getValue().ultimoAcceso));
+
+        int objetivo = pesoMaximo - pesoMaximo / DIVISOR_EXPULSION;
+        for (Map.Entry<Clave, Entrada> candidata : candidatas) {
+            if (pesoActual <= objetivo)
+                break;
+            eliminar(candidata.getKey());
+        }
+    }
+
+    /**
+     * Invalida las búsquedas y listas de contactos de un valor concreto de un
+     * campo.
+     *
+     * @param campo El campo afectado
+     * @param valor El valor afectado
+     */
+    public synchronized void invalidarValor(String campo, String valor) {
+        if (valor == null)
+            return;
+        eliminar(new Clave(TipoConsulta.BUSQUEDA, campo, valor));
+        eliminar(new Clave(TipoConsulta.CONTACTOS, campo, valor));
+    }
+
+    /**
+     * Invalida solo las listas de contactos de un valor concreto de un campo.
+     *
+     * @param campo El campo afectado
+     * @param valor El valor afectado
+     */
+    public synchronized void invalidarContactos(String campo, String valor) {
+        if (valor == null)
+            return;
+        eliminar(new Clave(TipoConsulta.CONTACTOS, campo, valor));
+    }
+
+    /**
+     * Invalida el recorrido por niveles almacenado de un campo.
+     *
+     * @param campo El campo cuyo índice ha cambiado
+     */
+    public synchronized void invalidarRecorrido(String campo) {
+        eliminar(new Clave(TipoConsulta.RECORRIDO, campo, null));
+    }
+
+    /**
+     * Invalida todas las entradas de un campo (por ejemplo, al crear su índice).
+     *
+     * @param campo El campo afectado
+     */
+    public synchronized void invalidarCampo(String campo) {
+        Set<Clave> claves = clavesPorCampo.remove(campo);
+        if (claves == null)
+            return;
+        for (Clave clave : claves) {
+            Entrada entrada = entradas.remove(clave);
+            if (entrada != null) {
+                pesoActual -= entrada.peso;
+            }
+        }
+    }
+
+    /**
+     * Vacía la caché por completo (se usa tras importaciones masivas).
+     */
+    public synchronized void limpiar() {
+        entradas.clear();
+        clavesPorCampo.clear();
+        pesoActual = 0;
+    }
+
+    /**
+     * @return Número de entradas almacenadas
+     */
+    public int tamano() {
+        return entradas.size();
+    }
+
+    /**
+     * Devuelve un resumen del estado de la caché.
+     *
+     * @return Una cadena con entradas, peso, aciertos y fallos
+     */
+    @Override
+    public synchronized String toString() {
+        return "CacheConsultas{" +
+                "entradas=" + entradas.size() +
+                ", peso=" + pesoActual + "/" + pesoMaximo +
+                ", aciertos=" + aciertos.sum() +
+                ", fallos=" + fallos.sum() +
+                '}';
+    }
+
+    private void eliminar(Clave clave) {
+        Entrada entrada = entradas.remove(clave);
+        if (entrada != null) {
+            pesoActual -= entrada.peso;
+            quitarDeCampo(clave);
+        }
+    }
+
+    private void quitarDeCampo(Clave clave) {
+        Set<Clave> claves = clavesPorCampo.get(clave.campo);
+        if (claves != null) {
+            claves.remove(clave);
+            if (claves.isEmpty()) {
+                clavesPorCampo.remove(clave.campo);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Campos de un contacto, cada uno con su nombre y sus funciones de acceso.
+ *
+ * Los nombres de campo que llegan como texto (índices, consultas, órdenes) se
+ * resuelven una vez con resolver(); a partir de ahí los bucles que recorren
+ * muchos contactos llaman directamente al lector del campo, sin pasar el
+ * nombre a minúsculas ni comparar cadenas en cada contacto.
+ *
+ */
+public enum CampoContacto {
+    ID("id", Contacto::getId, null),
+    NOMBRE("nombre", Contacto::getNombre, Contacto::setNombre),
+    APELLIDO("apellido", Contacto::getApellido, Contacto::setApellido),
+    APODO("apodo", Contacto::getApodo, Contacto::setApodo),
+    TELEFONO("telefono", Contacto::getTelefono, Contacto::setTelefono),
+    EMAIL("email", Contacto::getEmail, Contacto::setEmail),
+    DIRECCION("direccion", Contacto::getDireccion, Contacto::setDireccion),
+    FECHA_NACIMIENTO("fechanacimiento", Contacto::getFechaNacimiento, null);
+
+    private static final Map<String, CampoContacto> POR_NOMBRE = new HashMap<>();
+
+    static {
+        for (CampoContacto campo : values()) {
+            POR_NOMBRE.put(campo.nombre, campo);
+        }
+    }
+
+    private final String nombre;
+    private final Function<Contacto, Object> lector;
+    private final BiConsumer<Contacto, String> escritor;
+
+    CampoContacto(String nombre, Function<Contacto, Object> lector, BiConsumer<Contacto, String> escritor) {
+        this.nombre = nombre;
+        this.lector = lector;
+        this.escritor = escritor;
+    }
+
+    /**
+     * Obtiene el campo con un nombre, sin distinguir mayúsculas.
+     *
+     * @param nombre El nombre del campo (id, nombre, apellido, etc.)
+     * @return El campo, o null si no existe
+     */
+    public static CampoContacto resolver(String nombre) {
+        if (nombre == null)
+            return null;
+        CampoContacto campo = POR_NOMBRE.get(nombre);
+        return campo != null ? campo : POR_NOMBRE.get(nombre.toLowerCase());
+    }
+
+    /**
+     * @return El nombre del campo en minúsculas, como se usa en el CSV, las
+     *         claves de la caché y el diccionario de cadenas
+     */
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @return true si el campo es de texto y se puede asignar con asignar()
+     */
+    public boolean esTexto() {
+        return escritor != null;
+    }
+
+    /**
+     * Obtiene el valor del campo en un contacto.
+     *
+     * @param contacto El contacto a leer
+     * @return El valor (Integer, String o LocalDate), o null si está vacío
+     */
+    public Object valor(Contacto contacto) {
+        return lector.apply(contacto);
+    }
+
+    /**
+     * Obtiene el valor del campo en el formato de texto de los índices.
+     *
+     * @param contacto El contacto a leer
+     * @return El valor en texto, o null si está vacío
+     */
+    public String texto(Contacto contacto) {
+        Object valor = lector.apply(contacto);
+        return valor != null ? valor.toString() : null;
+    }
+
+    /**
+     * Asigna el valor de un campo de texto.
+     *
+     * @param contacto El contacto a modificar
+     * @param valor    El valor nuevo
+     * @throws UnsupportedOperationException si el campo no es de texto
+     * @throws IllegalArgumentException      si el campo es el email y el valor
+     *                                       no es válido
+     */
+    public void asignar(Contacto contacto, String valor) {
+        if (escritor == null)
+            throw new UnsupportedOperationException("El campo " + nombre + " no es de texto");
+        escritor.accept(contacto, valor);
+    }
+}
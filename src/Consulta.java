@@ -0,0 +1,204 @@
+import java.util.*;
+
+/**
+ * Representa una consulta sobre los contactos formada por predicados de
+ * igualdad, rango y prefijo combinados con Y / O.
+ *
+ * Los valores se comparan como texto, en el mismo formato en que se guardan
+ * en los índices (las fechas en formato yyyy-MM-dd). Los rangos sobre el
+ * campo id son, por tanto, lexicográficos.
+ *
+ */
+public class Consulta {
+    /**
+     * Tipos de nodo de una consulta.
+     */
+    public enum Tipo {
+        IGUAL, RANGO, PREFIJO, Y, O
+    }
+
+    private final Tipo tipo;
+    private final String campo;
+    private final CampoContacto descriptor;
+    private final String desde;
+    private final String hasta;
+    private final List<Consulta> hijos;
+
+    private Consulta(Tipo tipo, String campo, String desde, String hasta, List<Consulta> hijos) {
+        this.tipo = tipo;
+        this.campo = campo;
+        this.descriptor = CampoContacto.resolver(campo);
+        this.desde = desde;
+        this.hasta = hasta;
+        this.hijos = hijos;
+    }
+
+    /**
+     * Crea un predicado de igualdad.
+     *
+     * @param campo El campo a comparar
+     * @param valor El valor que debe tener el campo
+     * @return La consulta creada
+     */
+    public static Consulta igual(String campo, String valor) {
+        return new Consulta(Tipo.IGUAL, campo, valor, valor, Collections.emptyList());
+    }
+
+    /**
+     * Crea un predicado de rango con límites inclusivos.
+     *
+     * @param campo El campo a comparar
+     * @param desde Límite inferior (null para no limitar)
+     * @param hasta Límite superior (null para no limitar)
+     * @return La consulta creada
+     */
+    public static Consulta rango(String campo, String desde, String hasta) {
+        return new Consulta(Tipo.RANGO, campo, desde, hasta, Collections.emptyList());
+    }
+
+    /**
+     * Crea un predicado de prefijo.
+     *
+     * @param campo   El campo a comparar
+     * @param prefijo El prefijo con el que debe empezar el valor
+     * @return La consulta creada
+     */
+    public static Consulta prefijo(String campo, String prefijo) {
+        // Todas las cadenas que empiezan por el prefijo quedan entre el prefijo y el
+        // prefijo seguido del mayor carácter posible
+        return new Consulta(Tipo.PREFIJO, campo, prefijo, prefijo + Character.MAX_VALUE,
+                Collections.emptyList());
+    }
+
+    /**
+     * Combina varias consultas con Y.
+     *
+     * @param consultas Las consultas que deben cumplirse todas
+     * @return La consulta creada
+     */
+    public static Consulta y(Consulta... consultas) {
+        return new Consulta(Tipo.Y, null, null, null, List.of(consultas));
+    }
+
+    /**
+     * Combina varias consultas con O.
+     *
+     * @param consultas Las consultas de las que debe cumplirse alguna
+     * @return La consulta creada
+     */
+    public static Consulta o(Consulta... consultas) {
+        return new Consulta(Tipo.O, null, null, null, List.of(consultas));
+    }
+
+    /**
+     * @return El tipo de nodo de la consulta
+     */
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * @return El campo del predicado, o null si es una combinación Y / O
+     */
+    public String getCampo() {
+        return campo;
+    }
+
+    /**
+     * @return El límite inferior del predicado (el valor en las igualdades)
+     */
+    public String getDesde() {
+        return desde;
+    }
+
+    /**
+     * @return El límite superior del predicado (el valor en las igualdades)
+     */
+    public String getHasta() {
+        return hasta;
+    }
+
+    /**
+     * @return Las subconsultas de una combinación Y / O
+     */
+    public List<Consulta> getHijos() {
+        return hijos;
+    }
+
+    /**
+     * @return true si la consulta es un predicado simple sobre un campo
+     */
+    public boolean esPredicado() {
+        return tipo != Tipo.Y && tipo != Tipo.O;
+    }
+
+    /**
+     * Evalúa la consulta directamente sobre un contacto.
+     *
+     * @param contacto El contacto a evaluar
+     * @return true si el contacto cumple la consulta
+     */
+    public boolean cumple(Contacto contacto) {
+        switch (tipo) {
+            case Y:
+                for (Consulta hijo : hijos) {
+                    if (!hijo.cumple(contacto))
+                        return false;
+                }
+                return true;
+            case O:
+                for (Consulta hijo : hijos) {
+                    if (hijo.cumple(contacto))
+                        return true;
+                }
+                return false;
+            default:
+                String valor = descriptor != null ? descriptor.texto(contacto) : null;
+                return valor != null && cumpleValor(valor);
+        }
+    }
+
+    /**
+     * Evalúa un predicado simple sobre el valor en texto de un campo.
+     *
+     * @param valor El valor del campo
+     * @return true si el valor cumple el predicado
+     */
+    public boolean cumpleValor(String valor) {
+        switch (tipo) {
+            case IGUAL:
+                return valor.equals(desde);
+            case PREFIJO:
+                return valor.startsWith(desde);
+            case RANGO:
+                return (desde == null || valor.compareTo(desde) >= 0)
+                        && (hasta == null || valor.compareTo(hasta) <= 0);
+            default:
+                throw new IllegalStateException("Una combinación no es un predicado simple: " + tipo);
+        }
+    }
+
+    /**
+     * Devuelve la consulta en forma legible.
+     *
+     * @return Una cadena con la consulta
+     */
+    @Override
+    public String toString() {
+        switch (tipo) {
+            case IGUAL:
+                return campo + " = '" + desde + "'";
+            case PREFIJO:
+                return campo + " empieza por '" + desde + "'";
+            case RANGO:
+                return campo + " entre " + (desde != null ? "'" + desde + "'" : "-inf") + " y "
+                        + (hasta != null ? "'" + hasta + "'" : "+inf");
+            default:
+                StringJoiner sj = new StringJoiner(tipo == Tipo.Y ? " Y " : " O ", "(", ")");
+                for (Consulta hijo : hijos) {
+                    sj.add(hijo.toString());
+                }
+                return sj.toString();
+        }
+    }
+}
@@ -1,8 +1,9 @@
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.Comparator;
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 /**
  * Clase que representa un contacto en la agenda.
@@ -22,6 +23,13 @@ public class Contacto {
     private LocalDate fechaNacimiento;
 
     private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Pattern PATRON_EMAIL = Pattern.compile("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,6}$");
+    private static final int CAMPOS_CSV = 8;
+
+    /**
+     * Cabecera de los archivos CSV de contactos, en el orden de toCSV.
+     */
+    public static final String CABECERA_CSV = "id,nombre,apellido,apodo,telefono,email,direccion,fechaNacimiento";
 
     /**
      * Constructor para crear un nuevo contacto.
@@ -48,6 +56,17 @@ public class Contacto {
         this.fechaNacimiento = fechaNacimiento;
     }
 
+    /**
+     * Crea una copia del contacto con los mismos datos. Los cambios sobre un
+     * contacto guardado se hacen en una copia para que las instantáneas que
+     * comparten el original no los vean.
+     *
+     * @return Un contacto nuevo e independiente con los mismos valores
+     */
+    public Contacto copia() {
+        return new Contacto(id, nombre, apellido, apodo, telefono, email, direccion, fechaNacimiento);
+    }
+
     // Getters y Setters
     /**
      * @return El ID del contacto
@@ -175,7 +194,8 @@ public class Contacto {
      * @return true si el formato es válido, false en caso contrario
      */
     public static boolean validarEmail(String email) {
-        return email.matches("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,6}$");
+        // El patrón se compila una sola vez: String.matches lo compilaría en cada llamada
+        return email != null && PATRON_EMAIL.matcher(email).matches();
     }
 
     /**
@@ -213,6 +233,50 @@ public class Contacto {
                 (fechaNacimiento != null ? fechaNacimiento.format(FORMATO_FECHA) : "");
     }
 
+    /**
+     * Calcula una huella de 64 bits del contenido del contacto (todos los
+     * campos salvo el ID) con FNV-1a, sin construir su línea CSV. Dos
+     * contactos con los mismos datos tienen la misma huella, así que sirve
+     * para saber si una fila reimportada cambió respecto al contacto guardado.
+     *
+     * @return La huella del contenido
+     */
+    public long huella() {
+        long h = 0xcbf29ce484222325L;
+        h = huella(h, nombre);
+        h = huella(h, apellido);
+        h = huella(h, apodo);
+        h = huella(h, telefono);
+        h = huella(h, email);
+        h = huella(h, direccion);
+        return huella(h, fechaNacimiento != null ? fechaNacimiento.toEpochDay() : Long.MIN_VALUE);
+    }
+
+    /**
+     * Añade un campo de texto a la huella. Un campo nulo y uno vacío dan la
+     * misma huella, igual que en toCSV.
+     */
+    private static long huella(long h, String valor) {
+        if (valor != null) {
+            for (int i = 0; i < valor.length(); i++) {
+                h = (h ^ valor.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        // Separador, para que "ab","c" y "a","bc" no coincidan
+        return (h ^ 0xffff) * 0x100000001b3L;
+    }
+
+    /**
+     * Añade un número a la huella, byte a byte.
+     */
+    private static long huella(long h, long valor) {
+        for (int i = 0; i < 8; i++) {
+            h = (h ^ (valor & 0xff)) * 0x100000001b3L;
+            valor >>>= 8;
+        }
+        return h;
+    }
+
     /**
      * Crea un objeto Contacto a partir de una línea en formato CSV.
      *
@@ -220,49 +284,191 @@ public class Contacto {
      * @return Un nuevo objeto Contacto, o null si la línea es inválida
      */
     public static Contacto fromCSV(String linea) {
-        try {
-            String[] partes = linea.split(",(?=([^\"]*\"[^\"]*\")*[^\"]*$)");
-            if (partes.length < 8) {
-                throw new IllegalArgumentException("Línea CSV incompleta: " + linea);
+        return fromCSV(linea, null);
+    }
+
+    /**
+     * Crea un objeto Contacto a partir de una línea en formato CSV, compartiendo
+     * los valores de texto repetidos a través de un diccionario de cadenas.
+     *
+     * @param linea       La línea en formato CSV con los datos del contacto
+     * @param diccionario Diccionario donde internar los valores (puede ser null)
+     * @return Un nuevo objeto Contacto, o null si la línea es inválida
+     */
+    public static Contacto fromCSV(String linea, DiccionarioCadenas diccionario) {
+        ResultadoImportacion resultado = new ResultadoImportacion(null);
+        Contacto contacto = desdeCSV(linea, diccionario, 0, resultado);
+        if (contacto == null) {
+            System.out.println("Línea inválida al importar: " + resultado.getRechazos().get(0).getMotivo());
+        }
+        return contacto;
+    }
+
+    /**
+     * Crea un objeto Contacto a partir de una línea en formato CSV sin lanzar
+     * excepciones: si la línea no es válida, el motivo se anota en el
+     * resultado de la importación con su número de línea y se devuelve null.
+     *
+     * Los campos se separan a mano por las comas que no están entre comillas,
+     * conservando los campos vacíos del final, y el ID y la fecha se leen
+     * dígito a dígito, de modo que una fila errónea cuesta lo mismo que una
+     * correcta.
+     *
+     * @param linea       La línea en formato CSV con los datos del contacto
+     * @param diccionario Diccionario donde internar los valores (puede ser null)
+     * @param numeroLinea Número de la línea en el archivo, para el informe
+     * @param resultado   Resultado de la importación donde anotar la fila si
+     *                    se rechaza
+     * @return Un nuevo objeto Contacto, o null si la línea es inválida
+     */
+    public static Contacto desdeCSV(String linea, DiccionarioCadenas diccionario, long numeroLinea,
+                                    ResultadoImportacion resultado) {
+        String[] partes = separarCSV(linea);
+        if (partes == null) {
+            resultado.rechazar(numeroLinea, linea, "Línea CSV incompleta");
+            return null;
+        }
+
+        int id = leerId(partes[0].trim());
+        if (id < 0) {
+            resultado.rechazar(numeroLinea, linea, "ID inválido: " + partes[0].trim());
+            return null;
+        }
+        String nombre = partes[1].trim();
+        String apellido = partes[2].trim();
+        String apodo = partes[3].trim().isEmpty() ? null : partes[3].trim();
+        String telefono = partes[4].trim();
+        String email = partes[5].trim();
+        String direccion = partes[6].trim().isEmpty() ? null : partes[6].trim();
+
+        if (!validarEmail(email)) {
+            resultado.rechazar(numeroLinea, linea, "Formato de email inválido: " + email);
+            return null;
+        }
+
+        LocalDate fechaNacimiento = null;
+        String fechaStr = partes[7].trim();
+        if (!fechaStr.isEmpty()) {
+            fechaNacimiento = leerFecha(fechaStr);
+            if (fechaNacimiento == null) {
+                resultado.rechazar(numeroLinea, linea, "Formato de fecha inválido: " + fechaStr);
+                return null;
             }
+        }
+
+        if (diccionario != null) {
+            nombre = diccionario.internar("nombre", nombre);
+            apellido = diccionario.internar("apellido", apellido);
+            apodo = diccionario.internar("apodo", apodo);
+            telefono = diccionario.internar("telefono", telefono);
+            email = diccionario.internar("email", email);
+            direccion = diccionario.internar("direccion", direccion);
+        }
 
-            int id = Integer.parseInt(partes[0].trim());
-            String nombre = partes[1].trim();
-            String apellido = partes[2].trim();
-            String apodo = partes[3].trim().isEmpty() ? null : partes[3].trim();
-            String telefono = partes[4].trim();
-            String email = partes[5].trim();
-            String direccion = partes[6].trim().isEmpty() ? null : partes[6].trim();
-
-            LocalDate fechaNacimiento = null;
-            String fechaStr = partes[7].trim();
-            if (!fechaStr.isEmpty()) {
-                // Intentar formatear la fecha según el formato esperado (yyyy-MM-dd)
-                try {
-                    fechaNacimiento = LocalDate.parse(fechaStr, FORMATO_FECHA);
-                } catch (DateTimeParseException e) {
-                    // Intentar formatear la fecha si está en formato YYYYMMDD
-                    if (fechaStr.length() == 8 && fechaStr.matches("\\d{8}")) {
-                        int year = Integer.parseInt(fechaStr.substring(0, 4));
-                        int month = Integer.parseInt(fechaStr.substring(4, 6));
-                        int day = Integer.parseInt(fechaStr.substring(6, 8));
-                        fechaNacimiento = LocalDate.of(year, month, day);
-                    } else {
-                        throw e; // Relanzar la excepción si no se puede parsear
-                    }
-                }
+        return new Contacto(id, nombre, apellido, apodo, telefono, email, direccion, fechaNacimiento);
+    }
+
+    /**
+     * Lee solo el ID de una línea CSV, aunque el resto de la línea no sea
+     * válido.
+     *
+     * @param linea La línea en formato CSV
+     * @return El ID, o -1 si el primer campo no es un ID válido
+     */
+    public static int idDeCSV(String linea) {
+        int coma = linea.indexOf(',');
+        return leerId((coma >= 0 ? linea.substring(0, coma) : linea).trim());
+    }
+
+    /**
+     * Separa los campos de una línea CSV por las comas que no están entre
+     * comillas. Las comillas se conservan en el valor y los campos de más se
+     * ignoran.
+     *
+     * @return Los campos de la línea, o null si tiene menos de los esperados
+     */
+    private static String[] separarCSV(String linea) {
+        String[] partes = new String[CAMPOS_CSV];
+        int campo = 0;
+        int inicio = 0;
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length() && campo < CAMPOS_CSV; i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                entreComillas = !entreComillas;
+            } else if (c == ',' && !entreComillas) {
+                partes[campo++] = linea.substring(inicio, i);
+                inicio = i + 1;
             }
+        }
+        if (campo < CAMPOS_CSV - 1)
+            return null;
+        if (campo == CAMPOS_CSV - 1) {
+            partes[campo] = linea.substring(inicio);
+        }
+        return partes;
+    }
 
-            return new Contacto(id, nombre, apellido, apodo, telefono, email, direccion,
-                    fechaNacimiento);
+    /**
+     * Lee un ID formado solo por dígitos.
+     *
+     * @return El ID, o -1 si el texto no es un número válido
+     */
+    private static int leerId(String texto) {
+        if (texto.isEmpty() || texto.length() > 10)
+            return -1;
+        long valor = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            valor = valor * 10 + (c - '0');
+        }
+        return valor <= Integer.MAX_VALUE ? (int) valor : -1;
+    }
 
-        } catch (DateTimeParseException e) {
-            System.out.println("Error de formato de fecha al importar: " + e.getMessage());
+    /**
+     * Lee una fecha en formato yyyy-MM-dd o yyyyMMdd. Como LocalDate.parse
+     * con FORMATO_FECHA, un día entre 29 y 31 que no existe en el mes se
+     * ajusta al último día del mes en el formato con guiones.
+     *
+     * @return La fecha, o null si el texto no tiene un formato válido
+     */
+    private static LocalDate leerFecha(String texto) {
+        boolean conGuiones = texto.length() == 10 && texto.charAt(4) == '-' && texto.charAt(7) == '-';
+        if (!conGuiones && texto.length() != 8)
             return null;
-        } catch (IllegalArgumentException e) {
-            System.out.println("Argumento ilegal al importar: " + e.getMessage());
+
+        int desplazamiento = conGuiones ? 1 : 0;
+        int year = leerDigitos(texto, 0, 4);
+        int month = leerDigitos(texto, 4 + desplazamiento, 2);
+        int day = leerDigitos(texto, 6 + 2 * desplazamiento, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31)
             return null;
+
+        int diasDelMes = YearMonth.of(year, month).lengthOfMonth();
+        if (day > diasDelMes) {
+            if (!conGuiones)
+                return null;
+            day = diasDelMes;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Lee un número de dígitos fijos de un texto.
+     *
+     * @return El número, o -1 si alguno de los caracteres no es un dígito
+     */
+    private static int leerDigitos(String texto, int desde, int cantidad) {
+        int valor = 0;
+        for (int i = desde; i < desde + cantidad; i++) {
+            char c = texto.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            valor = valor * 10 + (c - '0');
         }
+        return valor;
     }
 
     /**
@@ -300,22 +506,14 @@ public class Contacto {
 
     /**
      * Obtiene el valor de un campo específico del contacto utilizando el nombre del
-     * campo.
+     * campo. Para leer el mismo campo de muchos contactos es preferible
+     * resolver antes el campo con CampoContacto.resolver y usar su valor().
      *
      * @param campo El nombre del campo a obtener (id, nombre, apellido, etc.)
      * @return El valor del campo solicitado, o null si el campo no existe
      */
     public Object getCampo(String campo) {
-        return switch (campo.toLowerCase()) {
-            case "id" -> id;
-            case "nombre" -> nombre;
-            case "apellido" -> apellido;
-            case "apodo" -> apodo;
-            case "telefono" -> telefono;
-            case "email" -> email;
-            case "direccion" -> direccion;
-            case "fechanacimiento" -> fechaNacimiento;
-            default -> null;
-        };
+        CampoContacto descriptor = CampoContacto.resolver(campo);
+        return descriptor != null ? descriptor.valor(this) : null;
     }
 }
\ No newline at end of file
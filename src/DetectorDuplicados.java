@@ -0,0 +1,149 @@
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Detecta contactos repetidos por email o por teléfono normalizados.
+ *
+ * Guarda dos tablas hash, de email normalizado a ID y de teléfono normalizado
+ * a ID, de modo que comprobar una fila cuesta O(1) y una importación completa
+ * O(n), sin comparar cada fila con todos los contactos.
+ *
+ * El email se normaliza sin espacios alrededor y en minúsculas; el teléfono,
+ * quedándose solo con sus dígitos. Los teléfonos con menos de
+ * MIN_DIGITOS_TELEFONO dígitos no se usan para detectar duplicados, para que
+ * valores de relleno como "0" o "555" no unan contactos distintos.
+ *
+ */
+public class DetectorDuplicados {
+    /**
+     * Qué hacer al importar una fila que coincide con un contacto existente.
+     */
+    public enum Modo {
+        /** Agregar la fila aunque esté repetida, como antes de detectar duplicados */
+        PERMITIR,
+        /** Descartar la fila repetida */
+        OMITIR,
+        /** Completar el contacto existente con los campos no vacíos de la fila */
+        FUSIONAR,
+        /** Descartar la fila y anotarla en el resultado como conflicto */
+        REPORTAR
+    }
+
+    /**
+     * Dígitos mínimos que debe tener un teléfono para considerarlo
+     * identificativo.
+     */
+    public static final int MIN_DIGITOS_TELEFONO = 6;
+
+    /**
+     * Contacto existente con el que coincide otro.
+     */
+    public static class Coincidencia {
+        private final int id;
+        private final String campo;
+
+        Coincidencia(int id, String campo) {
+            this.id = id;
+            this.campo = campo;
+        }
+
+        /**
+         * @return El ID del contacto existente
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * @return El campo que coincide ("email" o "telefono")
+         */
+        public String getCampo() {
+            return campo;
+        }
+    }
+
+    private final Map<String, Integer> idPorEmail = new HashMap<>();
+    private final Map<String, Integer> idPorTelefono = new HashMap<>();
+
+    /**
+     * Constructor de la clase DetectorDuplicados a partir de los contactos
+     * existentes.
+     *
+     * @param contactos Contactos con los que comparar
+     */
+    public DetectorDuplicados(Iterable<Contacto> contactos) {
+        for (Contacto contacto : contactos) {
+            registrar(contacto);
+        }
+    }
+
+    /**
+     * Busca un contacto registrado con el mismo email o, si no lo hay, con el
+     * mismo teléfono.
+     *
+     * @param contacto El contacto a comprobar
+     * @return La coincidencia, o null si el contacto no está repetido
+     */
+    public Coincidencia buscar(Contacto contacto) {
+        String email = normalizarEmail(contacto.getEmail());
+        Integer id = email != null ? idPorEmail.get(email) : null;
+        if (id != null)
+            return new Coincidencia(id, "email");
+
+        String telefono = normalizarTelefono(contacto.getTelefono());
+        id = telefono != null ? idPorTelefono.get(telefono) : null;
+        return id != null ? new Coincidencia(id, "telefono") : null;
+    }
+
+    /**
+     * Registra el email y el teléfono de un contacto. Si ya había otro contacto
+     * con ellos, se conserva el primero.
+     *
+     * @param contacto El contacto a registrar
+     */
+    public void registrar(Contacto contacto) {
+        String email = normalizarEmail(contacto.getEmail());
+        if (email != null) {
+            idPorEmail.putIfAbsent(email, contacto.getId());
+        }
+        String telefono = normalizarTelefono(contacto.getTelefono());
+        if (telefono != null) {
+            idPorTelefono.putIfAbsent(telefono, contacto.getId());
+        }
+    }
+
+    /**
+     * Normaliza un email para compararlo.
+     *
+     * @param email El email
+     * @return El email sin espacios alrededor y en minúsculas, o null si está
+     *         vacío
+     */
+    public static String normalizarEmail(String email) {
+        if (email == null)
+            return null;
+        String normalizado = email.trim().toLowerCase(Locale.ROOT);
+        return normalizado.isEmpty() ? null : normalizado;
+    }
+
+    /**
+     * Normaliza un teléfono para compararlo.
+     *
+     * @param telefono El teléfono
+     * @return Solo los dígitos del teléfono, o null si tiene menos de
+     *         MIN_DIGITOS_TELEFONO
+     */
+    public static String normalizarTelefono(String telefono) {
+        if (telefono == null)
+            return null;
+        StringBuilder digitos = new StringBuilder(telefono.length());
+        for (int i = 0; i < telefono.length(); i++) {
+            char c = telefono.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digitos.append(c);
+            }
+        }
+        return digitos.length() >= MIN_DIGITOS_TELEFONO ? digitos.toString() : null;
+    }
+}
@@ -0,0 +1,257 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario de cadenas por campo para compartir valores repetidos.
+ *
+ * Muchos contactos comparten el mismo apellido, dirección o fecha; en lugar
+ * de guardar una copia de cada cadena por contacto y por nodo de índice, el
+ * diccionario devuelve siempre la misma instancia para valores iguales y
+ * asigna a cada valor distinto un código entero por campo.
+ *
+ * Cada valor lleva la cuenta de los contactos que lo usan: el almacén de
+ * contactos lo retiene al guardar un contacto y lo libera al eliminarlo o al
+ * sustituir el valor. Cuando un valor deja de usarse se retira del
+ * diccionario y su código queda libre para otro valor, de modo que el
+ * diccionario no crece con los valores borrados o actualizados.
+ *
+ * Es seguro para varios hilos: las búsquedas de valores ya registrados no
+ * toman bloqueos y retener o liberar valores se serializa por campo.
+ *
+ */
+public class DiccionarioCadenas {
+    /**
+     * Valores y cuentas de referencias de un campo concreto.
+     */
+    private static final class Campo {
+        final Map<String, Integer> codigos = new ConcurrentHashMap<>();
+        // Se sustituye entero al crecer o, si una instantánea lo comparte, al
+        // reescribir un código ya publicado
+        volatile String[] valores = new String[16];
+        volatile int cantidad;
+        int[] referencias = new int[16];
+        final Deque<Integer> libres = new ArrayDeque<>();
+        boolean compartido;
+        long referenciasVivas;
+        long bytesAhorrados;
+    }
+
+    private final Map<String, Campo> campos;
+    // Coste aproximado de una entrada del HashMap más la referencia en la lista
+    private static final int BYTES_ENTRADA = 48;
+
+    /**
+     * Constructor de la clase DiccionarioCadenas.
+     */
+    public DiccionarioCadenas() {
+        campos = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Devuelve la instancia compartida de un valor para el campo indicado, si
+     * algún contacto lo usa. No retiene el valor: si no estaba en el
+     * diccionario se devuelve tal cual, y pasa a compartirse cuando el
+     * almacén lo retenga.
+     *
+     * @param campo El nombre del campo al que pertenece el valor
+     * @param valor El valor a internar (puede ser null)
+     * @return La instancia canónica del valor, el propio valor si todavía no
+     *         está registrado, o null si el valor es null
+     */
+    public String internar(String campo, String valor) {
+        if (valor == null)
+            return null;
+        Campo datos = campos.get(campo);
+        Integer codigo = datos != null ? datos.codigos.get(valor) : null;
+        if (codigo == null)
+            return valor;
+        // El código pudo liberarse y reutilizarse entre las dos lecturas
+        String canonico = datos.valores[codigo];
+        return valor.equals(canonico) ? canonico : valor;
+    }
+
+    /**
+     * Retiene un valor para un contacto que lo va a guardar, registrándolo si
+     * todavía no existe.
+     *
+     * @param campo El nombre del campo al que pertenece el valor
+     * @param valor El valor a retener (no puede ser null)
+     * @return El código del valor dentro del campo; valor(campo, codigo)
+     *         devuelve su instancia canónica
+     */
+    public int retener(String campo, String valor) {
+        Campo datos = campos.computeIfAbsent(campo, c -> new Campo());
+        synchronized (datos) {
+            Integer existente = datos.codigos.get(valor);
+            int codigo = existente != null ? existente : registrar(datos, valor);
+            if (datos.referencias[codigo]++ > 0) {
+                datos.bytesAhorrados += tamanoCadena(valor);
+            }
+            datos.referenciasVivas++;
+            return codigo;
+        }
+    }
+
+    /**
+     * Libera una referencia a un valor. Si era la última, el valor se retira
+     * del diccionario y su código queda libre.
+     *
+     * @param campo  El nombre del campo al que pertenece el valor
+     * @param codigo El código del valor, obtenido con retener()
+     */
+    public void liberar(String campo, int codigo) {
+        Campo datos = campos.get(campo);
+        if (datos == null)
+            return;
+        synchronized (datos) {
+            if (codigo < 0 || codigo >= datos.cantidad || datos.referencias[codigo] == 0)
+                return;
+            String valor = datos.valores[codigo];
+            datos.referenciasVivas--;
+            if (--datos.referencias[codigo] > 0) {
+                datos.bytesAhorrados -= tamanoCadena(valor);
+                return;
+            }
+            datos.codigos.remove(valor);
+            escribir(datos, codigo, null);
+            datos.libres.push(codigo);
+        }
+    }
+
+    /**
+     * Libera una referencia a un valor a partir de su texto.
+     *
+     * @param campo El nombre del campo al que pertenece el valor
+     * @param valor El valor a liberar (si es null o no está registrado no se
+     *              hace nada)
+     */
+    public void liberar(String campo, String valor) {
+        Campo datos = valor != null ? campos.get(campo) : null;
+        Integer codigo = datos != null ? datos.codigos.get(valor) : null;
+        if (codigo != null) {
+            liberar(campo, codigo);
+        }
+    }
+
+    /**
+     * Obtiene el valor asociado a un código de un campo.
+     *
+     * @param campo  El nombre del campo
+     * @param codigo El código del valor
+     * @return El valor correspondiente al código
+     * @throws IllegalArgumentException si el campo no tiene ese código
+     */
+    public String valor(String campo, int codigo) {
+        Campo datos = campos.get(campo);
+        String valor = datos != null && codigo >= 0 && codigo < datos.cantidad ? datos.valores[codigo] : null;
+        if (valor == null) {
+            throw new IllegalArgumentException("Código " + codigo + " inexistente para el campo " + campo);
+        }
+        return valor;
+    }
+
+    /**
+     * Congela la tabla de códigos de un campo para decodificar una
+     * instantánea. Los códigos que había al congelarla conservan su valor
+     * aunque después se liberen o se reutilicen.
+     *
+     * @param campo El nombre del campo
+     * @return Los valores por código del campo, de solo lectura
+     */
+    public String[] valores(String campo) {
+        Campo datos = campos.computeIfAbsent(campo, c -> new Campo());
+        synchronized (datos) {
+            datos.compartido = true;
+            return datos.valores;
+        }
+    }
+
+    /**
+     * Genera un informe del uso de memoria del diccionario por campo con los
+     * valores que usan ahora los contactos: valores distintos, referencias,
+     * referencias que comparten una instancia y bytes aproximados que se
+     * dejan de reservar.
+     *
+     * @return El informe en formato de texto
+     */
+    public String reporteMemoria() {
+        StringBuilder sb = new StringBuilder("Reporte de memoria del diccionario de cadenas:\n");
+        long totalAhorrado = 0;
+        long totalDiccionario = 0;
+
+        for (Map.Entry<String, Campo> entrada : new TreeMap<>(campos).entrySet()) {
+            Campo datos = entrada.getValue();
+            int distintos;
+            long referencias;
+            long ahorro;
+            long bytesDiccionario;
+            synchronized (datos) {
+                distintos = datos.codigos.size();
+                referencias = datos.referenciasVivas;
+                ahorro = datos.bytesAhorrados;
+                // Las instancias canónicas existirían igualmente; solo cuenta la estructura
+                bytesDiccionario = (long) distintos * BYTES_ENTRADA + (long) datos.valores.length * 8;
+            }
+            totalAhorrado += ahorro;
+            totalDiccionario += bytesDiccionario;
+
+            sb.append(String.format("  %-16s distintos=%d referencias=%d compartidos=%d ahorro=%d bytes%n",
+                    entrada.getKey(), distintos, referencias, referencias - distintos, ahorro));
+        }
+
+        sb.append(String.format("  Total: ahorro=%d bytes, coste del diccionario=%d bytes, neto=%d bytes",
+                totalAhorrado, totalDiccionario, totalAhorrado - totalDiccionario));
+        return sb.toString();
+    }
+
+    /**
+     * Registra un valor nuevo en un campo, reutilizando un código libre si lo
+     * hay. Se llama con el monitor del campo tomado.
+     */
+    private int registrar(Campo datos, String valor) {
+        int codigo;
+        if (!datos.libres.isEmpty()) {
+            codigo = datos.libres.pop();
+            escribir(datos, codigo, valor);
+        } else {
+            codigo = datos.cantidad;
+            if (codigo == datos.valores.length) {
+                datos.valores = Arrays.copyOf(datos.valores, codigo * 2);
+                datos.referencias = Arrays.copyOf(datos.referencias, codigo * 2);
+                datos.compartido = false;
+            }
+            // Un código nuevo no aparece en ninguna instantánea: se escribe en el sitio
+            datos.valores[codigo] = valor;
+            datos.cantidad = codigo + 1;
+        }
+        datos.codigos.put(valor, codigo);
+        return codigo;
+    }
+
+    /**
+     * Escribe un código ya publicado, copiando antes la tabla si una
+     * instantánea la comparte. Se llama con el monitor del campo tomado.
+     */
+    private static void escribir(Campo datos, int codigo, String valor) {
+        String[] valores = datos.valores;
+        if (datos.compartido) {
+            valores = valores.clone();
+            datos.compartido = false;
+        }
+        valores[codigo] = valor;
+        datos.valores = valores;
+    }
+
+    /**
+     * Estima los bytes que ocupa una cadena en el heap (objeto String más su
+     * arreglo de bytes, con cadenas compactas y alineación a 8 bytes).
+     *
+     * @param valor La cadena a medir
+     * @return El tamaño aproximado en bytes
+     */
+    private static long tamanoCadena(String valor) {
+        int bytesPorCaracter = valor.chars().allMatch(c -> c < 256) ? 1 : 2;
+        long arreglo = 16 + (long) valor.length() * bytesPorCaracter;
+        return 24 + ((arreglo + 7) / 8) * 8;
+    }
+}
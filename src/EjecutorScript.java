@@ -0,0 +1,200 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta sin interacción un guion de órdenes sobre un ServicioContactos y
+ * mide la latencia de cada tipo de orden.
+ *
+ * Cada línea del guion es una orden con sus argumentos separados por '|'.
+ * Las líneas vacías y las que empiezan por '#' se ignoran, y un argumento
+ * vacío equivale a null. Órdenes admitidas:
+ * <ul>
+ * <li>agregar|nombre|apellido|apodo|telefono|email|direccion|yyyy-MM-dd</li>
+ * <li>actualizar|id|nombre|apellido|apodo|telefono|email|direccion|yyyy-MM-dd</li>
+ * <li>eliminar|id</li>
+ * <li>id|id: obtiene un contacto por su ID</li>
+ * <li>buscar|campo|valor: comprueba si el valor está en el índice</li>
+ * <li>contactos|campo|valor: contactos con ese valor</li>
+ * <li>prefijo|campo|prefijo y rango|campo|desde|hasta: consultas</li>
+ * <li>indice|campo|BST o AVL</li>
+ * <li>recorrido|campo: recorrido por niveles de un índice</li>
+ * <li>reporte: informe de memoria de cadenas</li>
+ * <li>sincronizar: espera a que los cambios anteriores estén en disco</li>
+ * </ul>
+ *
+ * Las altas, actualizaciones y bajas no esperan a la escritura en disco, de
+ * modo que el guion avanza a la velocidad de la memoria; al terminar se
+ * espera a que todos los cambios estén guardados y ese tiempo cuenta en el
+ * total.
+ *
+ */
+public class EjecutorScript {
+    private static final String SEPARADOR = "\\|";
+
+    private final ServicioContactos gestor;
+    private final Map<String, RegistroLatencias> latencias = new TreeMap<>();
+    private final AtomicInteger errores = new AtomicInteger();
+
+    /**
+     * Constructor de la clase EjecutorScript.
+     *
+     * @param gestor Gestor de contactos sobre el que se ejecutan las órdenes
+     */
+    public EjecutorScript(ServicioContactos gestor) {
+        this.gestor = gestor;
+    }
+
+    /**
+     * Ejecuta el guion de un archivo, o de la entrada estándar si la ruta es
+     * "-", y muestra el informe de rendimiento al terminar.
+     *
+     * @param ruta Ruta del guion o "-"
+     */
+    public void ejecutar(String ruta) {
+        try (BufferedReader lector = ruta.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(ruta), StandardCharsets.UTF_8)) {
+            ejecutar(lector);
+        } catch (IOException e) {
+            System.out.println("Error al leer el guion: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ejecuta todas las órdenes del lector y muestra el informe de
+     * rendimiento al terminar.
+     *
+     * @param lector Lector con una orden por línea
+     * @throws IOException Si falla la lectura
+     */
+    public void ejecutar(BufferedReader lector) throws IOException {
+        long inicio = System.nanoTime();
+        String linea;
+        int numeroLinea = 0;
+        while ((linea = lector.readLine()) != null) {
+            numeroLinea++;
+            if (linea.isBlank() || linea.startsWith("#"))
+                continue;
+
+            String[] partes = linea.split(SEPARADOR, -1);
+            String orden = partes[0].trim().toLowerCase();
+            long antes = System.nanoTime();
+            try {
+                ejecutarOrden(orden, partes);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                errores.incrementAndGet();
+                System.out.println("Línea " + numeroLinea + ": orden inválida '" + linea + "' (" + e.getMessage() + ")");
+                continue;
+            }
+            latencias.computeIfAbsent(orden, o -> new RegistroLatencias()).registrar(System.nanoTime() - antes);
+        }
+
+        // Las escrituras pendientes forman parte del tiempo total del guion
+        long antes = System.nanoTime();
+        try {
+            gestor.sincronizar().join();
+        } catch (RuntimeException e) {
+            errores.incrementAndGet();
+        }
+        latencias.computeIfAbsent("(fin)", o -> new RegistroLatencias()).registrar(System.nanoTime() - antes);
+        mostrarInforme(System.nanoTime() - inicio);
+    }
+
+    private void ejecutarOrden(String orden, String[] partes) {
+        switch (orden) {
+            case "agregar":
+                contarFallo(gestor.agregarContacto(texto(partes, 1), texto(partes, 2), texto(partes, 3),
+                        texto(partes, 4), texto(partes, 5), texto(partes, 6), fecha(partes, 7)));
+                break;
+            case "actualizar":
+                contarFallo(gestor.actualizarContacto(entero(partes, 1), texto(partes, 2), texto(partes, 3),
+                        texto(partes, 4), texto(partes, 5), texto(partes, 6), texto(partes, 7), fecha(partes, 8)));
+                break;
+            case "eliminar":
+                contarFallo(gestor.eliminarContacto(entero(partes, 1)));
+                break;
+            case "id":
+                gestor.buscarPorId(entero(partes, 1));
+                break;
+            case "buscar":
+                gestor.buscarEnIndice(partes[1], partes[2]);
+                break;
+            case "contactos":
+                gestor.buscarContactos(partes[1], partes[2]);
+                break;
+            case "prefijo":
+                gestor.consultar(Consulta.prefijo(partes[1], partes[2]));
+                break;
+            case "rango":
+                gestor.consultar(Consulta.rango(partes[1], texto(partes, 2), texto(partes, 3)));
+                break;
+            case "indice":
+                if (!partes[2].equalsIgnoreCase("BST") && !partes[2].equalsIgnoreCase("AVL")) {
+                    throw new IllegalArgumentException("tipo de índice inválido, use BST o AVL");
+                }
+                gestor.crearIndice(partes[1], partes[2]);
+                break;
+            case "recorrido":
+                gestor.recorridoPorNivel(partes[1]);
+                break;
+            case "reporte":
+                gestor.reporteMemoria();
+                break;
+            case "sincronizar":
+                gestor.sincronizar().join();
+                break;
+            default:
+                throw new IllegalArgumentException("orden desconocida");
+        }
+    }
+
+    /**
+     * Cuenta como error el fallo de un cambio, que solo se conoce cuando el
+     * escritor lo procesa.
+     */
+    private void contarFallo(CompletableFuture<?> cambio) {
+        cambio.exceptionally(e -> {
+            errores.incrementAndGet();
+            return null;
+        });
+    }
+
+    private void mostrarInforme(long totalNanos) {
+        long operaciones = 0;
+        System.out.println(RegistroLatencias.cabecera() + String.format(" %12s", "ops/s"));
+        for (Map.Entry<String, RegistroLatencias> entrada : latencias.entrySet()) {
+            RegistroLatencias registro = entrada.getValue();
+            if (!entrada.getKey().equals("(fin)")) {
+                operaciones += registro.cantidad();
+            }
+            System.out.println(registro.resumen(entrada.getKey())
+                    + String.format(" %12.0f", registro.cantidad() / (registro.totalNanos() / 1e9)));
+        }
+        double segundos = totalNanos / 1e9;
+        System.out.printf("Total: %d órdenes en %.3f s, %.0f órdenes/s, %d errores%n", operaciones, segundos,
+                operaciones / segundos, errores.get());
+    }
+
+    private static String texto(String[] partes, int posicion) {
+        return posicion < partes.length && !partes[posicion].isEmpty() ? partes[posicion] : null;
+    }
+
+    private static int entero(String[] partes, int posicion) {
+        return Integer.parseInt(partes[posicion].trim());
+    }
+
+    private static LocalDate fecha(String[] partes, int posicion) {
+        String fecha = texto(partes, posicion);
+        return fecha != null ? LocalDate.parse(fecha.trim()) : null;
+    }
+}
@@ -0,0 +1,319 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Escritor que guarda los contactos en disco desde un hilo propio.
+ *
+ * Cada modificación deja un registro de cambio en una cola acotada y sigue
+ * adelante; el hilo escritor vacía la cola y, por cada lote de cambios
+ * pendientes, reescribe el archivo una sola vez. Si la cola se llena, quien
+ * registra un cambio espera a que el escritor libere espacio. Cada registro
+ * devuelve un CompletableFuture que se completa cuando el cambio ya está en
+ * disco.
+ *
+ * Antes de escribir se toma una instantánea de los contactos, que los
+ * almacenes comparten por copia en escritura: las modificaciones solo esperan
+ * lo que cuesta tomarla, no lo que cuesta formatear y escribir el archivo. El
+ * archivo se escribe en uno temporal del mismo directorio que después lo
+ * sustituye con un movimiento atómico, de modo que un fallo a mitad de la
+ * escritura nunca deja el archivo de contactos a medias. Los archivos se
+ * escriben siempre en UTF-8, sea cual sea la codificación por defecto del
+ * sistema, y quien los lee debe usar la misma codificación (CODIFICACION).
+ *
+ * El hilo escritor es un hilo demonio; para no perder cambios pendientes al
+ * terminar la aplicación se registra un gancho de apagado que cierra el
+ * escritor.
+ *
+ */
+public class EscritorPersistencia {
+    /**
+     * Codificación de los archivos de contactos e índices, para escribirlos y
+     * leerlos.
+     */
+    public static final Charset CODIFICACION = StandardCharsets.UTF_8;
+
+    /**
+     * Contenido de un archivo que se escribe de forma atómica.
+     */
+    public interface Contenido {
+        /**
+         * Escribe el contenido completo del archivo.
+         *
+         * @param writer Destino de la escritura
+         * @throws IOException si ocurre un error al escribir
+         */
+        void escribir(BufferedWriter writer) throws IOException;
+    }
+
+    /**
+     * Registro de un cambio pendiente de guardar.
+     */
+    private static class Cambio {
+        final String descripcion;
+        final boolean requiereEscritura;
+        final boolean fin;
+        final CompletableFuture<Void> completado = new CompletableFuture<>();
+
+        Cambio(String descripcion, boolean requiereEscritura, boolean fin) {
+            this.descripcion = descripcion;
+            this.requiereEscritura = requiereEscritura;
+            this.fin = fin;
+        }
+    }
+
+    private final String archivo;
+    private final Supplier<List<Contacto>> instantanea;
+    private final MetricasContactos metricas;
+    private final BlockingQueue<Cambio> cola;
+    private final Thread hilo;
+    private final Thread ganchoApagado;
+    private volatile boolean cerrado;
+    private volatile SeguidorCSV seguidor;
+
+    /**
+     * Constructor de la clase EscritorPersistencia. Arranca el hilo escritor.
+     *
+     * @param archivo   Archivo CSV donde se guardan los contactos
+     * @param capacidad Número máximo de cambios pendientes en la cola
+     * @param instantanea Proveedor de una instantánea de todos los contactos en
+     *                    el momento de escribir
+     * @param metricas  Métricas donde registrar la duración de cada escritura
+     *                  y los bytes escritos
+     */
+    public EscritorPersistencia(String archivo, int capacidad, Supplier<List<Contacto>> instantanea,
+                                MetricasContactos metricas) {
+        this.archivo = archivo;
+        this.instantanea = instantanea;
+        this.metricas = metricas;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.hilo = new Thread(this::ejecutar, "escritor-contactos");
+        hilo.setDaemon(true);
+        hilo.start();
+        this.ganchoApagado = new Thread(this::cerrar, "cierre-escritor-contactos");
+        Runtime.getRuntime().addShutdownHook(ganchoApagado);
+    }
+
+    /**
+     * Registra un cambio que debe guardarse en disco. Espera si la cola de
+     * cambios pendientes está llena.
+     *
+     * @param descripcion Descripción del cambio (para los mensajes de error)
+     * @return Un futuro que se completa cuando el cambio está guardado, o de
+     *         forma excepcional si no pudo guardarse
+     */
+    public CompletableFuture<Void> registrarCambio(String descripcion) {
+        return encolar(new Cambio(descripcion, true, false));
+    }
+
+    /**
+     * Obtiene un futuro que se completa cuando todos los cambios registrados
+     * hasta ahora estén guardados. No provoca una escritura por sí mismo.
+     *
+     * @return El futuro de sincronización
+     */
+    public CompletableFuture<Void> sincronizar() {
+        return encolar(new Cambio("sincronización", false, false));
+    }
+
+    /**
+     * Indica el seguidor del archivo de contactos, si se está siguiendo, para
+     * que cada escritura se coordine con él y no la tome por filas nuevas.
+     *
+     * @param seguidor El seguidor del archivo, o null si no se sigue
+     */
+    public void setSeguidor(SeguidorCSV seguidor) {
+        this.seguidor = seguidor;
+    }
+
+    /**
+     * Guarda los cambios pendientes y detiene el hilo escritor. Las llamadas
+     * posteriores a registrarCambio fallan, también las que estaban esperando
+     * sitio en la cola llena.
+     */
+    public synchronized void cerrar() {
+        if (cerrado)
+            return;
+        Cambio cierre = new Cambio("cierre", false, true);
+        encolar(cierre);
+        cerrado = true;
+        cierre.completado.join();
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (Thread.currentThread() != ganchoApagado) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(ganchoApagado);
+            } catch (IllegalStateException e) {
+                // La aplicación ya se está apagando
+            }
+        }
+
+        // Cambios que llegaron a la cola a la vez que el cierre
+        List<Cambio> restantes = new ArrayList<>();
+        cola.drainTo(restantes);
+        for (Cambio cambio : restantes) {
+            cambio.completado.completeExceptionally(
+                    new IllegalStateException("El escritor de contactos está cerrado: " + cambio.descripcion));
+        }
+    }
+
+    private CompletableFuture<Void> encolar(Cambio cambio) {
+        if (cerrado) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("El escritor de contactos está cerrado: " + cambio.descripcion));
+        }
+        try {
+            cola.put(cambio);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cambio.completado.completeExceptionally(e);
+            return cambio.completado;
+        }
+        // Si la cola estaba llena, el cierre pudo vaciarla por última vez antes de que
+        // entrara el cambio; si sigue en la cola, nadie lo va a completar
+        if (cerrado && cola.remove(cambio)) {
+            cambio.completado.completeExceptionally(
+                    new IllegalStateException("El escritor de contactos está cerrado: " + cambio.descripcion));
+        }
+        return cambio.completado;
+    }
+
+    /**
+     * Bucle del hilo escritor: toma todos los cambios pendientes, reescribe el
+     * archivo una vez y completa sus futuros.
+     */
+    private void ejecutar() {
+        List<Cambio> lote = new ArrayList<>();
+        while (true) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            cola.drainTo(lote);
+
+            boolean escribir = false;
+            boolean fin = false;
+            for (Cambio cambio : lote) {
+                escribir |= cambio.requiereEscritura;
+                fin |= cambio.fin;
+            }
+
+            try {
+                if (escribir) {
+                    escribir(lote.size());
+                }
+                for (Cambio cambio : lote) {
+                    cambio.completado.complete(null);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Error al guardar contactos (" + lote.size() + " cambios pendientes): "
+                        + e.getMessage());
+                for (Cambio cambio : lote) {
+                    cambio.completado.completeExceptionally(e);
+                }
+            }
+            lote.clear();
+
+            if (fin)
+                return;
+        }
+    }
+
+    /**
+     * Reescribe el archivo con la cabecera y los contactos actuales.
+     *
+     * @param cambios Número de cambios que se guardan con esta escritura
+     */
+    private void escribir(int cambios) throws IOException {
+        SeguidorCSV seguido = seguidor;
+        if (seguido == null) {
+            escribir(cambios, null);
+        } else {
+            // El seguidor agrega antes las filas añadidas por otros procesos
+            seguido.reescribir(() -> escribir(cambios, seguido));
+        }
+    }
+
+    private void escribir(int cambios, SeguidorCSV seguido) throws IOException {
+        long inicio = System.nanoTime();
+        EventosJFR.Guardado evento = new EventosJFR.Guardado();
+        evento.begin();
+        List<Contacto> contenido = instantanea.get();
+        long bytes = escribirAtomicamente(Paths.get(archivo), writer -> {
+            writer.write(Contacto.CABECERA_CSV);
+            writer.newLine();
+            for (Contacto contacto : contenido) {
+                writer.write(contacto.toCSV());
+                writer.newLine();
+            }
+        });
+        if (seguido != null) {
+            seguido.reescrito(bytes, contenido.size() + 1);
+        }
+        evento.end();
+        if (evento.shouldCommit()) {
+            evento.archivo = archivo;
+            evento.filas = contenido.size();
+            evento.cambios = cambios;
+            evento.bytes = bytes;
+            evento.commit();
+        }
+        metricas.sumarBytesEscritos(bytes);
+        metricas.registrar(MetricasContactos.Operacion.GUARDADO, inicio);
+    }
+
+    /**
+     * Escribe un archivo completo en uno temporal del mismo directorio y lo
+     * mueve después sobre el destino con un movimiento atómico. Quien lea el
+     * archivo ve el contenido anterior o el nuevo, nunca uno a medias. Si el
+     * sistema de archivos no admite movimientos atómicos, el temporal
+     * sustituye al destino con un movimiento normal.
+     *
+     * El contenido se codifica en CODIFICACION; un carácter que no pueda
+     * codificarse (un sustituto UTF-16 suelto) se escribe como '?' en lugar de
+     * hacer fallar la escritura.
+     *
+     * @param archivo   Archivo de destino
+     * @param contenido Escritura del contenido completo
+     * @return Los bytes escritos
+     * @throws IOException si ocurre un error al escribir o al mover el archivo
+     */
+    public static long escribirAtomicamente(Path archivo, Contenido contenido) throws IOException {
+        Path destino = archivo.toAbsolutePath();
+        // Con los permisos por defecto del directorio, no los restringidos de createTempFile
+        Path temporal = destino.resolveSibling(destino.getFileName() + "." + System.nanoTime() + ".tmp");
+        try {
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    Files.newOutputStream(temporal, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+                    CODIFICACION))) {
+                contenido.escribir(writer);
+            }
+            long bytes = Files.size(temporal);
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return bytes;
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+}
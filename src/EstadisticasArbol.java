@@ -0,0 +1,142 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas de forma y de uso de un árbol de búsqueda: número de nodos,
+ * altura comparada con la óptima, profundidad media, rotaciones hechas y
+ * comparaciones por búsqueda.
+ *
+ * La profundidad cuenta los nodos del camino desde la raíz, de modo que la
+ * profundidad media es el número medio de comparaciones de una búsqueda con
+ * éxito. Un árbol con una altura muy superior a la óptima (log2(n + 1)
+ * redondeado hacia arriba) se ha degradado hacia una lista.
+ *
+ */
+public class EstadisticasArbol {
+    /**
+     * Contadores de uso que un árbol actualiza mientras trabaja. Se pueden
+     * incrementar desde varios hilos a la vez.
+     */
+    static final class Contadores {
+        final LongAdder busquedas = new LongAdder();
+        final LongAdder comparaciones = new LongAdder();
+        final LongAdder rotaciones = new LongAdder();
+        final LongAdder reconstrucciones = new LongAdder();
+
+        /**
+         * Registra una búsqueda y las comparaciones que necesitó.
+         */
+        void busqueda(int comparacionesBusqueda) {
+            busquedas.increment();
+            comparaciones.add(comparacionesBusqueda);
+        }
+    }
+
+    private final int nodos;
+    private final int altura;
+    private final double profundidadMedia;
+    private final long rotaciones;
+    private final long reconstrucciones;
+    private final long busquedas;
+    private final long comparaciones;
+
+    /**
+     * Constructor de la clase EstadisticasArbol.
+     *
+     * @param nodos             Número de nodos del árbol
+     * @param altura            Altura del árbol (0 si está vacío)
+     * @param sumaProfundidades Suma de las profundidades de todos los nodos
+     * @param contadores        Contadores de uso del árbol
+     */
+    EstadisticasArbol(int nodos, int altura, long sumaProfundidades, Contadores contadores) {
+        this.nodos = nodos;
+        this.altura = altura;
+        this.profundidadMedia = nodos == 0 ? 0 : sumaProfundidades / (double) nodos;
+        this.rotaciones = contadores.rotaciones.sum();
+        this.reconstrucciones = contadores.reconstrucciones.sum();
+        this.busquedas = contadores.busquedas.sum();
+        this.comparaciones = contadores.comparaciones.sum();
+    }
+
+    /**
+     * @return El número de nodos del árbol
+     */
+    public int getNodos() {
+        return nodos;
+    }
+
+    /**
+     * @return La altura del árbol (0 si está vacío)
+     */
+    public int getAltura() {
+        return altura;
+    }
+
+    /**
+     * @return La menor altura posible con este número de nodos
+     */
+    public int getAlturaOptima() {
+        return alturaOptima(nodos);
+    }
+
+    /**
+     * Calcula la menor altura posible de un árbol binario.
+     *
+     * @param nodos Número de nodos
+     * @return log2(nodos + 1) redondeado hacia arriba
+     */
+    static int alturaOptima(int nodos) {
+        return 32 - Integer.numberOfLeadingZeros(nodos);
+    }
+
+    /**
+     * @return La altura dividida entre la óptima (1 en un árbol perfectamente
+     *         balanceado, cercano a n / log2(n) en uno degenerado)
+     */
+    public double getDegradacion() {
+        return nodos == 0 ? 1 : altura / (double) getAlturaOptima();
+    }
+
+    /**
+     * @return La profundidad media de los nodos
+     */
+    public double getProfundidadMedia() {
+        return profundidadMedia;
+    }
+
+    /**
+     * @return Las rotaciones hechas para mantener el balance (0 en un BST)
+     */
+    public long getRotaciones() {
+        return rotaciones;
+    }
+
+    /**
+     * @return Las veces que el árbol se ha reconstruido balanceado por estar
+     *         degradado
+     */
+    public long getReconstrucciones() {
+        return reconstrucciones;
+    }
+
+    /**
+     * @return El número de búsquedas hechas en el árbol
+     */
+    public long getBusquedas() {
+        return busquedas;
+    }
+
+    /**
+     * @return El número medio de comparaciones por búsqueda
+     */
+    public double getComparacionesPorBusqueda() {
+        return busquedas == 0 ? 0 : comparaciones / (double) busquedas;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("nodos=%d, altura=%d (óptima %d, degradación %.2f), profundidad media=%.2f, "
+                        + "rotaciones=%d, reconstrucciones=%d, búsquedas=%d, comparaciones por búsqueda=%.2f",
+                nodos, altura, getAlturaOptima(), getDegradacion(), profundidadMedia, rotaciones, reconstrucciones,
+                busquedas, getComparacionesPorBusqueda());
+    }
+}
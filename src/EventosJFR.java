@@ -0,0 +1,210 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Eventos de Java Flight Recorder de la agenda: importación, guardado y
+ * exportación de contactos, guardado y carga de índices, y construcciones y
+ * reconstrucciones de índices.
+ *
+ * Cada evento mide su duración entre begin() y end() y lleva las filas o
+ * claves tratadas y, si hay archivo, los bytes. Con la grabación apagada
+ * shouldCommit() devuelve false y rellenar los campos no se llega a hacer,
+ * así que instrumentar no tiene coste apreciable. Para grabarlos:
+ *
+ * java -XX:StartFlightRecording=filename=agenda.jfr Main
+ *
+ * y abrir el archivo con JDK Mission Control o "jfr print --categories
+ * GestorContactos agenda.jfr".
+ *
+ */
+public final class EventosJFR {
+    private EventosJFR() {
+    }
+
+    /**
+     * Importación de un archivo CSV de contactos.
+     */
+    @Name("GestorContactos.Importacion")
+    @Label("Importación de contactos")
+    @Category({ "GestorContactos", "Persistencia" })
+    @Description("Lectura de un CSV de contactos y reconstrucción de los índices")
+    public static final class Importacion extends Event {
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Filas leídas")
+        long filas;
+
+        @Label("Contactos importados o modificados")
+        long contactos;
+
+        @Label("Modo de importación")
+        String modoDuplicados;
+
+        @Label("Filas repetidas")
+        long duplicados;
+
+        @Label("Bytes leídos")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+    }
+
+    /**
+     * Escritura del archivo de contactos desde el hilo del escritor.
+     */
+    @Name("GestorContactos.Guardado")
+    @Label("Guardado de contactos")
+    @Category({ "GestorContactos", "Persistencia" })
+    @Description("Reescritura del archivo de contactos con los cambios pendientes")
+    public static final class Guardado extends Event {
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Filas escritas")
+        long filas;
+
+        @Label("Cambios guardados")
+        long cambios;
+
+        @Label("Bytes escritos")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+    }
+
+    /**
+     * Escritura de una instantánea de los contactos y los índices en segundo
+     * plano.
+     */
+    @Name("GestorContactos.Instantanea")
+    @Label("Instantánea de contactos")
+    @Category({ "GestorContactos", "Persistencia" })
+    @Description("Escritura de una instantánea congelada mientras siguen llegando cambios")
+    public static final class Instantanea extends Event {
+        @Label("Directorio")
+        String directorio;
+
+        @Label("Contactos")
+        long contactos;
+
+        @Label("Índices")
+        long indices;
+
+        @Label("Bytes escritos")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+    }
+
+    /**
+     * Exportación de los contactos a otro archivo CSV.
+     */
+    @Name("GestorContactos.Exportacion")
+    @Label("Exportación de contactos")
+    @Category({ "GestorContactos", "Persistencia" })
+    public static final class Exportacion extends Event {
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Filas escritas")
+        long filas;
+
+        @Label("Bytes escritos")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+    }
+
+    /**
+     * Guardado del recorrido de un índice en su archivo de texto.
+     */
+    @Name("GestorContactos.GuardadoIndice")
+    @Label("Guardado de índice")
+    @Category({ "GestorContactos", "Índices" })
+    public static final class GuardadoIndice extends Event {
+        @Label("Campo")
+        String campo;
+
+        @Label("Tipo de árbol")
+        String tipo;
+
+        @Label("Claves")
+        long claves;
+
+        @Label("Bytes escritos")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+    }
+
+    /**
+     * Carga de un índice desde su archivo de texto.
+     */
+    @Name("GestorContactos.CargaIndice")
+    @Label("Carga de índice")
+    @Category({ "GestorContactos", "Índices" })
+    public static final class CargaIndice extends Event {
+        @Label("Campo")
+        String campo;
+
+        @Label("Tipo de árbol")
+        String tipo;
+
+        @Label("Claves")
+        long claves;
+
+        @Label("Bytes leídos")
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+    }
+
+    /**
+     * Inserción por lotes en un índice, al crearlo o tras una importación.
+     */
+    @Name("GestorContactos.ConstruccionIndice")
+    @Label("Construcción de índice")
+    @Category({ "GestorContactos", "Índices" })
+    @Description("Inserción de muchos valores a la vez en el árbol de un índice")
+    public static final class ConstruccionIndice extends Event {
+        @Label("Campo")
+        String campo;
+
+        @Label("Tipo de árbol")
+        String tipo;
+
+        @Label("Valores del lote")
+        long valores;
+
+        @Label("Claves del árbol")
+        long claves;
+    }
+
+    /**
+     * Reconstrucción balanceada de un índice BST degradado.
+     */
+    @Name("GestorContactos.RebalanceoIndice")
+    @Label("Rebalanceo de índice")
+    @Category({ "GestorContactos", "Índices" })
+    @Description("Reconstrucción de un BST cuya altura superaba el múltiplo configurado de la óptima")
+    public static final class RebalanceoIndice extends Event {
+        @Label("Campo")
+        String campo;
+
+        @Label("Claves")
+        long claves;
+
+        @Label("Altura anterior")
+        int alturaAnterior;
+
+        @Label("Altura nueva")
+        int alturaNueva;
+
+        @Label("En segundo plano")
+        @Description("false si se hizo dentro de una inserción por lotes")
+        boolean segundoPlano;
+
+        @Label("Descartado")
+        @Description("true si el índice cambió mientras se construía la copia")
+        boolean descartado;
+    }
+}
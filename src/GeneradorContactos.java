@@ -0,0 +1,201 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generador determinista de contactos sintéticos para pruebas y bancos de
+ * pruebas.
+ *
+ * Con la misma semilla y los mismos parámetros produce siempre los mismos
+ * contactos. Los nombres y apellidos se eligen de listas de valores
+ * españoles habituales con una distribución de Zipf cuyo exponente es el
+ * sesgo: 0 reparte los valores por igual y valores mayores concentran los
+ * contactos en los primeros nombres, como en los datos reales. Una parte de
+ * las filas, la proporción de duplicados, repite el nombre, apellido,
+ * teléfono y email de una fila anterior con otro ID.
+ *
+ * Uso: java GeneradorContactos filas archivo.csv [semilla] [sesgo]
+ * [duplicados]
+ *
+ */
+public class GeneradorContactos {
+    static final String[] NOMBRES = { "Antonio", "Manuel", "José", "Francisco", "David", "Juan", "Javier",
+            "Daniel", "Carlos", "Jesús", "Alejandro", "Miguel", "Rafael", "Pablo", "Pedro", "Ángel", "Sergio",
+            "Fernando", "Jorge", "Luis", "Alberto", "Álvaro", "Adrián", "Diego", "Raúl", "Enrique", "Ramón",
+            "Vicente", "Iván", "Rubén", "María", "Carmen", "Ana", "Isabel", "Laura", "Cristina", "Marta", "Lucía",
+            "Dolores", "Pilar", "Elena", "Sara", "Paula", "Raquel", "Rosa", "Manuela", "Mercedes", "Beatriz",
+            "Julia", "Silvia", "Irene", "Patricia", "Nuria", "Rocío", "Andrea", "Montserrat", "Alba", "Sonia",
+            "Claudia", "Teresa" };
+
+    static final String[] APELLIDOS = { "García", "Rodríguez", "González", "Fernández", "López",
+            "Martínez", "Sánchez", "Pérez", "Gómez", "Martín", "Jiménez", "Ruiz", "Hernández", "Díaz", "Moreno",
+            "Muñoz", "Álvarez", "Romero", "Alonso", "Gutiérrez", "Navarro", "Torres", "Domínguez", "Vázquez",
+            "Ramos", "Gil", "Ramírez", "Serrano", "Blanco", "Molina", "Morales", "Suárez", "Ortega", "Delgado",
+            "Castro", "Ortiz", "Rubio", "Marín", "Sanz", "Núñez", "Iglesias", "Medina", "Garrido", "Cortés",
+            "Castillo", "Santos", "Lozano", "Guerrero", "Cano", "Prieto", "Méndez", "Cruz", "Calvo", "Gallego",
+            "Vidal", "León", "Márquez", "Herrera", "Peña", "Flores", "Cabrera", "Campos", "Vega", "Fuentes",
+            "Carrasco", "Diez", "Caballero", "Reyes", "Nieto", "Aguilar", "Pascual", "Santana", "Herrero",
+            "Lorenzo", "Montero", "Hidalgo", "Giménez", "Ibáñez", "Ferrer", "Durán", "Santiago", "Benítez",
+            "Mora", "Vicente", "Vargas", "Arias", "Carmona", "Crespo", "Román", "Pastor", "Soto", "Sáez",
+            "Velasco", "Moya", "Soler", "Parra", "Esteban", "Bravo", "Gallardo", "Rojas" };
+
+    private static final String[] APODOS = { "Toni", "Manolo", "Pepe", "Paco", "Juanjo", "Chema", "Quique",
+            "Rafa", "Nacho", "Lola", "Maite", "Isa", "Mari", "Pili", "Charo", "Merche", "Bea", "Tere", "Montse",
+            "Nuri" };
+    private static final String[] VIAS = { "Calle", "Avenida", "Plaza", "Paseo", "Camino", "Ronda" };
+    private static final String[] DOMINIOS = { "gmail.com", "hotmail.com", "yahoo.es", "outlook.com",
+            "telefonica.net", "correo.es" };
+    private static final double PROPORCION_APODO = 0.3;
+    private static final LocalDate FECHA_MINIMA = LocalDate.of(1940, 1, 1);
+    private static final int DIAS_FECHAS = (int) (LocalDate.of(2010, 12, 31).toEpochDay() - FECHA_MINIMA.toEpochDay());
+
+    private final Random aleatorio;
+    private final double proporcionDuplicados;
+    private final double[] acumuladaNombres;
+    private final double[] acumuladaApellidos;
+    private final List<Contacto> generados = new ArrayList<>();
+
+    /**
+     * Constructor de la clase GeneradorContactos.
+     *
+     * @param semilla              Semilla del generador aleatorio
+     * @param sesgo                Exponente de Zipf para nombres y apellidos
+     *                             (0 para una distribución uniforme)
+     * @param proporcionDuplicados Proporción de filas, entre 0 y 1, que
+     *                             repiten los datos de una fila anterior
+     */
+    public GeneradorContactos(long semilla, double sesgo, double proporcionDuplicados) {
+        if (sesgo < 0 || proporcionDuplicados < 0 || proporcionDuplicados > 1) {
+            throw new IllegalArgumentException("Sesgo negativo o proporción de duplicados fuera de [0, 1]");
+        }
+        this.aleatorio = new Random(semilla);
+        this.proporcionDuplicados = proporcionDuplicados;
+        this.acumuladaNombres = zipf(NOMBRES.length, sesgo);
+        this.acumuladaApellidos = zipf(APELLIDOS.length, sesgo);
+    }
+
+    /**
+     * Genera el siguiente contacto de la secuencia.
+     *
+     * @param id ID que se asigna al contacto
+     * @return El contacto generado
+     */
+    public Contacto siguiente(int id) {
+        Contacto contacto;
+        if (!generados.isEmpty() && aleatorio.nextDouble() < proporcionDuplicados) {
+            Contacto original = generados.get(aleatorio.nextInt(generados.size()));
+            contacto = new Contacto(id, original.getNombre(), original.getApellido(), original.getApodo(),
+                    original.getTelefono(), original.getEmail(), original.getDireccion(),
+                    original.getFechaNacimiento());
+        } else {
+            String nombre = NOMBRES[elegir(acumuladaNombres)];
+            String apellido = APELLIDOS[elegir(acumuladaApellidos)] + " " + APELLIDOS[elegir(acumuladaApellidos)];
+            String apodo = aleatorio.nextDouble() < PROPORCION_APODO ? APODOS[aleatorio.nextInt(APODOS.length)] : null;
+            String telefono = Integer.toString(600_000_000 + aleatorio.nextInt(100_000_000));
+            String email = sinAcentos(nombre + "." + apellido.substring(0, apellido.indexOf(' '))).toLowerCase()
+                    + id + "@" + DOMINIOS[aleatorio.nextInt(DOMINIOS.length)];
+            String direccion = VIAS[aleatorio.nextInt(VIAS.length)] + " "
+                    + APELLIDOS[aleatorio.nextInt(APELLIDOS.length)] + " " + (1 + aleatorio.nextInt(200));
+            LocalDate fecha = FECHA_MINIMA.plusDays(aleatorio.nextInt(DIAS_FECHAS + 1));
+            contacto = new Contacto(id, nombre, apellido, apodo, telefono, email, direccion, fecha);
+        }
+        if (proporcionDuplicados > 0) {
+            generados.add(contacto);
+        }
+        return contacto;
+    }
+
+    /**
+     * Genera una lista de contactos con IDs consecutivos.
+     *
+     * @param primerId ID del primer contacto
+     * @param cantidad Número de contactos a generar
+     * @return Los contactos generados
+     */
+    public List<Contacto> generar(int primerId, int cantidad) {
+        List<Contacto> contactos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            contactos.add(siguiente(primerId + i));
+        }
+        return contactos;
+    }
+
+    /**
+     * Escribe un archivo CSV de contactos con cabecera e IDs desde 1.
+     *
+     * @param archivo Ruta del archivo a escribir
+     * @param filas   Número de contactos
+     * @throws IOException Si no se puede escribir el archivo
+     */
+    public void escribirCSV(Path archivo, int filas) throws IOException {
+        // Con la misma codificación con la que GestorContactos lee y escribe
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(archivo.toFile(),
+                EscritorPersistencia.CODIFICACION))) {
+            writer.write(Contacto.CABECERA_CSV);
+            writer.newLine();
+            for (int id = 1; id <= filas; id++) {
+                writer.write(siguiente(id).toCSV());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Método principal para generar un archivo desde la línea de comandos.
+     *
+     * @param args Filas, archivo, semilla (1 por defecto), sesgo (1.0 por
+     *             defecto) y proporción de duplicados (0 por defecto)
+     * @throws IOException Si no se puede escribir el archivo
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Uso: java GeneradorContactos filas archivo.csv [semilla] [sesgo] [duplicados]");
+            return;
+        }
+        int filas = Integer.parseInt(args[0]);
+        long semilla = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        double sesgo = args.length > 3 ? Double.parseDouble(args[3]) : 1.0;
+        double duplicados = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        new GeneradorContactos(semilla, sesgo, duplicados).escribirCSV(Paths.get(args[1]), filas);
+        System.out.println(filas + " contactos generados en " + args[1]);
+    }
+
+    private int elegir(double[] acumulada) {
+        int pos = Arrays.binarySearch(acumulada, aleatorio.nextDouble());
+        return Math.min(acumulada.length - 1, pos >= 0 ? pos : -pos - 1);
+    }
+
+    /**
+     * Distribución acumulada de Zipf con el exponente indicado sobre n
+     * valores.
+     */
+    static double[] zipf(int n, double exponente) {
+        double[] acumulada = new double[n];
+        double suma = 0;
+        for (int i = 0; i < n; i++) {
+            suma += 1.0 / Math.pow(i + 1, exponente);
+            acumulada[i] = suma;
+        }
+        for (int i = 0; i < n; i++) {
+            acumulada[i] /= suma;
+        }
+        return acumulada;
+    }
+
+    private static String sinAcentos(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            int pos = "ÁÉÍÓÚáéíóúÑñÜü".indexOf(c);
+            sb.append(pos >= 0 ? "AEIOUaeiouNnUu".charAt(pos) : c);
+        }
+        return sb.toString();
+    }
+}
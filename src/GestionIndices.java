@@ -1,5 +1,14 @@
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.io.*;
+import java.nio.file.Paths;
 
 /**
  * Clase que gestiona los índices para búsquedas rápidas en los contactos.
@@ -7,11 +16,60 @@ import java.io.*;
  * Permite crear y gestionar índices utilizando árboles BST o AVL para
  * campos específicos de los contactos, facilitando búsquedas eficientes.
  *
+ * Cada índice tiene su propio bloqueo de lectura/escritura: varias búsquedas
+ * sobre un mismo índice se ejecutan a la vez y las modificaciones de índices
+ * de campos distintos no se bloquean entre sí. Los árboles BST no son seguros
+ * para varios hilos por sí mismos; solo se acceden con el bloqueo tomado.
+ *
+ * Los índices AVL son persistentes: cada modificación publica una raíz nueva
+ * en una referencia atómica y las lecturas trabajan sobre la raíz vigente sin
+ * tomar ningún bloqueo, de modo que un recorrido largo ve siempre una
+ * instantánea consistente y no frena a los escritores. En ellos el bloqueo
+ * de escritura solo ordena a los escritores entre sí.
+ *
+ * Cuando un contacto cambia, los índices de sus campos se actualizan en
+ * paralelo: cada tarea toma únicamente el bloqueo de su campo.
+ *
+ * Los índices BST son adaptativos: si la altura de un árbol supera varias
+ * veces la óptima (por ejemplo, al importar un CSV ordenado por ese campo),
+ * se reconstruye balanceado. Tras una inserción suelta la copia balanceada se
+ * construye en segundo plano con el bloqueo de lectura, de modo que las
+ * consultas siguen atendiéndose, y se sustituye con el de escritura si nadie
+ * ha modificado el índice entretanto. En las inserciones por lotes el
+ * bloqueo de escritura ya está tomado y se reconstruye en el momento.
+ *
  */
 public class GestionIndices {
-    private Map<String, ArbolAVL<String>> indicesAVL;
+    private static final int[] SIN_IDS = new int[0];
+
+    /**
+     * Número de índices a partir del cual las actualizaciones de un contacto se
+     * reparten entre varios hilos; con menos, el coste de repartirlas supera al
+     * de aplicarlas una tras otra.
+     */
+    private static final int UMBRAL_PARALELO = 4;
+
+    /**
+     * Múltiplo de la altura óptima a partir del cual un índice BST se
+     * reconstruye. Un BST con claves en orden aleatorio mide unas 3 veces la
+     * óptima, así que solo se reconstruyen los claramente degradados.
+     */
+    public static final double FACTOR_REBALANCEO = 4.0;
+
+    private Map<String, AtomicReference<ArbolAVLPersistente<String, int[]>>> indicesAVL;
     private Map<String, ArbolBST<String>> indicesBST;
     private Map<String, String> tiposIndice;
+    private Map<String, Map<String, ListaIds>> apariciones;
+    private Map<String, ReentrantReadWriteLock> bloqueos;
+    private Map<String, AtomicLong> versiones;
+    private volatile Set<String> camposIndexados;
+    private volatile Map<String, CampoContacto> descriptores;
+    private Map<String, String> clavesDiccionario;
+    private DiccionarioCadenas diccionario;
+    private MetricasContactos metricas;
+    private volatile double factorRebalanceo = FACTOR_REBALANCEO;
+    private final Set<String> rebalanceosPendientes = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<String> alReorganizar = campo -> { };
     private static final String CSV_SEPARATOR = ",";
 
     /**
@@ -19,9 +77,40 @@ public class GestionIndices {
      * Inicializa los mapas para almacenar los diferentes tipos de índices.
      */
     public GestionIndices() {
-        indicesAVL = new HashMap<>();
-        indicesBST = new HashMap<>();
-        tiposIndice = new HashMap<>();
+        this(new DiccionarioCadenas());
+    }
+
+    /**
+     * Constructor de la clase GestionIndices que comparte un diccionario de
+     * cadenas, de modo que los nodos de los índices reutilicen las mismas
+     * instancias de texto que los contactos.
+     *
+     * @param diccionario Diccionario de cadenas compartido
+     */
+    public GestionIndices(DiccionarioCadenas diccionario) {
+        this(diccionario, new MetricasContactos());
+    }
+
+    /**
+     * Constructor de la clase GestionIndices que comparte un diccionario de
+     * cadenas y registra la latencia de las búsquedas y construcciones de
+     * índices en las métricas indicadas.
+     *
+     * @param diccionario Diccionario de cadenas compartido
+     * @param metricas    Métricas donde registrar las operaciones
+     */
+    public GestionIndices(DiccionarioCadenas diccionario, MetricasContactos metricas) {
+        indicesAVL = new ConcurrentHashMap<>();
+        indicesBST = new ConcurrentHashMap<>();
+        tiposIndice = new ConcurrentHashMap<>();
+        apariciones = new ConcurrentHashMap<>();
+        bloqueos = new ConcurrentHashMap<>();
+        versiones = new ConcurrentHashMap<>();
+        camposIndexados = Collections.emptySet();
+        descriptores = Collections.emptyMap();
+        clavesDiccionario = new ConcurrentHashMap<>();
+        this.diccionario = diccionario;
+        this.metricas = metricas;
     }
 
     /**
@@ -31,15 +120,32 @@ public class GestionIndices {
      * @param campo     El nombre del campo a indexar (nombre, apellido, etc.)
      * @param tipoArbol El tipo de árbol a utilizar ("AVL" o "BST")
      */
-    public void crearIndice(String campo, String tipoArbol) {
+    public synchronized void crearIndice(String campo, String tipoArbol) {
         if (!tiposIndice.containsKey(campo)) {
+            // El tipo se publica al final: quien lo vea ya encuentra el árbol y su bloqueo
+            bloqueos.put(campo, new ReentrantReadWriteLock());
+            versiones.put(campo, new AtomicLong());
+            // El campo se resuelve una sola vez: las inserciones no pasan su nombre a minúsculas
+            CampoContacto descriptor = CampoContacto.resolver(campo);
+            clavesDiccionario.put(campo, descriptor != null ? descriptor.getNombre() : campo.toLowerCase());
             if ("AVL".equalsIgnoreCase(tipoArbol)) {
-                indicesAVL.put(campo, new ArbolAVL<>());
+                indicesAVL.put(campo, new AtomicReference<>(ArbolAVLPersistente.vacio()));
                 tiposIndice.put(campo, "AVL");
             } else {
+                apariciones.put(campo, new HashMap<>());
                 indicesBST.put(campo, new ArbolBST<>());
                 tiposIndice.put(campo, "BST");
             }
+
+            // Copia al escribir: los lectores recorren el conjunto sin copiarlo
+            Set<String> campos = new HashSet<>(camposIndexados);
+            campos.add(campo);
+            camposIndexados = Collections.unmodifiableSet(campos);
+            if (descriptor != null) {
+                Map<String, CampoContacto> nuevos = new HashMap<>(descriptores);
+                nuevos.put(campo, descriptor);
+                descriptores = Collections.unmodifiableMap(nuevos);
+            }
         }
     }
 
@@ -57,10 +163,25 @@ public class GestionIndices {
             crearIndice(campo, "BST");
         }
 
-        if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
-            indicesAVL.get(campo).insertar(valor);
-        } else {
-            indicesBST.get(campo).insertar(valor);
+        Lock escritura = bloqueos.get(campo).writeLock();
+        escritura.lock();
+        try {
+            valor = diccionario.internar(clavesDiccionario.get(campo), valor);
+            if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+                AtomicReference<ArbolAVLPersistente<String, int[]>> raiz = indicesAVL.get(campo);
+                if (raiz.get().obtenerSinContar(valor) == null) {
+                    raiz.set(raiz.get().insertar(valor, SIN_IDS));
+                }
+            } else {
+                ArbolBST<String> arbol = indicesBST.get(campo);
+                arbol.insertar(valor);
+                if (estaDegradado(arbol)) {
+                    programarRebalanceo(campo);
+                }
+            }
+            versiones.get(campo).incrementAndGet();
+        } finally {
+            escritura.unlock();
         }
     }
 
@@ -75,10 +196,20 @@ public class GestionIndices {
         if (!tiposIndice.containsKey(campo))
             return false;
 
+        long inicio = System.nanoTime();
         if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
-            return indicesAVL.get(campo).buscar(valor);
-        } else {
+            boolean encontrado = indicesAVL.get(campo).get().buscar(valor);
+            metricas.registrar(MetricasContactos.Operacion.BUSQUEDA_INDICE, inicio);
+            return encontrado;
+        }
+
+        Lock lectura = bloqueos.get(campo).readLock();
+        lectura.lock();
+        try {
             return indicesBST.get(campo).buscar(valor);
+        } finally {
+            lectura.unlock();
+            metricas.registrar(MetricasContactos.Operacion.BUSQUEDA_INDICE, inicio);
         }
     }
 
@@ -94,12 +225,65 @@ public class GestionIndices {
             return Collections.emptyList();
 
         if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
-            return indicesAVL.get(campo).recorridoPorNivel();
-        } else {
+            return indicesAVL.get(campo).get().recorridoPorNivel();
+        }
+
+        Lock lectura = bloqueos.get(campo).readLock();
+        lectura.lock();
+        try {
             return indicesBST.get(campo).recorridoPorNivel();
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * Obtiene el recorrido por niveles del índice sustituyendo cada valor por
+     * el menor ID de los contactos que lo tienen. Valores e IDs salen de la
+     * misma versión del índice.
+     *
+     * @param campo El nombre del campo indexado
+     * @return Los IDs en recorrido por niveles, con "null" en los cambios de
+     *         nivel y en los valores sin contactos
+     */
+    public List<String> recorridoPorNivelIds(String campo) {
+        if (!tiposIndice.containsKey(campo))
+            return Collections.emptyList();
+
+        if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+            // El id se lee de cada nodo: no cuenta como búsqueda en las estadísticas
+            return indicesAVL.get(campo).get().recorridoPorNivel(
+                    (valor, ids) -> ids.length > 0 ? String.valueOf(ids[0]) : "null");
+        }
+
+        Lock lectura = bloqueos.get(campo).readLock();
+        lectura.lock();
+        try {
+            Map<String, ListaIds> aparicionesCampo = apariciones.get(campo);
+            List<String> resultado = new ArrayList<>();
+            for (String valor : indicesBST.get(campo).recorridoPorNivel()) {
+                ListaIds ids = aparicionesCampo.get(valor);
+                resultado.add(ids != null && !ids.estaVacia() ? String.valueOf(ids.aArreglo()[0]) : "null");
+            }
+            return resultado;
+        } finally {
+            lectura.unlock();
         }
     }
 
+    /**
+     * Devuelve un contador que aumenta con cada modificación del índice de un
+     * campo. Permite comprobar que un resultado calculado sin bloqueos sigue
+     * correspondiendo a la versión vigente del índice.
+     *
+     * @param campo El nombre del campo indexado
+     * @return La versión actual del índice (0 si no existe)
+     */
+    public long version(String campo) {
+        AtomicLong version = versiones.get(campo);
+        return version != null ? version.get() : 0;
+    }
+
     /**
      * Muestra en pantalla el recorrido por niveles del índice correspondiente al
      * campo.
@@ -127,10 +311,18 @@ public class GestionIndices {
         if (!tiposIndice.containsKey(campo))
             return;
 
-        if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
-            indicesAVL.get(campo).eliminar(valor);
-        } else {
-            indicesBST.get(campo).eliminar(valor);
+        Lock escritura = bloqueos.get(campo).writeLock();
+        escritura.lock();
+        try {
+            if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+                AtomicReference<ArbolAVLPersistente<String, int[]>> raiz = indicesAVL.get(campo);
+                raiz.set(raiz.get().eliminar(valor));
+            } else {
+                indicesBST.get(campo).eliminar(valor);
+            }
+            versiones.get(campo).incrementAndGet();
+        } finally {
+            escritura.unlock();
         }
     }
 
@@ -146,21 +338,684 @@ public class GestionIndices {
         if (!tiposIndice.containsKey(campo))
             return;
 
-        if (valorAnterior != null) {
-            eliminarDelIndice(campo, valorAnterior);
+        Lock escritura = bloqueos.get(campo).writeLock();
+        escritura.lock();
+        try {
+            if (valorAnterior != null) {
+                eliminarDelIndice(campo, valorAnterior);
+            }
+            if (valorNuevo != null) {
+                agregarAlIndice(campo, valorNuevo);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Agrega al índice el valor de un contacto concreto, registrando su ID en la
+     * lista de apariciones del valor.
+     *
+     * @param campo El nombre del campo indexado
+     * @param valor El valor a agregar al índice
+     * @param id    El ID del contacto que tiene ese valor
+     */
+    public void agregarAlIndice(String campo, String valor, int id) {
+        if (!tiposIndice.containsKey(campo) || valor == null || valor.isEmpty())
+            return;
+
+        Lock escritura = bloqueos.get(campo).writeLock();
+        escritura.lock();
+        try {
+            valor = diccionario.internar(clavesDiccionario.get(campo), valor);
+            if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+                AtomicReference<ArbolAVLPersistente<String, int[]>> raiz = indicesAVL.get(campo);
+                int[] ids = raiz.get().obtenerSinContar(valor);
+                raiz.set(raiz.get().insertar(valor, conId(ids != null ? ids : SIN_IDS, id)));
+                versiones.get(campo).incrementAndGet();
+            } else {
+                agregarAlIndice(campo, valor);
+                apariciones.get(campo).computeIfAbsent(valor, v -> new ListaIds()).agregar(id);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Elimina del índice el valor de un contacto concreto. El valor solo se
+     * elimina del árbol cuando ningún otro contacto lo tiene.
+     *
+     * @param campo El nombre del campo indexado
+     * @param valor El valor a eliminar
+     * @param id    El ID del contacto que tenía ese valor
+     */
+    public void eliminarDelIndice(String campo, String valor, int id) {
+        if (!tiposIndice.containsKey(campo) || valor == null)
+            return;
+
+        Lock escritura = bloqueos.get(campo).writeLock();
+        escritura.lock();
+        try {
+            if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+                AtomicReference<ArbolAVLPersistente<String, int[]>> raiz = indicesAVL.get(campo);
+                int[] ids = raiz.get().obtenerSinContar(valor);
+                if (ids == null)
+                    return;
+                int[] restantes = sinId(ids, id);
+                raiz.set(restantes.length > 0 ? raiz.get().insertar(valor, restantes) : raiz.get().eliminar(valor));
+                versiones.get(campo).incrementAndGet();
+                return;
+            }
+
+            Map<String, ListaIds> aparicionesCampo = apariciones.get(campo);
+            ListaIds ids = aparicionesCampo.get(valor);
+            if (ids != null) {
+                ids.eliminar(id);
+                if (!ids.estaVacia())
+                    return;
+                aparicionesCampo.remove(valor);
+            }
+            eliminarDelIndice(campo, valor);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Actualiza el valor de un contacto concreto en el índice.
+     *
+     * @param campo         El nombre del campo indexado
+     * @param valorAnterior El valor anterior del contacto (puede ser null)
+     * @param valorNuevo    El valor nuevo del contacto (puede ser null)
+     * @param id            El ID del contacto
+     */
+    public void actualizarIndice(String campo, String valorAnterior, String valorNuevo, int id) {
+        if (!tiposIndice.containsKey(campo) || Objects.equals(valorAnterior, valorNuevo))
+            return;
+
+        Lock escritura = bloqueos.get(campo).writeLock();
+        escritura.lock();
+        try {
+            if (valorAnterior != null) {
+                eliminarDelIndice(campo, valorAnterior, id);
+            }
+            if (valorNuevo != null) {
+                agregarAlIndice(campo, valorNuevo, id);
+            }
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Agrega un contacto a todos los índices.
+     *
+     * @param valores Valores del contacto por campo (null si el campo está vacío)
+     * @param id      El ID del contacto
+     */
+    public void agregarAIndices(Map<String, String> valores, int id) {
+        paraCadaIndice(campo -> agregarAlIndice(campo, valores.get(campo), id));
+    }
+
+    /**
+     * Elimina un contacto de todos los índices.
+     *
+     * @param valores Valores del contacto por campo (null si el campo está vacío)
+     * @param id      El ID del contacto
+     */
+    public void eliminarDeIndices(Map<String, String> valores, int id) {
+        paraCadaIndice(campo -> eliminarDelIndice(campo, valores.get(campo), id));
+    }
+
+    /**
+     * Actualiza un contacto en todos los índices cuyo valor cambió.
+     *
+     * @param anteriores Valores del contacto antes del cambio
+     * @param nuevos     Valores del contacto después del cambio
+     * @param id         El ID del contacto
+     */
+    public void actualizarIndices(Map<String, String> anteriores, Map<String, String> nuevos, int id) {
+        paraCadaIndice(campo -> actualizarIndice(campo, anteriores.get(campo), nuevos.get(campo), id));
+    }
+
+    /**
+     * Aplica una operación al índice de cada campo, en paralelo si hay
+     * suficientes índices. Las operaciones de campos distintos no comparten
+     * bloqueos, así que no se esperan entre sí.
+     */
+    private void paraCadaIndice(Consumer<String> operacion) {
+        Set<String> campos = camposIndexados;
+        if (campos.size() < UMBRAL_PARALELO) {
+            campos.forEach(operacion);
+        } else {
+            campos.parallelStream().forEach(operacion);
         }
-        if (valorNuevo != null) {
-            agregarAlIndice(campo, valorNuevo);
+    }
+
+    /**
+     * Obtiene los IDs de los contactos que tienen un valor en un campo indexado.
+     *
+     * @param campo El nombre del campo indexado
+     * @param valor El valor buscado
+     * @return Un arreglo ordenado de IDs (vacío si el valor no existe)
+     */
+    public int[] idsDe(String campo, String valor) {
+        if (!tiposIndice.containsKey(campo))
+            return new int[0];
+
+        long inicio = System.nanoTime();
+        if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+            int[] ids = indicesAVL.get(campo).get().obtener(valor);
+            metricas.registrar(MetricasContactos.Operacion.BUSQUEDA_INDICE, inicio);
+            return ids != null ? ids.clone() : new int[0];
+        }
+
+        Lock lectura = bloqueos.get(campo).readLock();
+        lectura.lock();
+        try {
+            ListaIds ids = apariciones.get(campo).get(valor);
+            return ids != null ? ids.aArreglo() : new int[0];
+        } finally {
+            lectura.unlock();
+            metricas.registrar(MetricasContactos.Operacion.BUSQUEDA_INDICE, inicio);
         }
     }
 
+    /**
+     * Obtiene los IDs de los contactos cuyo valor en un campo indexado está en
+     * un rango, recorriendo solo la parte del árbol que cubre el rango.
+     *
+     * @param campo El nombre del campo indexado
+     * @param desde Límite inferior inclusivo (null para no limitar)
+     * @param hasta Límite superior inclusivo (null para no limitar)
+     * @return Un arreglo ordenado de IDs
+     */
+    public int[] idsEnRango(String campo, String desde, String hasta) {
+        if (!tiposIndice.containsKey(campo))
+            return new int[0];
+
+        long inicio = System.nanoTime();
+        if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+            List<int[]> listas = indicesAVL.get(campo).get().valoresEnRango(desde, hasta);
+            metricas.registrar(MetricasContactos.Operacion.BUSQUEDA_INDICE, inicio);
+            return concatenarOrdenado(listas);
+        }
+
+        Lock lectura = bloqueos.get(campo).readLock();
+        lectura.lock();
+        try {
+            Map<String, ListaIds> aparicionesCampo = apariciones.get(campo);
+            List<int[]> listas = new ArrayList<>();
+            for (String valor : indicesBST.get(campo).rango(desde, hasta)) {
+                ListaIds ids = aparicionesCampo.get(valor);
+                if (ids != null) {
+                    listas.add(ids.aArreglo());
+                }
+            }
+            return concatenarOrdenado(listas);
+        } finally {
+            lectura.unlock();
+            metricas.registrar(MetricasContactos.Operacion.BUSQUEDA_INDICE, inicio);
+        }
+    }
+
+    /**
+     * Cuenta los IDs que tiene un valor en un campo indexado sin copiarlos,
+     * para estimar cuántos contactos devolverá una igualdad. No cuenta como
+     * búsqueda en las estadísticas del índice.
+     *
+     * @param campo El nombre del campo indexado
+     * @param valor El valor buscado
+     * @return El número de IDs del valor, o -1 si el campo no tiene índice
+     */
+    public long contarIds(String campo, String valor) {
+        if (!tiposIndice.containsKey(campo))
+            return -1;
+
+        if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+            int[] ids = indicesAVL.get(campo).get().obtenerSinContar(valor);
+            return ids != null ? ids.length : 0;
+        }
+
+        Lock lectura = bloqueos.get(campo).readLock();
+        lectura.lock();
+        try {
+            ListaIds ids = apariciones.get(campo).get(valor);
+            return ids != null ? ids.tamano() : 0;
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * Cuenta los IDs de los valores de un rango en un campo indexado sin
+     * copiarlos, para estimar cuántos contactos devolverá un rango o un
+     * prefijo. Solo se recorre la parte del árbol que cubre el rango.
+     *
+     * @param campo El nombre del campo indexado
+     * @param desde Límite inferior inclusivo (null para no limitar)
+     * @param hasta Límite superior inclusivo (null para no limitar)
+     * @return El número de IDs del rango, o -1 si el campo no tiene índice
+     */
+    public long contarIdsEnRango(String campo, String desde, String hasta) {
+        if (!tiposIndice.containsKey(campo))
+            return -1;
+
+        long[] total = {0};
+        if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+            indicesAVL.get(campo).get().recorrerRango(desde, hasta, ids -> {
+                total[0] += ids.length;
+                return true;
+            });
+            return total[0];
+        }
+
+        Lock lectura = bloqueos.get(campo).readLock();
+        lectura.lock();
+        try {
+            Map<String, ListaIds> aparicionesCampo = apariciones.get(campo);
+            indicesBST.get(campo).recorrerRango(desde, hasta, valor -> {
+                ListaIds ids = aparicionesCampo.get(valor);
+                total[0] += ids != null ? ids.tamano() : 0;
+                return true;
+            });
+            return total[0];
+        } finally {
+            lectura.unlock();
+        }
+    }
+
+    /**
+     * Agrega al índice de un campo los IDs de muchos contactos a la vez, bajo
+     * un único bloqueo de escritura. Los valores se insertan en el orden del
+     * lote, de modo que el árbol queda con la misma forma que si se
+     * insertaran contacto a contacto.
+     *
+     * @param campo       El nombre del campo indexado
+     * @param idsPorValor IDs de los contactos agrupados por valor, en el orden
+     *                    en que deben insertarse (los valores vacíos se
+     *                    ignoran, como en agregarAlIndice)
+     */
+    public void agregarLoteAlIndice(String campo, Map<String, ListaIds> idsPorValor) {
+        if (!tiposIndice.containsKey(campo) || idsPorValor.isEmpty())
+            return;
+
+        long inicio = System.nanoTime();
+        EventosJFR.ConstruccionIndice evento = new EventosJFR.ConstruccionIndice();
+        evento.begin();
+        Lock escritura = bloqueos.get(campo).writeLock();
+        escritura.lock();
+        try {
+            String campoDiccionario = clavesDiccionario.get(campo);
+            if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+                AtomicReference<ArbolAVLPersistente<String, int[]>> raiz = indicesAVL.get(campo);
+                ArbolAVLPersistente<String, int[]> arbol = raiz.get();
+                for (Map.Entry<String, ListaIds> entrada : idsPorValor.entrySet()) {
+                    if (entrada.getKey().isEmpty())
+                        continue;
+                    String valor = diccionario.internar(campoDiccionario, entrada.getKey());
+                    int[] anteriores = arbol.obtenerSinContar(valor);
+                    int[] nuevos = entrada.getValue().aArreglo();
+                    arbol = arbol.insertar(valor, anteriores != null ? ListaIds.union(anteriores, nuevos) : nuevos);
+                }
+                // Los lectores ven el lote completo o nada de él
+                raiz.set(arbol);
+            } else {
+                ArbolBST<String> arbol = indicesBST.get(campo);
+                Map<String, ListaIds> aparicionesCampo = apariciones.get(campo);
+                List<String> restantes = null;
+                for (Map.Entry<String, ListaIds> entrada : idsPorValor.entrySet()) {
+                    if (entrada.getKey().isEmpty())
+                        continue;
+                    String valor = diccionario.internar(campoDiccionario, entrada.getKey());
+                    if (restantes != null) {
+                        restantes.add(valor);
+                    } else {
+                        arbol.insertar(valor);
+                        if (estaDegradado(arbol)) {
+                            restantes = new ArrayList<>();
+                        }
+                    }
+                    ListaIds ids = aparicionesCampo.computeIfAbsent(valor, v -> new ListaIds());
+                    for (int id : entrada.getValue().aArreglo()) {
+                        ids.agregar(id);
+                    }
+                }
+                if (restantes != null) {
+                    // El árbol degeneró a mitad del lote: el resto entra en una única reconstrucción
+                    EventosJFR.RebalanceoIndice rebalanceo = new EventosJFR.RebalanceoIndice();
+                    rebalanceo.begin();
+                    ArbolBST<String> balanceado = arbol.balanceado(restantes);
+                    indicesBST.put(campo, balanceado);
+                    rebalanceo.end();
+                    if (rebalanceo.shouldCommit()) {
+                        rebalanceo.campo = campo;
+                        rebalanceo.claves = balanceado.tamano();
+                        rebalanceo.alturaAnterior = arbol.altura();
+                        rebalanceo.alturaNueva = balanceado.altura();
+                        rebalanceo.commit();
+                    }
+                    alReorganizar.accept(campo);
+                }
+            }
+            versiones.get(campo).incrementAndGet();
+        } finally {
+            escritura.unlock();
+            metricas.registrar(MetricasContactos.Operacion.CONSTRUCCION_INDICE, inicio);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.campo = campo;
+                evento.tipo = tiposIndice.get(campo);
+                evento.valores = idsPorValor.size();
+                evento.claves = "AVL".equalsIgnoreCase(evento.tipo) ? indicesAVL.get(campo).get().tamano()
+                        : indicesBST.get(campo).tamano();
+                evento.commit();
+            }
+        }
+    }
+
+    /**
+     * Elimina del índice de un campo los IDs de muchos contactos a la vez. Cada
+     * valor se modifica una sola vez, y sale del árbol si se queda sin IDs.
+     *
+     * @param campo       El nombre del campo indexado
+     * @param idsPorValor IDs de los contactos a eliminar agrupados por valor
+     */
+    public void eliminarLoteDelIndice(String campo, Map<String, ListaIds> idsPorValor) {
+        if (!tiposIndice.containsKey(campo) || idsPorValor.isEmpty())
+            return;
+
+        Lock escritura = bloqueos.get(campo).writeLock();
+        escritura.lock();
+        try {
+            if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+                AtomicReference<ArbolAVLPersistente<String, int[]>> raiz = indicesAVL.get(campo);
+                ArbolAVLPersistente<String, int[]> arbol = raiz.get();
+                for (Map.Entry<String, ListaIds> entrada : idsPorValor.entrySet()) {
+                    int[] anteriores = arbol.obtenerSinContar(entrada.getKey());
+                    if (anteriores == null)
+                        continue;
+                    int[] restantes = ListaIds.diferencia(anteriores, entrada.getValue().aArreglo());
+                    arbol = restantes.length > 0 ? arbol.insertar(entrada.getKey(), restantes)
+                            : arbol.eliminar(entrada.getKey());
+                }
+                raiz.set(arbol);
+            } else {
+                ArbolBST<String> arbol = indicesBST.get(campo);
+                Map<String, ListaIds> aparicionesCampo = apariciones.get(campo);
+                for (Map.Entry<String, ListaIds> entrada : idsPorValor.entrySet()) {
+                    ListaIds ids = aparicionesCampo.get(entrada.getKey());
+                    if (ids == null)
+                        continue;
+                    for (int id : entrada.getValue().aArreglo()) {
+                        ids.eliminar(id);
+                    }
+                    if (ids.estaVacia()) {
+                        aparicionesCampo.remove(entrada.getKey());
+                        arbol.eliminar(entrada.getKey());
+                    }
+                }
+            }
+            versiones.get(campo).incrementAndGet();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Cambia el múltiplo de la altura óptima a partir del cual un índice BST
+     * se reconstruye balanceado.
+     *
+     * @param factor El nuevo múltiplo (0 o menos desactiva la reconstrucción)
+     */
+    public void setFactorRebalanceo(double factor) {
+        factorRebalanceo = factor;
+    }
+
+    /**
+     * Indica a quién avisar cuando un índice se reorganiza sin que cambien sus
+     * valores, porque su recorrido por niveles sí cambia.
+     *
+     * @param alReorganizar Acción que recibe el campo del índice reorganizado
+     */
+    public void setAlReorganizar(Consumer<String> alReorganizar) {
+        this.alReorganizar = alReorganizar;
+    }
+
+    /**
+     * Indica si la altura de un árbol BST supera el múltiplo configurado de
+     * la óptima. Es O(1): el árbol mantiene su altura y su tamaño.
+     */
+    private boolean estaDegradado(ArbolBST<String> arbol) {
+        double factor = factorRebalanceo;
+        return factor > 0 && arbol.altura() > factor * EstadisticasArbol.alturaOptima(arbol.tamano());
+    }
+
+    /**
+     * Programa la reconstrucción en segundo plano del índice BST de un campo,
+     * salvo que ya haya una pendiente.
+     */
+    private void programarRebalanceo(String campo) {
+        if (rebalanceosPendientes.add(campo)) {
+            CompletableFuture.runAsync(() -> rebalancear(campo));
+        }
+    }
+
+    /**
+     * Construye una copia balanceada del índice BST de un campo con el
+     * bloqueo de lectura y la publica con el de escritura. Si el índice ha
+     * cambiado mientras se construía, la copia se descarta y se vuelve a
+     * empezar mientras el árbol siga degradado.
+     */
+    private void rebalancear(String campo) {
+        try {
+            ReentrantReadWriteLock bloqueo = bloqueos.get(campo);
+            while (true) {
+                EventosJFR.RebalanceoIndice evento = new EventosJFR.RebalanceoIndice();
+                evento.begin();
+                ArbolBST<String> balanceado;
+                int alturaAnterior;
+                long version;
+                bloqueo.readLock().lock();
+                try {
+                    ArbolBST<String> arbol = indicesBST.get(campo);
+                    if (!estaDegradado(arbol))
+                        return;
+                    version = versiones.get(campo).get();
+                    alturaAnterior = arbol.altura();
+                    balanceado = arbol.balanceado();
+                } finally {
+                    bloqueo.readLock().unlock();
+                }
+
+                boolean descartado;
+                bloqueo.writeLock().lock();
+                try {
+                    descartado = versiones.get(campo).get() != version;
+                    if (!descartado) {
+                        indicesBST.put(campo, balanceado);
+                        versiones.get(campo).incrementAndGet();
+                    }
+                } finally {
+                    bloqueo.writeLock().unlock();
+                }
+                evento.end();
+                if (evento.shouldCommit()) {
+                    evento.campo = campo;
+                    evento.claves = balanceado.tamano();
+                    evento.alturaAnterior = alturaAnterior;
+                    evento.alturaNueva = balanceado.altura();
+                    evento.segundoPlano = true;
+                    evento.descartado = descartado;
+                    evento.commit();
+                }
+                if (!descartado) {
+                    alReorganizar.accept(campo);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Error al reconstruir el índice de " + campo + ": " + e.getMessage());
+        } finally {
+            rebalanceosPendientes.remove(campo);
+        }
+    }
+
+    /**
+     * Agrega lotes de contactos a los índices de varios campos, en paralelo si
+     * hay suficientes índices.
+     *
+     * @param idsPorCampo Para cada campo, los IDs de los contactos agrupados por
+     *                    valor
+     */
+    public void agregarLoteAIndices(Map<String, Map<String, ListaIds>> idsPorCampo) {
+        paraCadaIndice(campo -> {
+            Map<String, ListaIds> idsPorValor = idsPorCampo.get(campo);
+            if (idsPorValor != null) {
+                agregarLoteAlIndice(campo, idsPorValor);
+            }
+        });
+    }
+
+    /**
+     * Elimina lotes de contactos de los índices de varios campos, en paralelo
+     * si hay suficientes índices.
+     *
+     * @param idsPorCampo Para cada campo, los IDs de los contactos agrupados por
+     *                    valor
+     */
+    public void eliminarLoteDeIndices(Map<String, Map<String, ListaIds>> idsPorCampo) {
+        paraCadaIndice(campo -> {
+            Map<String, ListaIds> idsPorValor = idsPorCampo.get(campo);
+            if (idsPorValor != null) {
+                eliminarLoteDelIndice(campo, idsPorValor);
+            }
+        });
+    }
+
+    /**
+     * Une listas de IDs disjuntas en un único arreglo ordenado.
+     */
+    private static int[] concatenarOrdenado(List<int[]> listas) {
+        // Cada contacto tiene un único valor por campo: las listas son disjuntas
+        int total = 0;
+        for (int[] ids : listas) {
+            total += ids.length;
+        }
+        int[] resultado = new int[total];
+        int k = 0;
+        for (int[] ids : listas) {
+            System.arraycopy(ids, 0, resultado, k, ids.length);
+            k += ids.length;
+        }
+        Arrays.sort(resultado);
+        return resultado;
+    }
+
+    /**
+     * Devuelve una copia ordenada de los IDs con uno más. Las listas de los
+     * índices AVL no se modifican nunca porque las comparten varias versiones.
+     */
+    private static int[] conId(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0)
+            return ids;
+        pos = -pos - 1;
+        int[] resultado = new int[ids.length + 1];
+        System.arraycopy(ids, 0, resultado, 0, pos);
+        resultado[pos] = id;
+        System.arraycopy(ids, pos, resultado, pos + 1, ids.length - pos);
+        return resultado;
+    }
+
+    /**
+     * Devuelve una copia de los IDs sin el indicado.
+     */
+    private static int[] sinId(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0)
+            return ids;
+        int[] resultado = new int[ids.length - 1];
+        System.arraycopy(ids, 0, resultado, 0, pos);
+        System.arraycopy(ids, pos + 1, resultado, pos, ids.length - pos - 1);
+        return resultado;
+    }
+
+    /**
+     * Indica si existe un índice para el campo.
+     *
+     * @param campo El nombre del campo
+     * @return true si el campo está indexado
+     */
+    public boolean tieneIndice(String campo) {
+        return tiposIndice.containsKey(campo);
+    }
+
     /**
      * Obtiene el conjunto de campos que tienen índices creados.
      *
-     * @return Un conjunto de strings con los nombres de los campos indexados
+     * @return Un conjunto no modificable con los nombres de los campos indexados
      */
     public Set<String> getCamposIndexados() {
-        return new HashSet<>(tiposIndice.keySet());
+        return camposIndexados;
+    }
+
+    /**
+     * Obtiene el campo de contacto de cada índice, resuelto al crearlo. Los
+     * índices sobre nombres que no son campos de contacto no aparecen.
+     *
+     * @return Un mapa no modificable campo indexado -> campo de contacto
+     */
+    public Map<String, CampoContacto> getDescriptores() {
+        return descriptores;
+    }
+
+    /**
+     * Obtiene el número de valores distintos de cada índice.
+     *
+     * @return Un mapa campo -> número de valores, ordenado por campo
+     */
+    public Map<String, Integer> valoresPorIndice() {
+        Map<String, Integer> valores = new TreeMap<>();
+        for (String campo : camposIndexados) {
+            if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+                valores.put(campo, indicesAVL.get(campo).get().tamano());
+                continue;
+            }
+            Lock lectura = bloqueos.get(campo).readLock();
+            lectura.lock();
+            try {
+                valores.put(campo, apariciones.get(campo).size());
+            } finally {
+                lectura.unlock();
+            }
+        }
+        return valores;
+    }
+
+    /**
+     * Obtiene las estadísticas del árbol de un índice: nodos, altura frente a
+     * la óptima, profundidad media, rotaciones y comparaciones por búsqueda.
+     *
+     * @param campo El nombre del campo indexado
+     * @return Las estadísticas del árbol, o null si el campo no tiene índice
+     */
+    public EstadisticasArbol estadisticas(String campo) {
+        if (!tiposIndice.containsKey(campo))
+            return null;
+
+        if ("AVL".equalsIgnoreCase(tiposIndice.get(campo))) {
+            return indicesAVL.get(campo).get().estadisticas();
+        }
+
+        Lock lectura = bloqueos.get(campo).readLock();
+        lectura.lock();
+        try {
+            return indicesBST.get(campo).estadisticas();
+        } finally {
+            lectura.unlock();
+        }
     }
 
     /**
@@ -173,9 +1028,35 @@ public class GestionIndices {
         return tiposIndice.getOrDefault(campo, "N/A");
     }
 
+    /**
+     * Congela el recorrido por niveles de todos los índices para escribirlo
+     * más tarde desde otro hilo. De un índice AVL basta con guardar su raíz
+     * vigente, que ya no cambia, y el recorrido se calcula al pedirlo; de un
+     * índice BST, que se modifica en el sitio, se copia el recorrido con el
+     * bloqueo de lectura de su campo.
+     *
+     * @return Para cada archivo de índice ("campo-tipo.txt"), el proveedor de
+     *         su recorrido por niveles congelado
+     */
+    public Map<String, Supplier<List<String>>> instantanea() {
+        Map<String, Supplier<List<String>>> recorridos = new LinkedHashMap<>();
+        for (Map.Entry<String, String> indice : tiposIndice.entrySet()) {
+            String campo = indice.getKey();
+            String archivo = campo + "-" + indice.getValue().toLowerCase() + ".txt";
+            if ("AVL".equalsIgnoreCase(indice.getValue())) {
+                recorridos.put(archivo, indicesAVL.get(campo).get()::recorridoPorNivel);
+            } else {
+                List<String> recorrido = recorridoPorNivel(campo);
+                recorridos.put(archivo, () -> recorrido);
+            }
+        }
+        return recorridos;
+    }
+
     /**
      * Guarda los índices en archivos de texto.
-     * Cada índice se guarda en un archivo con formato "campo-tipo.txt".
+     * Cada índice se guarda en un archivo con formato "campo-tipo.txt", que
+     * se sustituye de forma atómica.
      *
      * @throws IOException Si ocurre un error al escribir los archivos
      */
@@ -186,11 +1067,21 @@ public class GestionIndices {
             // Cambiar la ruta para guardar en la carpeta 'src/reportes'
             String archivoCompleto = "reportes/" + archivo;
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(archivoCompleto))) {
-                List<String> valores = recorridoPorNivel(campo);
+            EventosJFR.GuardadoIndice evento = new EventosJFR.GuardadoIndice();
+            evento.begin();
+            List<String> valores = recorridoPorNivel(campo);
+            EscritorPersistencia.escribirAtomicamente(Paths.get(archivoCompleto), writer -> {
                 if (!valores.isEmpty()) {
                     writer.write(String.join(CSV_SEPARATOR, valores));
                 }
+            });
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.campo = campo;
+                evento.tipo = tipo;
+                evento.claves = valores.size();
+                evento.bytes = new File(archivoCompleto).length();
+                evento.commit();
             }
         }
     }
@@ -209,15 +1100,27 @@ public class GestionIndices {
 
             crearIndice(campo, tipo);
 
-            try (BufferedReader reader = new BufferedReader(new FileReader(archivo))) {
+            EventosJFR.CargaIndice evento = new EventosJFR.CargaIndice();
+            evento.begin();
+            long claves = 0;
+            try (BufferedReader reader = new BufferedReader(new FileReader(archivo, EscritorPersistencia.CODIFICACION))) {
                 String linea = reader.readLine();
                 if (linea != null && !linea.isEmpty()) {
                     String[] valores = linea.split(CSV_SEPARATOR);
                     for (String valor : valores) {
                         agregarAlIndice(campo, valor);
                     }
+                    claves = valores.length;
                 }
             }
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.campo = campo;
+                evento.tipo = tipo;
+                evento.claves = claves;
+                evento.bytes = new File(archivo).length();
+                evento.commit();
+            }
         }
     }
 }
\ No newline at end of file
@@ -1,7 +1,14 @@
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntToLongFunction;
+import java.util.function.Predicate;
 
 /**
  * Clase que gestiona la colección de contactos y sus operaciones.
@@ -11,12 +18,50 @@ import java.util.*;
  * para la gestión de contactos, así como la indexación de campos mediante
  * estructuras de datos jerárquicas (árboles BST o AVL).
  *
+ * Es segura para varios hilos: las consultas se ejecutan en paralelo bajo el
+ * bloqueo de lectura de un StampedLock y las modificaciones toman el bloqueo
+ * de escritura. Al agregar, eliminar o actualizar un contacto suelto solo se
+ * modifica el almacén con ese bloqueo; sus índices se actualizan después,
+ * sin él, de modo que los cambios de contactos distintos solo compiten por
+ * el bloqueo de cada campo indexado. Los cambios de un mismo contacto se
+ * aplican a los índices en el mismo orden que al almacén, y las consultas
+ * que combinan índices y almacén, como las operaciones por lotes, esperan a
+ * que los índices estén al día.
+ *
+ * Los cambios se guardan en disco desde el hilo de un EscritorPersistencia:
+ * las modificaciones devuelven un futuro que se completa cuando el cambio ya
+ * está en el archivo.
+ *
+ * Las latencias de las operaciones, los bytes escritos y los tamaños se
+ * registran en un MetricasContactos que se publica por JMX mientras el
+ * gestor está abierto.
+ *
  */
-public class GestorContactos {
-    private List<Contacto> contactos;
+public class GestorContactos implements ServicioContactos {
+    private AlmacenContactos contactos;
+    private String archivo;
     private GestionIndices gestionIndices;
     private int siguienteId;
-    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private CacheConsultas cache;
+    private MotorConsultas motorConsultas;
+    private BusquedaParalela busquedaParalela;
+    private DiccionarioCadenas diccionario;
+    private EscritorPersistencia escritor;
+    private MetricasContactos metricas;
+    private volatile SeguidorCSV seguidor;
+    private final StampedLock bloqueo = new StampedLock();
+    // Cambios sueltos cuyos índices se actualizan fuera del bloqueo: el último
+    // de cada contacto y cuántos quedan en total
+    private final Map<Integer, CompletableFuture<Void>> indexando = new ConcurrentHashMap<>();
+    private final AtomicInteger cambiosIndicesPendientes = new AtomicInteger();
+    private final Object indicesAlDia = new Object();
+    private volatile int esperandoIndices;
+    /**
+     * Valor del ID en agregarContacto() para asignar el siguiente ID libre.
+     */
+    public static final int ID_SIGUIENTE = -1;
+    private static final int PESO_MAXIMO_CACHE = 100_000;
+    private static final int CAPACIDAD_COLA_ESCRITURA = 1024;
 
     /**
      * Constructor de la clase GestorContactos.
@@ -24,10 +69,33 @@ public class GestorContactos {
      * desde el archivo CSV por defecto.
      */
     public GestorContactos() {
-        contactos = new ArrayList<>();
-        gestionIndices = new GestionIndices();
+        this("contacts.csv", false);
+    }
+
+    /**
+     * Constructor de la clase GestorContactos con archivo y representación en
+     * memoria configurables.
+     *
+     * @param archivo         Archivo CSV desde el que se cargan y en el que se
+     *                        guardan los contactos
+     * @param almacenColumnar true para guardar los contactos por columnas
+     *                        (AlmacenColumnar), false para usar una lista de
+     *                        objetos
+     */
+    public GestorContactos(String archivo, boolean almacenColumnar) {
+        this.archivo = archivo;
+        diccionario = new DiccionarioCadenas();
+        contactos = almacenColumnar ? new AlmacenColumnar(diccionario) : new AlmacenLista(diccionario);
+        metricas = new MetricasContactos(this::cantidadContactos, () -> gestionIndices.valoresPorIndice());
+        gestionIndices = new GestionIndices(diccionario, metricas);
+        cache = new CacheConsultas(PESO_MAXIMO_CACHE);
+        gestionIndices.setAlReorganizar(cache::invalidarRecorrido);
+        motorConsultas = new MotorConsultas(gestionIndices, contactos);
+        busquedaParalela = new BusquedaParalela();
         siguienteId = 1;
-        importarContactosDesdeCSV("contacts.csv");
+        importarContactosDesdeCSV(archivo);
+        escritor = new EscritorPersistencia(archivo, CAPACIDAD_COLA_ESCRITURA, this::instantaneaContactos, metricas);
+        metricas.publicar(archivo);
     }
 
     /**
@@ -38,15 +106,18 @@ public class GestorContactos {
      *                  etc.)
      * @param tipoArbol Tipo de árbol a utilizar ("BST" o "AVL")
      */
+    @Override
     public void crearIndice(String campo, String tipoArbol) {
-        gestionIndices.crearIndice(campo, tipoArbol);
+        long stamp = bloqueo.writeLock();
+        try {
+            esperarIndices();
+            gestionIndices.crearIndice(campo, tipoArbol);
 
-        // Reindexar contactos existentes
-        for (Contacto contacto : contactos) {
-            Object valorObj = contacto.getCampo(campo);
-            if (valorObj != null) {
-                gestionIndices.agregarAlIndice(campo, valorObj.toString());
-            }
+            // Reindexar contactos existentes
+            indexarCampo(campo);
+            cache.invalidarCampo(campo);
+        } finally {
+            bloqueo.unlockWrite(stamp);
         }
     }
 
@@ -61,28 +132,76 @@ public class GestorContactos {
      *                        válido)
      * @param direccion       Dirección del contacto
      * @param fechaNacimiento Fecha de nacimiento del contacto
+     * @return Un futuro que se completa con el ID asignado cuando el contacto
+     *         está guardado en disco, o de forma excepcional con
+     *         IllegalArgumentException si el email no es válido
+     */
+    @Override
+    public CompletableFuture<Integer> agregarContacto(String nombre, String apellido, String apodo, String telefono,
+                                                      String email, String direccion, LocalDate fechaNacimiento) {
+        return agregarContacto(ID_SIGUIENTE, nombre, apellido, apodo, telefono, email, direccion, fechaNacimiento);
+    }
+
+    /**
+     * Agrega un nuevo contacto con un ID elegido por quien llama, por ejemplo
+     * un GestorContactosParticionado que asigna los IDs de todas sus
+     * particiones.
+     *
+     * @param id              ID del contacto, o ID_SIGUIENTE para asignar el
+     *                        siguiente libre
+     * @param nombre          Nombre del contacto
+     * @param apellido        Apellido del contacto
+     * @param apodo           Apodo del contacto
+     * @param telefono        Número de teléfono del contacto
+     * @param email           Correo electrónico del contacto (debe tener un formato
+     *                        válido)
+     * @param direccion       Dirección del contacto
+     * @param fechaNacimiento Fecha de nacimiento del contacto
+     * @return Un futuro que se completa con el ID del contacto cuando está
+     *         guardado en disco, o de forma excepcional con
+     *         IllegalArgumentException si el email no es válido o el ID ya
+     *         existe
      */
-    public void agregarContacto(String nombre, String apellido, String apodo, String telefono,
-                                String email, String direccion, LocalDate fechaNacimiento) {
+    public CompletableFuture<Integer> agregarContacto(int id, String nombre, String apellido, String apodo,
+                                                      String telefono, String email, String direccion,
+                                                      LocalDate fechaNacimiento) {
         if (!validarEmail(email)) {
             System.out.println("Email inválido. No se agregó el contacto.");
-            return;
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Email inválido: " + email));
         }
 
-        Contacto nuevo = new Contacto(siguienteId, nombre, apellido, apodo, telefono,
-                email, direccion, fechaNacimiento);
-        contactos.add(nuevo);
-
-        // Actualizar índices
-        for (String campo : gestionIndices.getCamposIndexados()) {
-            Object valorObj = nuevo.getCampo(campo);
-            if (valorObj != null) {
-                gestionIndices.agregarAlIndice(campo, valorObj.toString());
+        long inicio = System.nanoTime();
+        Map<String, String> valores;
+        CambioIndices cambio;
+        long stamp = bloqueo.writeLock();
+        try {
+            if (id == ID_SIGUIENTE) {
+                id = siguienteId;
+            } else if (contactos.buscarPorId(id) != null) {
+                System.out.println("Ya existe un contacto con ID " + id + ". No se agregó el contacto.");
+                return CompletableFuture.failedFuture(new IllegalArgumentException("ID repetido: " + id));
             }
+            Contacto nuevo = new Contacto(id, diccionario.internar("nombre", nombre),
+                    diccionario.internar("apellido", apellido), diccionario.internar("apodo", apodo),
+                    diccionario.internar("telefono", telefono), diccionario.internar("email", email),
+                    diccionario.internar("direccion", direccion), fechaNacimiento);
+            contactos.agregar(nuevo);
+            valores = valoresCacheables(nuevo);
+            siguienteId = Math.max(siguienteId, id + 1);
+            cambio = new CambioIndices(id);
+        } finally {
+            bloqueo.unlockWrite(stamp);
         }
 
-        siguienteId++;
-        guardarContactosEnCSV("contacts.csv");
+        // Actualizar índices
+        int asignado = id;
+        cambio.aplicar(() -> {
+            gestionIndices.agregarAIndices(valores, asignado);
+            invalidarCache(valores);
+        });
+        metricas.registrar(MetricasContactos.Operacion.ALTA, inicio);
+        // Fuera del bloqueo: si la cola está llena se espera sin frenar a los lectores
+        return escritor.registrarCambio("alta del contacto " + asignado).thenApply(v -> asignado);
     }
 
     /**
@@ -90,29 +209,35 @@ public class GestorContactos {
      * correspondientes.
      *
      * @param id ID del contacto a eliminar
-     * @return true si el contacto fue eliminado exitosamente, false si no se
-     *         encontró
-     */
-    public boolean eliminarContacto(int id) {
-        Contacto contactoAEliminar = contactos.stream()
-                .filter(c -> c.getId() == id)
-                .findFirst()
-                .orElse(null);
-
-        if (contactoAEliminar != null) {
-            // Eliminar de los índices
-            for (String campo : gestionIndices.getCamposIndexados()) {
-                Object valorObj = contactoAEliminar.getCampo(campo);
-                if (valorObj != null) {
-                    gestionIndices.eliminarDelIndice(campo, valorObj.toString());
-                }
-            }
+     * @return Un futuro que se completa con true cuando la baja está guardada
+     *         en disco (ya completado con false si el contacto no existe)
+     */
+    @Override
+    public CompletableFuture<Boolean> eliminarContacto(int id) {
+        long inicio = System.nanoTime();
+        Map<String, String> valores;
+        CambioIndices cambio;
+        long stamp = bloqueo.writeLock();
+        try {
+            Contacto contactoAEliminar = contactos.buscarPorId(id);
 
-            contactos.remove(contactoAEliminar);
-            guardarContactosEnCSV("contacts.csv");
-            return true;
+            if (contactoAEliminar == null)
+                return CompletableFuture.completedFuture(false);
+
+            valores = valoresCacheables(contactoAEliminar);
+            contactos.eliminar(id);
+            cambio = new CambioIndices(id);
+        } finally {
+            bloqueo.unlockWrite(stamp);
         }
-        return false;
+
+        // Eliminar de los índices
+        cambio.aplicar(() -> {
+            gestionIndices.eliminarDeIndices(valores, id);
+            invalidarCache(valores);
+        });
+        metricas.registrar(MetricasContactos.Operacion.BAJA, inicio);
+        return escritor.registrarCambio("baja del contacto " + id).thenApply(v -> true);
     }
 
     /**
@@ -127,108 +252,314 @@ public class GestorContactos {
      * @param email           Nuevo email del contacto (debe tener formato válido)
      * @param direccion       Nueva dirección del contacto
      * @param fechaNacimiento Nueva fecha de nacimiento del contacto
+     * @return Un futuro que se completa con true cuando el cambio está guardado
+     *         en disco (ya completado con false si el contacto no existe)
      */
-    public void actualizarContacto(int id, String nombre, String apellido, String apodo,
-                                   String telefono, String email, String direccion, LocalDate fechaNacimiento) {
-        Contacto contacto = contactos.stream()
-                .filter(c -> c.getId() == id)
-                .findFirst()
-                .orElse(null);
-
-        if (contacto != null) {
-            // Actualizar índices
-            for (String campo : gestionIndices.getCamposIndexados()) {
-                Object valorAnterior = contacto.getCampo(campo);
-                Object valorNuevo = switch (campo.toLowerCase()) {
-                    case "nombre" -> nombre;
-                    case "apellido" -> apellido;
-                    case "apodo" -> apodo;
-                    case "telefono" -> telefono;
-                    case "email" -> email;
-                    case "direccion" -> direccion;
-                    case "fechanacimiento" -> fechaNacimiento.format(FORMATO_FECHA);
-                    default -> valorAnterior;
-                };
-                if (valorAnterior != null && valorNuevo != null) {
-                    gestionIndices.actualizarIndice(campo, valorAnterior.toString(),
-                            valorNuevo.toString());
-                }
-            }
+    @Override
+    public CompletableFuture<Boolean> actualizarContacto(int id, String nombre, String apellido, String apodo,
+                                                         String telefono, String email, String direccion,
+                                                         LocalDate fechaNacimiento) {
+        long inicio = System.nanoTime();
+        Map<String, String> valoresAnteriores;
+        Map<String, String> valoresNuevos;
+        CambioIndices cambio;
+        long stamp = bloqueo.writeLock();
+        try {
+            Contacto guardado = contactos.buscarPorId(id);
+
+            if (guardado == null)
+                return CompletableFuture.completedFuture(false);
+
+            valoresAnteriores = valoresCacheables(guardado);
+            Contacto contacto = guardado.copia();
 
-            contacto.setNombre(nombre);
-            contacto.setApellido(apellido);
-            contacto.setApodo(apodo);
-            contacto.setTelefono(telefono);
+            contacto.setNombre(diccionario.internar("nombre", nombre));
+            contacto.setApellido(diccionario.internar("apellido", apellido));
+            contacto.setApodo(diccionario.internar("apodo", apodo));
+            contacto.setTelefono(diccionario.internar("telefono", telefono));
             if (validarEmail(email)) {
-                contacto.setEmail(email);
+                contacto.setEmail(diccionario.internar("email", email));
             } else {
                 System.out.println("Email inválido. Se mantuvo el anterior.");
             }
-            contacto.setDireccion(direccion);
+            contacto.setDireccion(diccionario.internar("direccion", direccion));
             contacto.setFechaNacimiento(fechaNacimiento);
-
-            guardarContactosEnCSV("contacts.csv");
+            contactos.actualizar(contacto);
+            valoresNuevos = valoresCacheables(contacto);
+            cambio = new CambioIndices(id);
+        } finally {
+            bloqueo.unlockWrite(stamp);
         }
+
+        // Actualizar índices con los valores que realmente quedaron guardados
+        cambio.aplicar(() -> {
+            gestionIndices.actualizarIndices(valoresAnteriores, valoresNuevos, id);
+            invalidarCambios(valoresAnteriores, valoresNuevos);
+        });
+        metricas.registrar(MetricasContactos.Operacion.ACTUALIZACION, inicio);
+        return escritor.registrarCambio("actualización del contacto " + id).thenApply(v -> true);
     }
 
     /**
-     * Muestra todos los contactos almacenados en la lista.
+     * Agrega varios contactos en una sola operación. Primero se validan todos;
+     * si alguno no es válido no se agrega ninguno. Los índices se actualizan
+     * por lotes y el archivo se reescribe una sola vez.
+     *
+     * @param nuevos Contactos a agregar (su ID se ignora y se asigna uno nuevo)
+     * @return Un futuro que se completa con los IDs asignados, en el mismo orden,
+     *         cuando los contactos están guardados en disco, o de forma
+     *         excepcional con IllegalArgumentException si el lote no es válido
      */
-    public void visualizarContactos() {
-        if (contactos.isEmpty()) {
-            System.out.println("No hay contactos almacenados.");
-        } else {
-            System.out.println("Lista de contactos:");
-            contactos.forEach(System.out::println);
+    public CompletableFuture<List<Integer>> agregarContactos(List<Contacto> nuevos) {
+        for (int i = 0; i < nuevos.size(); i++) {
+            if (!validarEmail(nuevos.get(i).getEmail())) {
+                String mensaje = "Email inválido en el contacto " + (i + 1) + " del lote: "
+                        + nuevos.get(i).getEmail();
+                System.out.println(mensaje + ". No se agregó ningún contacto.");
+                return CompletableFuture.failedFuture(new IllegalArgumentException(mensaje));
+            }
+        }
+        if (nuevos.isEmpty())
+            return CompletableFuture.completedFuture(Collections.emptyList());
+
+        long inicio = System.nanoTime();
+        List<Integer> ids = new ArrayList<>(nuevos.size());
+        long stamp = bloqueo.writeLock();
+        try {
+            esperarIndices();
+            List<Contacto> agregados = new ArrayList<>(nuevos.size());
+            for (Contacto datos : nuevos) {
+                Contacto nuevo = new Contacto(siguienteId++, diccionario.internar("nombre", datos.getNombre()),
+                        diccionario.internar("apellido", datos.getApellido()),
+                        diccionario.internar("apodo", datos.getApodo()),
+                        diccionario.internar("telefono", datos.getTelefono()),
+                        diccionario.internar("email", datos.getEmail()),
+                        diccionario.internar("direccion", datos.getDireccion()), datos.getFechaNacimiento());
+                contactos.agregar(nuevo);
+                agregados.add(nuevo);
+                ids.add(nuevo.getId());
+            }
+
+            gestionIndices.agregarLoteAIndices(agruparPorCampo(agregados));
+            for (Contacto nuevo : agregados) {
+                invalidarCache(nuevo);
+            }
+        } finally {
+            bloqueo.unlockWrite(stamp);
         }
+        metricas.registrar(MetricasContactos.Operacion.ALTA, inicio);
+        return escritor.registrarCambio("alta de " + ids.size() + " contactos").thenApply(v -> ids);
     }
 
     /**
-     * Muestra el recorrido por niveles de un índice específico y lo guarda en un
-     * archivo.
+     * Actualiza varios contactos en una sola operación. Cada contacto del lote
+     * sustituye todos los datos del contacto con su mismo ID. Primero se
+     * validan todos; si alguno no existe, está repetido o tiene un email no
+     * válido, no se actualiza ninguno.
      *
-     * @param campo Nombre del campo indexado a mostrar
+     * @param cambios Contactos con los datos nuevos
+     * @return Un futuro que se completa con el número de contactos actualizados
+     *         cuando los cambios están guardados en disco, o de forma
+     *         excepcional con IllegalArgumentException si el lote no es válido
      */
-    public void mostrarRecorridoPorNivel(String campo) {
-        List<String> recorrido = gestionIndices.recorridoPorNivel(campo);
+    public CompletableFuture<Integer> actualizarContactos(List<Contacto> cambios) {
+        if (cambios.isEmpty())
+            return CompletableFuture.completedFuture(0);
 
-        if (recorrido != null && !recorrido.isEmpty()) {
-            System.out.println("Recorrido por niveles del índice '" + campo + "':");
+        long inicio = System.nanoTime();
+        long stamp = bloqueo.writeLock();
+        try {
+            esperarIndices();
+            String error = validarActualizaciones(cambios);
+            if (error != null) {
+                System.out.println(error + ". No se actualizó ningún contacto.");
+                return CompletableFuture.failedFuture(new IllegalArgumentException(error));
+            }
 
-            // Crear un mapa para relacionar los valores del campo con sus IDs
-            Map<String, List<Integer>> valoresAIds = new HashMap<>();
+            Map<String, Map<String, ListaIds>> quitar = new HashMap<>();
+            Map<String, Map<String, ListaIds>> poner = new HashMap<>();
+            Set<String> camposIndexados = gestionIndices.getCamposIndexados();
 
-            // Poblar el mapa con los valores del campo y sus IDs correspondientes
-            for (Contacto contacto : contactos) {
-                Object valorObj = contacto.getCampo(campo);
-                if (valorObj != null) {
-                    String valor = valorObj.toString();
-                    if (!valoresAIds.containsKey(valor)) {
-                        valoresAIds.put(valor, new ArrayList<>());
+            for (Contacto datos : cambios) {
+                Contacto contacto = contactos.buscarPorId(datos.getId()).copia();
+                Map<String, String> valoresAnteriores = valoresCacheables(contacto);
+
+                for (CampoContacto campo : CampoContacto.values()) {
+                    if (campo.esTexto()) {
+                        campo.asignar(contacto, diccionario.internar(campo.getNombre(), campo.texto(datos)));
+                    }
+                }
+                contacto.setFechaNacimiento(datos.getFechaNacimiento());
+                contactos.actualizar(contacto);
+
+                Map<String, String> valoresNuevos = valoresCacheables(contacto);
+                for (String campo : camposIndexados) {
+                    String anterior = valoresAnteriores.get(campo);
+                    String nuevo = valoresNuevos.get(campo);
+                    if (Objects.equals(anterior, nuevo))
+                        continue;
+                    if (anterior != null) {
+                        agrupar(quitar, campo, anterior, contacto.getId());
+                    }
+                    if (nuevo != null) {
+                        agrupar(poner, campo, nuevo, contacto.getId());
                     }
-                    valoresAIds.get(valor).add(contacto.getId());
                 }
+                invalidarCambios(valoresAnteriores, valoresNuevos);
             }
 
-            // Construir la cadena de IDs para el recorrido por nivel
-            StringBuilder resultado = new StringBuilder();
-            boolean primero = true;
+            gestionIndices.eliminarLoteDeIndices(quitar);
+            gestionIndices.agregarLoteAIndices(poner);
+        } finally {
+            bloqueo.unlockWrite(stamp);
+        }
+        metricas.registrar(MetricasContactos.Operacion.ACTUALIZACION, inicio);
+        return escritor.registrarCambio("actualización de " + cambios.size() + " contactos")
+                .thenApply(v -> cambios.size());
+    }
 
-            for (String valor : recorrido) {
-                if (!primero) {
-                    resultado.append(",");
+    /**
+     * Elimina varios contactos en una sola operación. Los IDs que no existen se
+     * ignoran.
+     *
+     * @param ids IDs de los contactos a eliminar
+     * @return Un futuro que se completa con el número de contactos eliminados
+     *         cuando los cambios están guardados en disco
+     */
+    public CompletableFuture<Integer> eliminarContactos(Collection<Integer> ids) {
+        long inicio = System.nanoTime();
+        int eliminados;
+        long stamp = bloqueo.writeLock();
+        try {
+            esperarIndices();
+            List<Contacto> aEliminar = new ArrayList<>();
+            for (int id : new LinkedHashSet<>(ids)) {
+                Contacto contacto = contactos.buscarPorId(id);
+                if (contacto != null) {
+                    aEliminar.add(contacto);
                 }
-                primero = false;
+            }
+            if (aEliminar.isEmpty())
+                return CompletableFuture.completedFuture(0);
+
+            gestionIndices.eliminarLoteDeIndices(agruparPorCampo(aEliminar));
+            List<Integer> idsEliminar = new ArrayList<>(aEliminar.size());
+            for (Contacto contacto : aEliminar) {
+                idsEliminar.add(contacto.getId());
+            }
+            eliminados = contactos.eliminarTodos(idsEliminar);
+            for (Contacto contacto : aEliminar) {
+                invalidarCache(contacto);
+            }
+        } finally {
+            bloqueo.unlockWrite(stamp);
+        }
+        metricas.registrar(MetricasContactos.Operacion.BAJA, inicio);
+        return escritor.registrarCambio("baja de " + eliminados + " contactos").thenApply(v -> eliminados);
+    }
+
+    /**
+     * Comprueba un lote de actualizaciones antes de aplicar ninguna.
+     *
+     * @param cambios Contactos con los datos nuevos
+     * @return La descripción del primer problema encontrado, o null si el lote
+     *         es válido
+     */
+    private String validarActualizaciones(List<Contacto> cambios) {
+        Set<Integer> vistos = new HashSet<>();
+        for (int i = 0; i < cambios.size(); i++) {
+            Contacto datos = cambios.get(i);
+            if (!vistos.add(datos.getId())) {
+                return "El contacto " + datos.getId() + " aparece más de una vez en el lote";
+            }
+            if (contactos.buscarPorId(datos.getId()) == null) {
+                return "No existe el contacto " + datos.getId();
+            }
+            if (!validarEmail(datos.getEmail())) {
+                return "Email inválido en el contacto " + datos.getId() + ": " + datos.getEmail();
+            }
+        }
+        return null;
+    }
 
-                if (valor != null && valoresAIds.containsKey(valor) && !valoresAIds.get(valor).isEmpty()) {
-                    // Mostrar el ID del contacto correspondiente a este valor
-                    resultado.append(valoresAIds.get(valor).get(0));
-                } else {
-                    resultado.append("null");
+    /**
+     * Agrupa los valores de varios contactos por campo indexado y valor, en el
+     * formato que esperan las operaciones por lotes de GestionIndices.
+     *
+     * @param lote Contactos a agrupar
+     * @return Para cada campo indexado, los IDs de los contactos por valor
+     */
+    private Map<String, Map<String, ListaIds>> agruparPorCampo(List<Contacto> lote) {
+        Map<String, Map<String, ListaIds>> idsPorCampo = new HashMap<>();
+        for (Map.Entry<String, CampoContacto> indice : gestionIndices.getDescriptores().entrySet()) {
+            CampoContacto descriptor = indice.getValue();
+            for (Contacto contacto : lote) {
+                String valor = descriptor.texto(contacto);
+                if (valor != null) {
+                    agrupar(idsPorCampo, indice.getKey(), valor, contacto.getId());
                 }
             }
+        }
+        return idsPorCampo;
+    }
+
+    private static void agrupar(Map<String, Map<String, ListaIds>> idsPorCampo, String campo, String valor, int id) {
+        // LinkedHashMap: el orden de primera aparición es el que determina la forma de un BST
+        idsPorCampo.computeIfAbsent(campo, c -> new LinkedHashMap<>())
+                .computeIfAbsent(valor, v -> new ListaIds()).agregar(id);
+    }
+
+    /**
+     * Muestra todos los contactos almacenados en la lista.
+     */
+    public void visualizarContactos() {
+        long stamp = bloqueo.readLock();
+        try {
+            if (contactos.estaVacio()) {
+                System.out.println("No hay contactos almacenados.");
+            } else {
+                System.out.println("Lista de contactos:");
+                contactos.forEach(System.out::println);
+            }
+        } finally {
+            bloqueo.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene el número de contactos almacenados. Usa una lectura optimista
+     * del StampedLock, sin bloquear, y solo toma el bloqueo de lectura si una
+     * escritura se ha cruzado con ella.
+     *
+     * @return El número de contactos
+     */
+    @Override
+    public int cantidadContactos() {
+        long stamp = bloqueo.tryOptimisticRead();
+        int cantidad = contactos.tamano();
+        if (!bloqueo.validate(stamp)) {
+            stamp = bloqueo.readLock();
+            try {
+                cantidad = contactos.tamano();
+            } finally {
+                bloqueo.unlockRead(stamp);
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Muestra el recorrido por niveles de un índice específico y lo guarda en un
+     * archivo.
+     *
+     * @param campo Nombre del campo indexado a mostrar
+     */
+    public void mostrarRecorridoPorNivel(String campo) {
+        String idsPorNivel = recorridoPorNivel(campo);
 
-            System.out.println(resultado.toString());
+        if (idsPorNivel != null) {
+            System.out.println("Recorrido por niveles del índice '" + campo + "':");
+            System.out.println(idsPorNivel);
 
             // Guardar el recorrido por niveles en archivos específicos
             // según el tipo de estructura (AVL o BST)
@@ -244,8 +575,9 @@ public class GestorContactos {
                     directorioReportes.mkdirs();
                 }
 
-                try (BufferedWriter writer = new BufferedWriter(new FileWriter(nombreArchivoCompleto))) {
-                    writer.write(resultado.toString());
+                try (BufferedWriter writer = new BufferedWriter(new FileWriter(nombreArchivoCompleto,
+                        EscritorPersistencia.CODIFICACION))) {
+                    writer.write(idsPorNivel);
                     System.out.println("Recorrido por niveles (IDs) guardado en el archivo: " + nombreArchivoCompleto);
                 } catch (IOException e) {
                     System.out.println("Error al guardar el recorrido por niveles: " + e.getMessage());
@@ -256,69 +588,562 @@ public class GestorContactos {
         }
     }
 
+    /**
+     * Obtiene el recorrido por niveles de un índice como IDs separados por
+     * comas, sin mostrarlo ni guardarlo en archivo.
+     *
+     * @param campo Nombre del campo indexado
+     * @return Los IDs del recorrido, o null si no hay índice o está vacío
+     */
+    @Override
+    public String recorridoPorNivel(String campo) {
+        String idsPorNivel = (String) cache.obtener(CacheConsultas.TipoConsulta.RECORRIDO, campo, null);
+
+        if (idsPorNivel == null) {
+            // El recorrido sale de una instantánea del índice, sin bloquear a los escritores;
+            // solo se guarda en caché si el índice no ha cambiado mientras se calculaba
+            long version = gestionIndices.version(campo);
+            List<String> recorrido = gestionIndices.recorridoPorNivelIds(campo);
+            if (!recorrido.isEmpty()) {
+                idsPorNivel = String.join(",", recorrido);
+                cache.guardar(CacheConsultas.TipoConsulta.RECORRIDO, campo, null, idsPorNivel,
+                        recorrido.size(), () -> gestionIndices.version(campo) == version);
+            }
+        }
+        return idsPorNivel;
+    }
+
     /**
      * Exporta todos los contactos a un archivo CSV en la ruta especificada.
      *
      * @param rutaExportar Ruta del archivo CSV donde se exportarán los contactos
      */
     public void exportarContactos(String rutaExportar) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(rutaExportar))) {
-            for (Contacto contacto : contactos) {
-                writer.write(contacto.toCSV());
+        EventosJFR.Exportacion evento = new EventosJFR.Exportacion();
+        evento.begin();
+        long filas = 0;
+        long stamp = bloqueo.readLock();
+        try {
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(rutaExportar, EscritorPersistencia.CODIFICACION))) {
+                // La importación descarta la primera línea
+                writer.write(Contacto.CABECERA_CSV);
                 writer.newLine();
+                for (Contacto contacto : contactos) {
+                    writer.write(contacto.toCSV());
+                    writer.newLine();
+                    filas++;
+                }
+            }
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.archivo = rutaExportar;
+                evento.filas = filas;
+                evento.bytes = new File(rutaExportar).length();
+                evento.commit();
             }
             System.out.println("Contactos exportados correctamente a " + rutaExportar);
         } catch (IOException e) {
             System.out.println("Error al exportar contactos: " + e.getMessage());
+        } finally {
+            bloqueo.unlockRead(stamp);
         }
     }
 
     /**
-     * Guarda la lista de contactos en un archivo CSV.
+     * Obtiene una instantánea de los contactos para que el escritor la
+     * guarde. El bloqueo de lectura solo se toma mientras se congela el
+     * almacén, que no copia nada; formatear y escribir el archivo se hace ya
+     * sin bloqueo.
      *
-     * @param archivo Ruta del archivo CSV donde se guardarán los contactos
+     * @return Los contactos congelados
      */
-    private void guardarContactosEnCSV(String archivo) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(archivo))) {
-            for (Contacto contacto : contactos) {
-                writer.write(contacto.toCSV());
-                writer.newLine();
+    private List<Contacto> instantaneaContactos() {
+        long stamp = bloqueo.readLock();
+        try {
+            return contactos.instantanea();
+        } finally {
+            bloqueo.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Guarda en segundo plano una instantánea consistente de los contactos y
+     * de todos los índices en un directorio. Solo se bloquea a los escritores
+     * mientras se congelan el almacén y los índices; las modificaciones que
+     * lleguen después se siguen aceptando y no aparecen en la instantánea.
+     * Cada archivo se escribe en uno temporal y se mueve sobre el destino de
+     * forma atómica.
+     *
+     * @param directorio Directorio donde guardar la instantánea
+     * @return Un futuro que se completa con los bytes escritos cuando la
+     *         instantánea está en disco, o de forma excepcional si no pudo
+     *         escribirse
+     */
+    public CompletableFuture<Long> guardarInstantanea(String directorio) {
+        InstantaneaContactos instantanea;
+        long stamp = bloqueo.readLock();
+        try {
+            esperarIndices();
+            instantanea = new InstantaneaContactos(contactos.instantanea(), gestionIndices.instantanea());
+        } finally {
+            bloqueo.unlockRead(stamp);
+        }
+
+        String nombreArchivo = Paths.get(archivo).getFileName().toString();
+        return CompletableFuture.supplyAsync(() -> {
+            long inicio = System.nanoTime();
+            EventosJFR.Instantanea evento = new EventosJFR.Instantanea();
+            evento.begin();
+            try {
+                long bytes = instantanea.escribir(Paths.get(directorio), nombreArchivo);
+                evento.end();
+                if (evento.shouldCommit()) {
+                    evento.directorio = directorio;
+                    evento.contactos = instantanea.getContactos();
+                    evento.indices = instantanea.getIndices();
+                    evento.bytes = bytes;
+                    evento.commit();
+                }
+                metricas.sumarBytesEscritos(bytes);
+                metricas.registrar(MetricasContactos.Operacion.GUARDADO, inicio);
+                return bytes;
+            } catch (IOException e) {
+                System.out.println("Error al guardar la instantánea en " + directorio + ": " + e.getMessage());
+                throw new UncheckedIOException(e);
             }
-        } catch (IOException e) {
-            System.out.println("Error al guardar contactos: " + e.getMessage());
+        });
+    }
+
+    /**
+     * Pide que se reescriba el archivo de contactos, por ejemplo después de
+     * agregar varios lotes con agregarLineasCSV() sin guardar cada uno.
+     *
+     * @return Un futuro que se completa cuando el archivo está guardado
+     */
+    public CompletableFuture<Void> guardar() {
+        return escritor.registrarCambio("guardado de " + archivo);
+    }
+
+    /**
+     * @return El ID que recibirá el próximo contacto agregado sin ID
+     */
+    public int getSiguienteId() {
+        long stamp = bloqueo.readLock();
+        try {
+            return siguienteId;
+        } finally {
+            bloqueo.unlockRead(stamp);
         }
     }
 
+    /**
+     * Obtiene un futuro que se completa cuando todos los cambios hechos hasta
+     * ahora están guardados en disco.
+     *
+     * @return El futuro de sincronización
+     */
+    @Override
+    public CompletableFuture<Void> sincronizar() {
+        return escritor.sincronizar();
+    }
+
+    /**
+     * Guarda los cambios pendientes y detiene el hilo de escritura. Debe
+     * llamarse antes de terminar la aplicación.
+     */
+    @Override
+    public void cerrar() {
+        dejarDeSeguir();
+        escritor.cerrar();
+        metricas.retirar();
+    }
+
     /**
      * Importa contactos desde un archivo CSV y los añade a la lista.
      *
+     * Las filas inválidas no interrumpen la importación ni se anuncian una a
+     * una: se recogen en el resultado con su número de línea y al final se
+     * muestra un resumen.
+     *
+     * @param archivoCSV Ruta del archivo CSV desde donde se importarán los
+     *                   contactos
+     * @return El resultado con los contactos importados y las filas rechazadas
+     */
+    @Override
+    public ResultadoImportacion importarContactosDesdeCSV(String archivoCSV) {
+        return importarContactosDesdeCSV(archivoCSV, DetectorDuplicados.Modo.PERMITIR);
+    }
+
+    /**
+     * Importa contactos desde un archivo CSV detectando las filas que repiten
+     * el email o el teléfono de un contacto existente o de una fila anterior
+     * del mismo archivo.
+     *
+     * Los emails y teléfonos normalizados se guardan en tablas hash, así que
+     * cada fila se comprueba en tiempo constante y la importación completa es
+     * O(n). Según el modo, las filas repetidas se agregan igualmente, se
+     * omiten, se fusionan con el contacto existente o se anotan como
+     * conflicto en el resultado. En cualquier modo, una fila nueva cuyo ID ya
+     * está ocupado recibe el siguiente ID libre.
+     *
      * @param archivoCSV Ruta del archivo CSV desde donde se importarán los
      *                   contactos
+     * @param modo       Qué hacer con las filas repetidas
+     * @return El resultado con los contactos importados, los duplicados y las
+     *         filas rechazadas
      */
-    public void importarContactosDesdeCSV(String archivoCSV) {
+    public ResultadoImportacion importarContactosDesdeCSV(String archivoCSV, DetectorDuplicados.Modo modo) {
         System.out.println("Importando contactos desde " + archivoCSV);
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(archivoCSV))) {
-            String linea;
-            boolean primeraLinea = true; // Para identificar la línea de encabezados
+        long inicio = System.nanoTime();
+        EventosJFR.Importacion evento = new EventosJFR.Importacion();
+        evento.begin();
+        ResultadoImportacion resultado = new ResultadoImportacion(archivoCSV);
+        long stamp = bloqueo.writeLock();
+        try (BufferedReader reader = new BufferedReader(new FileReader(archivoCSV, EscritorPersistencia.CODIFICACION))) {
+            esperarIndices();
+            // Ignorar la primera línea que contiene los encabezados
+            String linea = reader.readLine();
+            long numeroLinea = 1;
+
+            DetectorDuplicados detector = modo != DetectorDuplicados.Modo.PERMITIR
+                    ? new DetectorDuplicados(contactos) : null;
 
             while ((linea = reader.readLine()) != null) {
-                // Ignorar la primera línea que contiene los encabezados
-                if (primeraLinea) {
-                    primeraLinea = false;
+                numeroLinea++;
+                Contacto contacto = Contacto.desdeCSV(linea, diccionario, numeroLinea, resultado);
+                if (contacto == null)
                     continue;
-                }
 
-                Contacto contacto = Contacto.fromCSV(linea);
-                if (contacto != null) {
-                    contactos.add(contacto);
-                    siguienteId = Math.max(siguienteId, contacto.getId() + 1);
+                // Un ID repetido rompería la búsqueda por ID y los índices
+                if (contactos.buscarPorId(contacto.getId()) != null) {
+                    contacto.setId(siguienteId);
+                }
+                if (detector != null) {
+                    DetectorDuplicados.Coincidencia coincidencia = detector.buscar(contacto);
+                    if (coincidencia != null) {
+                        importarDuplicado(contacto, coincidencia, modo, detector, resultado, numeroLinea, linea);
+                        continue;
+                    }
+                    detector.registrar(contacto);
                 }
+                contactos.agregar(contacto);
+                siguienteId = Math.max(siguienteId, contacto.getId() + 1);
+                resultado.importada();
             }
             reconstruirIndices();
+            cache.limpiar();
+            System.out.println(resultado.informe());
         } catch (IOException e) {
             System.out.println("Error al importar contactos: " + e.getMessage());
+        } finally {
+            bloqueo.unlockWrite(stamp);
+            metricas.registrar(MetricasContactos.Operacion.IMPORTACION, inicio);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.archivo = archivoCSV;
+                evento.filas = resultado.getFilas();
+                evento.contactos = resultado.getImportados();
+                evento.modoDuplicados = modo.name();
+                evento.duplicados = resultado.getOmitidos() + resultado.getFusionados()
+                        + resultado.getDuplicados().size();
+                evento.bytes = new File(archivoCSV).length();
+                evento.commit();
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Trata una fila importada que repite el email o el teléfono de otro
+     * contacto según el modo de duplicados.
+     *
+     * Al fusionar, los campos de texto no vacíos de la fila y su fecha de
+     * nacimiento, si la tiene, sustituyen a los del contacto existente, que
+     * conserva su ID. Sus índices se actualizan en el momento, igual que en
+     * actualizarContacto().
+     */
+    private void importarDuplicado(Contacto fila, DetectorDuplicados.Coincidencia coincidencia,
+                                   DetectorDuplicados.Modo modo, DetectorDuplicados detector,
+                                   ResultadoImportacion resultado, long numeroLinea, String linea) {
+        switch (modo) {
+            case FUSIONAR:
+                Contacto existente = contactos.buscarPorId(coincidencia.getId()).copia();
+                Map<String, String> valoresAnteriores = valoresCacheables(existente);
+                for (CampoContacto campo : CampoContacto.values()) {
+                    String valor = campo.esTexto() ? campo.texto(fila) : null;
+                    if (valor != null && !valor.isEmpty()) {
+                        campo.asignar(existente, diccionario.internar(campo.getNombre(), valor));
+                    }
+                }
+                if (fila.getFechaNacimiento() != null) {
+                    existente.setFechaNacimiento(fila.getFechaNacimiento());
+                }
+                contactos.actualizar(existente);
+                gestionIndices.actualizarIndices(valoresAnteriores, valoresCacheables(existente), existente.getId());
+                detector.registrar(existente);
+                resultado.fusionada();
+                break;
+            case REPORTAR:
+                resultado.duplicada(numeroLinea, linea,
+                        "Mismo " + coincidencia.getCampo() + " que el contacto " + coincidencia.getId());
+                break;
+            default:
+                resultado.omitida();
+                break;
+        }
+    }
+
+    /**
+     * Empieza a seguir un archivo CSV, o un directorio de entrada con archivos
+     * CSV, y agrega las filas que otros procesos vayan añadiendo. Si ya se
+     * seguía otra ruta, se deja de seguir.
+     *
+     * @param ruta Archivo o directorio a seguir (puede ser el propio archivo de
+     *             contactos)
+     * @return true si el seguimiento empezó, false si no se pudo vigilar la ruta
+     */
+    public synchronized boolean seguirArchivo(String ruta) {
+        dejarDeSeguir();
+        Path seguida = Paths.get(ruta).toAbsolutePath().normalize();
+        // Las filas del propio archivo de contactos ya están en disco
+        boolean guardar = !seguida.equals(Paths.get(archivo).toAbsolutePath().normalize());
+        try {
+            seguidor = new SeguidorCSV(this, seguida, guardar);
+            if (!guardar) {
+                // Las escrituras del propio archivo no deben leerse como filas nuevas
+                escritor.setSeguidor(seguidor);
+            }
+            System.out.println("Siguiendo " + seguida);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error al seguir " + ruta + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deja de seguir la ruta indicada en seguirArchivo(), si la había.
+     */
+    public synchronized void dejarDeSeguir() {
+        if (seguidor != null) {
+            escritor.setSeguidor(null);
+            seguidor.cerrar();
+            seguidor = null;
+        }
+    }
+
+    /**
+     * Agrega contactos a partir de líneas CSV nuevas de un archivo seguido,
+     * conservando el ID de cada fila. Las filas cuyo ID ya existe se omiten,
+     * de modo que volver a leer un archivo reescrito no duplica contactos. Las
+     * líneas se analizan antes de tomar el bloqueo de escritura y los índices
+     * se actualizan por lotes.
+     *
+     * @param lineas       Líneas CSV completas, sin la cabecera
+     * @param primeraLinea Número de línea en el archivo de la primera de ellas
+     * @param resultado    Resultado donde anotar las filas agregadas, omitidas
+     *                     y rechazadas
+     * @param guardar      true si hay que guardar los contactos agregados en el
+     *                     archivo de contactos
+     */
+    public void agregarLineasCSV(List<String> lineas, long primeraLinea, ResultadoImportacion resultado,
+                                 boolean guardar) {
+        agregarLineasCSV(lineas, i -> primeraLinea + i, resultado, guardar);
+    }
+
+    /**
+     * Agrega contactos a partir de líneas CSV que no tienen por qué ser
+     * consecutivas en el archivo, como las que un GestorContactosParticionado
+     * reparte entre sus particiones, conservando el ID de cada fila.
+     *
+     * @param lineas       Líneas CSV completas, sin la cabecera
+     * @param numeroLinea  Número de línea en el archivo de cada línea, por su
+     *                     posición en la lista
+     * @param resultado    Resultado donde anotar las filas agregadas, omitidas
+     *                     y rechazadas
+     * @param guardar      true si hay que guardar los contactos agregados en el
+     *                     archivo de contactos
+     */
+    public void agregarLineasCSV(List<String> lineas, IntToLongFunction numeroLinea, ResultadoImportacion resultado,
+                                 boolean guardar) {
+        List<Contacto> filas = new ArrayList<>(lineas.size());
+        for (int i = 0; i < lineas.size(); i++) {
+            Contacto fila = Contacto.desdeCSV(lineas.get(i), diccionario, numeroLinea.applyAsLong(i), resultado);
+            if (fila != null) {
+                filas.add(fila);
+            }
+        }
+        if (filas.isEmpty())
+            return;
+
+        long inicio = System.nanoTime();
+        List<Contacto> agregados = new ArrayList<>(filas.size());
+        long stamp = bloqueo.writeLock();
+        try {
+            esperarIndices();
+            for (Contacto fila : filas) {
+                if (contactos.buscarPorId(fila.getId()) != null) {
+                    resultado.omitida();
+                    continue;
+                }
+                contactos.agregar(fila);
+                agregados.add(fila);
+                siguienteId = Math.max(siguienteId, fila.getId() + 1);
+                resultado.importada();
+            }
+            gestionIndices.agregarLoteAIndices(agruparPorCampo(agregados));
+            for (Contacto nuevo : agregados) {
+                invalidarCache(nuevo);
+            }
+        } finally {
+            bloqueo.unlockWrite(stamp);
+        }
+        metricas.registrar(MetricasContactos.Operacion.IMPORTACION, inicio);
+        if (guardar && !agregados.isEmpty()) {
+            escritor.registrarCambio("alta de " + agregados.size() + " contactos desde " + resultado.getArchivo());
+        }
+    }
+
+    /**
+     * Sincroniza los contactos con un archivo CSV completo aplicando solo las
+     * diferencias, en lugar de volver a importarlo todo.
+     *
+     * Cada fila se identifica por su ID y se compara con el contacto guardado
+     * mediante la huella de su contenido: las filas con un ID nuevo se
+     * agregan, las que cambiaron actualizan el contacto y las iguales no se
+     * tocan. Los contactos cuyo ID no aparece en el archivo se eliminan; una
+     * fila rechazada con un ID legible conserva su contacto tal como estaba.
+     * Los índices se actualizan por lotes con las altas, bajas y cambios, sin
+     * reconstruirlos, y el archivo de contactos se reescribe una sola vez si
+     * hubo alguna diferencia.
+     *
+     * @param archivoCSV Ruta del archivo CSV con todos los contactos
+     * @return El resultado con los contactos agregados, actualizados,
+     *         eliminados y sin cambios, y las filas rechazadas
+     */
+    public ResultadoImportacion reimportarContactosDesdeCSV(String archivoCSV) {
+        System.out.println("Reimportando cambios desde " + archivoCSV);
+
+        long inicio = System.nanoTime();
+        EventosJFR.Importacion evento = new EventosJFR.Importacion();
+        evento.begin();
+        ResultadoImportacion resultado = new ResultadoImportacion(archivoCSV);
+        boolean hayCambios = false;
+        long stamp = bloqueo.writeLock();
+        try (BufferedReader reader = new BufferedReader(new FileReader(archivoCSV, EscritorPersistencia.CODIFICACION))) {
+            esperarIndices();
+            Set<Integer> enArchivo = new HashSet<>();
+            List<Contacto> altas = new ArrayList<>();
+            Map<String, Map<String, ListaIds>> quitar = new HashMap<>();
+            Map<String, Map<String, ListaIds>> poner = new HashMap<>();
+            Set<String> camposIndexados = gestionIndices.getCamposIndexados();
+
+            // Ignorar la primera línea que contiene los encabezados
+            String linea = reader.readLine();
+            long numeroLinea = 1;
+
+            while ((linea = reader.readLine()) != null) {
+                numeroLinea++;
+                Contacto fila = Contacto.desdeCSV(linea, diccionario, numeroLinea, resultado);
+                if (fila == null) {
+                    int id = Contacto.idDeCSV(linea);
+                    if (id >= 0) {
+                        enArchivo.add(id);
+                    }
+                    continue;
+                }
+                if (!enArchivo.add(fila.getId())) {
+                    resultado.rechazar(numeroLinea, linea, "ID repetido en el archivo: " + fila.getId());
+                    continue;
+                }
+
+                Contacto contacto = contactos.buscarPorId(fila.getId());
+                if (contacto == null) {
+                    altas.add(fila);
+                    resultado.importada();
+                    continue;
+                }
+                if (contacto.huella() == fila.huella()) {
+                    resultado.sinCambio();
+                    continue;
+                }
+
+                contacto = contacto.copia();
+                Map<String, String> valoresAnteriores = valoresCacheables(contacto);
+                for (CampoContacto campo : CampoContacto.values()) {
+                    if (campo.esTexto()) {
+                        campo.asignar(contacto, campo.texto(fila));
+                    }
+                }
+                contacto.setFechaNacimiento(fila.getFechaNacimiento());
+                contactos.actualizar(contacto);
+
+                Map<String, String> valoresNuevos = valoresCacheables(contacto);
+                for (String campo : camposIndexados) {
+                    String anterior = valoresAnteriores.get(campo);
+                    String nuevo = valoresNuevos.get(campo);
+                    if (Objects.equals(anterior, nuevo))
+                        continue;
+                    if (anterior != null) {
+                        agrupar(quitar, campo, anterior, contacto.getId());
+                    }
+                    if (nuevo != null) {
+                        agrupar(poner, campo, nuevo, contacto.getId());
+                    }
+                }
+                invalidarCambios(valoresAnteriores, valoresNuevos);
+                resultado.actualizada();
+            }
+
+            List<Contacto> bajas = new ArrayList<>();
+            for (Contacto contacto : contactos) {
+                if (!enArchivo.contains(contacto.getId())) {
+                    bajas.add(contacto);
+                }
+            }
+            if (!bajas.isEmpty()) {
+                gestionIndices.eliminarLoteDeIndices(agruparPorCampo(bajas));
+                List<Integer> idsBaja = new ArrayList<>(bajas.size());
+                for (Contacto contacto : bajas) {
+                    idsBaja.add(contacto.getId());
+                    invalidarCache(contacto);
+                }
+                resultado.eliminados(contactos.eliminarTodos(idsBaja));
+            }
+
+            gestionIndices.eliminarLoteDeIndices(quitar);
+            gestionIndices.agregarLoteAIndices(poner);
+
+            for (Contacto alta : altas) {
+                contactos.agregar(alta);
+                siguienteId = Math.max(siguienteId, alta.getId() + 1);
+                invalidarCache(alta);
+            }
+            gestionIndices.agregarLoteAIndices(agruparPorCampo(altas));
+
+            hayCambios = !altas.isEmpty() || !bajas.isEmpty() || resultado.getActualizados() > 0;
+            System.out.println(resultado.informe());
+        } catch (IOException e) {
+            System.out.println("Error al reimportar contactos: " + e.getMessage());
+        } finally {
+            bloqueo.unlockWrite(stamp);
+            metricas.registrar(MetricasContactos.Operacion.IMPORTACION, inicio);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.archivo = archivoCSV;
+                evento.filas = resultado.getFilas();
+                evento.contactos = resultado.getImportados() + resultado.getActualizados()
+                        + resultado.getEliminados();
+                evento.modoDuplicados = "INCREMENTAL";
+                evento.bytes = new File(archivoCSV).length();
+                evento.commit();
+            }
+        }
+        if (hayCambios) {
+            escritor.registrarCambio("reimportación desde " + archivoCSV);
         }
+        return resultado;
     }
 
     /**
@@ -327,15 +1152,26 @@ public class GestorContactos {
      */
     private void reconstruirIndices() {
         for (String campo : gestionIndices.getCamposIndexados()) {
-            for (Contacto contacto : contactos) {
-                Object valorObj = contacto.getCampo(campo);
-                if (valorObj != null) {
-                    gestionIndices.agregarAlIndice(campo, valorObj.toString());
-                }
-            }
+            indexarCampo(campo);
         }
     }
 
+    /**
+     * Agrega al índice de un campo los valores de todos los contactos del
+     * almacén en una sola operación por lotes.
+     *
+     * @param campo Nombre del campo indexado
+     */
+    private void indexarCampo(String campo) {
+        CampoContacto descriptor = gestionIndices.getDescriptores().get(campo);
+        if (descriptor == null)
+            return;
+        // En orden de primera aparición, que es el que determina la forma de un BST
+        Map<String, ListaIds> idsPorValor = new LinkedHashMap<>();
+        contactos.recorrerValores(descriptor, (valor, id) -> idsPorValor.computeIfAbsent(valor, v -> new ListaIds()).agregar(id));
+        gestionIndices.agregarLoteAlIndice(campo, idsPorValor);
+    }
+
     /**
      * Valida que un correo electrónico tenga un formato válido.
      *
@@ -343,11 +1179,344 @@ public class GestorContactos {
      * @return true si el formato es válido, false en caso contrario
      */
     private boolean validarEmail(String email) {
-        return email != null && email.matches("^[\\w.-]+@[\\w.-]+\\.[a-zA-Z]{2,6}$");
+        return Contacto.validarEmail(email);
     }
 
+    /**
+     * Busca un valor en el índice de un campo. El resultado se guarda en la
+     * caché de consultas hasta que una modificación afecte a ese valor.
+     *
+     * @param campo Nombre del campo indexado
+     * @param valor Valor a buscar
+     * @return true si el valor existe en el índice, false en caso contrario
+     */
+    @Override
     public boolean buscarEnIndice(String campo, String valor) {
-        return gestionIndices.buscarEnIndice(campo, valor);
+        long inicio = System.nanoTime();
+        Boolean enCache = (Boolean) cache.obtener(CacheConsultas.TipoConsulta.BUSQUEDA, campo, valor);
+        if (enCache != null) {
+            metricas.registrar(MetricasContactos.Operacion.CONSULTA, inicio);
+            return enCache;
+        }
+
+        long version = gestionIndices.version(campo);
+        boolean encontrado = gestionIndices.buscarEnIndice(campo, valor);
+        cache.guardar(CacheConsultas.TipoConsulta.BUSQUEDA, campo, valor, encontrado, 1,
+                () -> gestionIndices.version(campo) == version);
+        metricas.registrar(MetricasContactos.Operacion.CONSULTA, inicio);
+        return encontrado;
+    }
+
+    /**
+     * Busca un contacto por su ID.
+     *
+     * @param id ID del contacto
+     * @return El contacto, o null si no existe
+     */
+    @Override
+    public Contacto buscarPorId(int id) {
+        long stamp = bloqueo.readLock();
+        try {
+            return contactos.buscarPorId(id);
+        } finally {
+            bloqueo.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene los contactos cuyo campo tiene exactamente el valor indicado.
+     * La lista resultante se guarda en la caché de consultas.
+     *
+     * @param campo Nombre del campo (nombre, apellido, etc.)
+     * @param valor Valor buscado
+     * @return Una lista no modificable con los contactos encontrados
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Contacto> buscarContactos(String campo, String valor) {
+        long inicio = System.nanoTime();
+        CampoContacto descriptor = CampoContacto.resolver(campo);
+        if (descriptor == null) {
+            metricas.registrar(MetricasContactos.Operacion.CONSULTA, inicio);
+            return Collections.emptyList();
+        }
+        String clave = descriptor.getNombre();
+        List<Contacto> enCache = (List<Contacto>) cache.obtener(CacheConsultas.TipoConsulta.CONTACTOS, clave, valor);
+        if (enCache != null) {
+            metricas.registrar(MetricasContactos.Operacion.CONSULTA, inicio);
+            return enCache;
+        }
+
+        long stamp = bloqueo.readLock();
+        try {
+            List<Contacto> encontrados = new ArrayList<>();
+            contactos.recorrerValores(descriptor, (valorContacto, id) -> {
+                if (valorContacto.equals(valor)) {
+                    encontrados.add(contactos.buscarPorId(id));
+                }
+            });
+
+            List<Contacto> resultado = Collections.unmodifiableList(encontrados);
+            cache.guardar(CacheConsultas.TipoConsulta.CONTACTOS, clave, valor, resultado, resultado.size());
+            return resultado;
+        } finally {
+            bloqueo.unlockRead(stamp);
+            metricas.registrar(MetricasContactos.Operacion.CONSULTA, inicio);
+        }
+    }
+
+    /**
+     * Busca contactos recorriendo todo el almacén en paralelo, sin necesidad de
+     * que el campo tenga índice.
+     *
+     * @param campo     Nombre del campo a evaluar (nombre, apellido, etc.)
+     * @param predicado Condición que debe cumplir el valor del campo
+     * @return Los contactos que cumplen la condición, ordenados por ID
+     */
+    @Override
+    public List<Contacto> buscarPorRecorrido(String campo, Predicate<Object> predicado) {
+        long inicio = System.nanoTime();
+        long stamp = bloqueo.readLock();
+        try {
+            // Los hilos del pool leen el almacén mientras este hilo mantiene el bloqueo
+            return materializar(busquedaParalela.buscar(contactos, campo, predicado));
+        } finally {
+            bloqueo.unlockRead(stamp);
+            metricas.registrar(MetricasContactos.Operacion.CONSULTA, inicio);
+        }
+    }
+
+    /**
+     * Ejecuta una consulta con varios predicados combinados, usando los índices
+     * disponibles y recorriendo los contactos solo cuando no hay índice aplicable.
+     *
+     * @param consulta La consulta a ejecutar
+     * @return Los contactos que cumplen la consulta, ordenados por ID
+     */
+    @Override
+    public List<Contacto> consultar(Consulta consulta) {
+        long inicio = System.nanoTime();
+        long stamp = bloqueo.readLock();
+        try {
+            esperarIndices();
+            return materializar(motorConsultas.ejecutar(consulta).getIds());
+        } finally {
+            bloqueo.unlockRead(stamp);
+            metricas.registrar(MetricasContactos.Operacion.CONSULTA, inicio);
+        }
+    }
+
+    /**
+     * Ejecuta una consulta y devuelve el plan seguido: qué índices se usaron,
+     * cuántos IDs aportó cada uno y qué predicados se filtraron sin índice.
+     *
+     * @param consulta La consulta a explicar
+     * @return El plan de ejecución en formato de texto
+     */
+    public String explicarConsulta(Consulta consulta) {
+        long stamp = bloqueo.readLock();
+        try {
+            esperarIndices();
+            return String.join(System.lineSeparator(), motorConsultas.ejecutar(consulta).getPlan());
+        } finally {
+            bloqueo.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Obtiene los contactos correspondientes a una lista de IDs.
+     *
+     * @param ids IDs de los contactos
+     * @return Los contactos en el mismo orden que los IDs
+     */
+    private List<Contacto> materializar(int[] ids) {
+        List<Contacto> resultado = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            resultado.add(contactos.buscarPorId(id));
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene las métricas del gestor, también publicadas por JMX.
+     *
+     * @return Las métricas de operaciones, escrituras y tamaños
+     */
+    public MetricasContactos getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Obtiene las estadísticas del árbol del índice de un campo.
+     *
+     * @param campo El nombre del campo indexado
+     * @return Nodos, altura frente a la óptima, profundidad media, rotaciones
+     *         y comparaciones por búsqueda, o null si el campo no tiene índice
+     */
+    public EstadisticasArbol estadisticasIndice(String campo) {
+        return gestionIndices.estadisticas(campo);
+    }
+
+    /**
+     * Cambia el múltiplo de la altura óptima a partir del cual un índice BST
+     * degradado se reconstruye balanceado.
+     *
+     * @param factor El nuevo múltiplo (0 o menos desactiva la reconstrucción)
+     */
+    public void setFactorRebalanceo(double factor) {
+        gestionIndices.setFactorRebalanceo(factor);
+    }
+
+    /**
+     * Genera el informe de memoria del diccionario de cadenas compartido por
+     * los contactos y los índices.
+     *
+     * @return El informe con los valores compartidos y los bytes ahorrados
+     */
+    @Override
+    public String reporteMemoria() {
+        return diccionario.reporteMemoria();
+    }
+
+    /**
+     * Actualización pendiente de los índices de un contacto suelto. Se crea
+     * con el bloqueo de escritura tomado, justo después de cambiar el almacén,
+     * y se aplica después de soltarlo: así los cambios de un mismo contacto se
+     * encadenan en el orden en que se aplicaron al almacén aunque sus hilos
+     * lleguen a los índices en otro orden.
+     */
+    private final class CambioIndices {
+        private final int id;
+        private final CompletableFuture<Void> hecho = new CompletableFuture<>();
+        private final CompletableFuture<Void> anterior;
+
+        CambioIndices(int id) {
+            this.id = id;
+            anterior = indexando.put(id, hecho);
+            cambiosIndicesPendientes.incrementAndGet();
+        }
+
+        /**
+         * Espera a que el cambio anterior del mismo contacto llegue a los
+         * índices y aplica este. Se llama sin el bloqueo de escritura.
+         *
+         * @param cambio Actualización de los índices y de la caché
+         */
+        void aplicar(Runnable cambio) {
+            try {
+                if (anterior != null) {
+                    anterior.join();
+                }
+                cambio.run();
+            } finally {
+                indexando.remove(id, hecho);
+                hecho.complete(null);
+                if (cambiosIndicesPendientes.decrementAndGet() == 0 && esperandoIndices > 0) {
+                    synchronized (indicesAlDia) {
+                        indicesAlDia.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera a que los cambios sueltos terminen de actualizar los índices. Se
+     * llama con el bloqueo de lectura o de escritura tomado, que impide que
+     * empiecen otros, antes de usar los índices junto con el almacén.
+     */
+    private void esperarIndices() {
+        if (cambiosIndicesPendientes.get() == 0)
+            return;
+
+        boolean interrumpido = false;
+        synchronized (indicesAlDia) {
+            // Se anota antes de volver a mirar los pendientes: quien deje la
+            // cuenta a cero lo verá y avisará
+            esperandoIndices++;
+            try {
+                while (cambiosIndicesPendientes.get() > 0) {
+                    try {
+                        indicesAlDia.wait();
+                    } catch (InterruptedException e) {
+                        interrumpido = true;
+                    }
+                }
+            } finally {
+                esperandoIndices--;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Invalida en la caché todas las consultas afectadas por la inserción o
+     * eliminación de un contacto: sus valores en cada campo y los recorridos
+     * de los campos indexados.
+     *
+     * @param contacto El contacto agregado o eliminado
+     */
+    private void invalidarCache(Contacto contacto) {
+        invalidarCache(valoresCacheables(contacto));
+    }
+
+    /**
+     * Invalida en la caché las consultas afectadas por un contacto a partir de
+     * sus valores, obtenidos con valoresCacheables().
+     *
+     * @param valores Valores del contacto agregado o eliminado
+     */
+    private void invalidarCache(Map<String, String> valores) {
+        for (Map.Entry<String, String> entrada : valores.entrySet()) {
+            cache.invalidarValor(entrada.getKey(), entrada.getValue());
+        }
+        for (String campo : gestionIndices.getCamposIndexados()) {
+            cache.invalidarRecorrido(campo);
+        }
+    }
+
+    /**
+     * Invalida en la caché solo los valores que cambiaron en una actualización.
+     *
+     * @param anteriores Valores de los campos antes de actualizar
+     * @param nuevos     Valores de los campos después de actualizar
+     */
+    private void invalidarCambios(Map<String, String> anteriores, Map<String, String> nuevos) {
+        Set<String> camposIndexados = gestionIndices.getCamposIndexados();
+        for (String campo : anteriores.keySet()) {
+            String anterior = anteriores.get(campo);
+            String nuevo = nuevos.get(campo);
+            if (!Objects.equals(anterior, nuevo)) {
+                cache.invalidarValor(campo, anterior);
+                cache.invalidarValor(campo, nuevo);
+                if (camposIndexados.contains(campo)) {
+                    cache.invalidarRecorrido(campo);
+                }
+            } else {
+                // Las listas de contactos de ese valor contienen una copia del contacto
+                cache.invalidarContactos(campo, anterior);
+            }
+        }
+    }
+
+    /**
+     * Obtiene los valores de un contacto para todos los campos que pueden
+     * aparecer en claves de la caché (los campos del contacto y los indexados).
+     *
+     * @param contacto El contacto a leer
+     * @return Mapa campo -> valor en texto (null si el campo está vacío)
+     */
+    private Map<String, String> valoresCacheables(Contacto contacto) {
+        Map<String, String> valores = new HashMap<>();
+        for (CampoContacto campo : CampoContacto.values()) {
+            valores.put(campo.getNombre(), campo.texto(contacto));
+        }
+        for (Map.Entry<String, CampoContacto> indice : gestionIndices.getDescriptores().entrySet()) {
+            valores.put(indice.getKey(), indice.getValue().texto(contacto));
+        }
+        return valores;
     }
 
 }
\ No newline at end of file
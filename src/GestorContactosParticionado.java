@@ -0,0 +1,476 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Gestor de contactos repartidos en varias particiones dentro del mismo
+ * proceso.
+ *
+ * Cada partición es un GestorContactos completo, con su propio almacén, sus
+ * índices, su bloqueo y su archivo CSV ("contacts-0.csv", "contacts-1.csv",
+ * etc.). Un contacto vive en la partición que corresponde al hash de su ID,
+ * así que las altas, bajas y actualizaciones de un contacto solo bloquean y
+ * reescriben su partición, y varias modificaciones de particiones distintas
+ * avanzan a la vez en núcleos distintos.
+ *
+ * Las búsquedas se reparten entre todas las particiones en paralelo y los
+ * resultados parciales, cada uno ordenado por ID, se combinan ordenados por
+ * ID. Los IDs se asignan aquí, de forma global, para que no se repitan entre
+ * particiones.
+ *
+ * Ofrece las mismas operaciones de ServicioContactos que GestorContactos,
+ * así que el servidor HTTP y el ejecutor de guiones pueden usarlo en su
+ * lugar (opción "--particiones" de Main).
+ *
+ */
+public class GestorContactosParticionado implements ServicioContactos {
+    /**
+     * Filas que se leen del archivo antes de repartirlas entre las
+     * particiones al importar.
+     */
+    private static final int LOTE_IMPORTACION = 10_000;
+
+    private final GestorContactos[] particiones;
+    private final AtomicInteger siguienteId;
+
+    /**
+     * Constructor de la clase GestorContactosParticionado. Carga cada
+     * partición desde su archivo; si todavía no existe ninguno y sí el
+     * archivo sin particionar, lo importa repartiendo sus filas.
+     *
+     * @param archivo         Archivo CSV base (los de las particiones se
+     *                        nombran a partir de él)
+     * @param numParticiones  Número de particiones
+     * @param almacenColumnar true para guardar los contactos de cada partición
+     *                        por columnas
+     */
+    public GestorContactosParticionado(String archivo, int numParticiones, boolean almacenColumnar) {
+        if (numParticiones < 1)
+            throw new IllegalArgumentException("Número de particiones inválido: " + numParticiones);
+
+        boolean nuevas = true;
+        for (int i = 0; i < numParticiones; i++) {
+            nuevas &= !Files.exists(Paths.get(archivoParticion(archivo, i)));
+        }
+        particiones = new GestorContactos[numParticiones];
+        for (int i = 0; i < numParticiones; i++) {
+            String archivoParticion = archivoParticion(archivo, i);
+            crearSiNoExiste(archivoParticion);
+            particiones[i] = new GestorContactos(archivoParticion, almacenColumnar);
+        }
+        siguienteId = new AtomicInteger(siguienteIdParticiones());
+
+        if (nuevas && Files.exists(Paths.get(archivo))) {
+            importarContactosDesdeCSV(archivo);
+        }
+    }
+
+    /**
+     * Obtiene el nombre del archivo de una partición: el del archivo base con
+     * el número de partición antes de la extensión.
+     *
+     * @param archivo   Archivo CSV base
+     * @param particion Número de partición
+     * @return El archivo de la partición (por ejemplo "contacts-2.csv")
+     */
+    public static String archivoParticion(String archivo, int particion) {
+        int punto = archivo.lastIndexOf('.');
+        return punto > 0 && punto > archivo.lastIndexOf('/')
+                ? archivo.substring(0, punto) + "-" + particion + archivo.substring(punto)
+                : archivo + "-" + particion;
+    }
+
+    /**
+     * @return El número de particiones
+     */
+    public int getParticiones() {
+        return particiones.length;
+    }
+
+    /**
+     * Obtiene la partición donde vive un contacto, según el hash de su ID.
+     *
+     * @param id El ID del contacto
+     * @return El número de partición
+     */
+    public int particionDe(int id) {
+        return Math.floorMod(Integer.hashCode(id), particiones.length);
+    }
+
+    /**
+     * Crea un índice sobre un campo en todas las particiones, en paralelo.
+     *
+     * @param campo     Campo sobre el que se creará el índice
+     * @param tipoArbol Tipo de árbol a utilizar ("BST" o "AVL")
+     */
+    @Override
+    public void crearIndice(String campo, String tipoArbol) {
+        enTodas(particion -> {
+            particion.crearIndice(campo, tipoArbol);
+            return null;
+        });
+    }
+
+    /**
+     * Agrega un nuevo contacto en la partición que corresponde a su ID.
+     *
+     * @param nombre          Nombre del contacto
+     * @param apellido        Apellido del contacto
+     * @param apodo           Apodo del contacto
+     * @param telefono        Número de teléfono del contacto
+     * @param email           Correo electrónico del contacto (debe tener un formato
+     *                        válido)
+     * @param direccion       Dirección del contacto
+     * @param fechaNacimiento Fecha de nacimiento del contacto
+     * @return Un futuro que se completa con el ID asignado cuando el contacto
+     *         está guardado en disco, o de forma excepcional con
+     *         IllegalArgumentException si el email no es válido
+     */
+    @Override
+    public CompletableFuture<Integer> agregarContacto(String nombre, String apellido, String apodo, String telefono,
+                                                      String email, String direccion, LocalDate fechaNacimiento) {
+        if (!Contacto.validarEmail(email)) {
+            System.out.println("Email inválido. No se agregó el contacto.");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Email inválido: " + email));
+        }
+        int id = siguienteId.getAndIncrement();
+        return particion(id).agregarContacto(id, nombre, apellido, apodo, telefono, email, direccion,
+                fechaNacimiento);
+    }
+
+    /**
+     * Elimina un contacto de su partición.
+     *
+     * @param id ID del contacto a eliminar
+     * @return Un futuro que se completa con true cuando la baja está guardada
+     *         en el archivo de la partición (ya completado con false si el
+     *         contacto no existe)
+     */
+    @Override
+    public CompletableFuture<Boolean> eliminarContacto(int id) {
+        return particion(id).eliminarContacto(id);
+    }
+
+    /**
+     * Actualiza los datos de un contacto en su partición.
+     *
+     * @param id              ID del contacto a actualizar
+     * @param nombre          Nuevo nombre del contacto
+     * @param apellido        Nuevo apellido del contacto
+     * @param apodo           Nuevo apodo del contacto
+     * @param telefono        Nuevo teléfono del contacto
+     * @param email           Nuevo email del contacto (debe tener formato válido)
+     * @param direccion       Nueva dirección del contacto
+     * @param fechaNacimiento Nueva fecha de nacimiento del contacto
+     * @return Un futuro que se completa con true cuando el cambio está guardado
+     *         en disco (ya completado con false si el contacto no existe)
+     */
+    @Override
+    public CompletableFuture<Boolean> actualizarContacto(int id, String nombre, String apellido, String apodo,
+                                                         String telefono, String email, String direccion,
+                                                         LocalDate fechaNacimiento) {
+        return particion(id).actualizarContacto(id, nombre, apellido, apodo, telefono, email, direccion,
+                fechaNacimiento);
+    }
+
+    /**
+     * Busca un contacto por su ID en su partición.
+     *
+     * @param id El ID del contacto
+     * @return El contacto, o null si no existe
+     */
+    @Override
+    public Contacto buscarPorId(int id) {
+        return particion(id).buscarPorId(id);
+    }
+
+    /**
+     * Busca un valor en el índice de un campo de todas las particiones en
+     * paralelo.
+     *
+     * @param campo Nombre del campo indexado
+     * @param valor Valor a buscar
+     * @return true si el valor existe en el índice de alguna partición
+     */
+    @Override
+    public boolean buscarEnIndice(String campo, String valor) {
+        for (boolean encontrado : enTodas(particion -> particion.buscarEnIndice(campo, valor))) {
+            if (encontrado)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Obtiene los contactos de todas las particiones cuyo campo tiene
+     * exactamente el valor indicado.
+     *
+     * @param campo Nombre del campo (nombre, apellido, etc.)
+     * @param valor Valor buscado
+     * @return Los contactos encontrados, ordenados por ID
+     */
+    @Override
+    public List<Contacto> buscarContactos(String campo, String valor) {
+        return combinar(enTodas(particion -> particion.buscarContactos(campo, valor)));
+    }
+
+    /**
+     * Busca contactos recorriendo todas las particiones en paralelo, sin
+     * necesidad de que el campo tenga índice.
+     *
+     * @param campo     Nombre del campo a evaluar (nombre, apellido, etc.)
+     * @param predicado Condición que debe cumplir el valor del campo
+     * @return Los contactos que cumplen la condición, ordenados por ID
+     */
+    @Override
+    public List<Contacto> buscarPorRecorrido(String campo, Predicate<Object> predicado) {
+        return combinar(enTodas(particion -> particion.buscarPorRecorrido(campo, predicado)));
+    }
+
+    /**
+     * Ejecuta una consulta en todas las particiones en paralelo. Cada
+     * partición la resuelve con sus propios índices.
+     *
+     * @param consulta La consulta a ejecutar
+     * @return Los contactos que cumplen la consulta, ordenados por ID
+     */
+    @Override
+    public List<Contacto> consultar(Consulta consulta) {
+        return combinar(enTodas(particion -> particion.consultar(consulta)));
+    }
+
+    /**
+     * @return El número total de contactos de todas las particiones
+     */
+    @Override
+    public int cantidadContactos() {
+        int cantidad = 0;
+        for (GestorContactos particion : particiones) {
+            cantidad += particion.cantidadContactos();
+        }
+        return cantidad;
+    }
+
+    /**
+     * Obtiene el recorrido por niveles del índice de un campo. Cada partición
+     * tiene su propio árbol, así que se devuelven los recorridos de todas, en
+     * orden de partición, separados por " | ".
+     *
+     * @param campo Nombre del campo indexado
+     * @return Los IDs de los recorridos, o null si ninguna partición tiene
+     *         índice en ese campo o todos están vacíos
+     */
+    @Override
+    public String recorridoPorNivel(String campo) {
+        List<String> recorridos = enTodas(particion -> particion.recorridoPorNivel(campo));
+        if (recorridos.stream().allMatch(Objects::isNull))
+            return null;
+
+        StringJoiner unidos = new StringJoiner(" | ");
+        for (String recorrido : recorridos) {
+            unidos.add(recorrido != null ? recorrido : "");
+        }
+        return unidos.toString();
+    }
+
+    /**
+     * Genera el informe de memoria de los diccionarios de cadenas. Cada
+     * partición tiene su propio diccionario, así que se muestra uno por
+     * partición.
+     *
+     * @return Los informes de todas las particiones
+     */
+    @Override
+    public String reporteMemoria() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < particiones.length; i++) {
+            if (i > 0) {
+                sb.append(System.lineSeparator());
+            }
+            sb.append("Partición ").append(i).append(": ").append(particiones[i].reporteMemoria());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Importa contactos desde un archivo CSV conservando sus IDs y repartiendo
+     * cada fila en la partición de su ID. Las filas se leen por lotes y cada
+     * lote se agrega en todas las particiones en paralelo; las filas cuyo ID
+     * ya existe se omiten. Cada partición reescribe su archivo una sola vez al
+     * terminar.
+     *
+     * @param archivoCSV Ruta del archivo CSV desde donde se importarán los
+     *                   contactos
+     * @return El resultado con los contactos importados y las filas rechazadas
+     */
+    @Override
+    public ResultadoImportacion importarContactosDesdeCSV(String archivoCSV) {
+        System.out.println("Importando contactos desde " + archivoCSV + " en " + particiones.length
+                + " particiones");
+
+        ResultadoImportacion resultado = new ResultadoImportacion(archivoCSV);
+        ResultadoImportacion[] parciales = new ResultadoImportacion[particiones.length];
+        List<List<String>> lineas = new ArrayList<>(particiones.length);
+        List<List<Long>> numeros = new ArrayList<>(particiones.length);
+        for (int i = 0; i < particiones.length; i++) {
+            parciales[i] = new ResultadoImportacion(archivoCSV);
+            lineas.add(new ArrayList<>());
+            numeros.add(new ArrayList<>());
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(archivoCSV, EscritorPersistencia.CODIFICACION))) {
+            // Ignorar la primera línea que contiene los encabezados
+            String linea = reader.readLine();
+            long numeroLinea = 1;
+            int pendientes = 0;
+
+            while ((linea = reader.readLine()) != null) {
+                numeroLinea++;
+                // Una fila sin ID legible se manda a la primera partición, que la rechazará
+                int id = Contacto.idDeCSV(linea);
+                int destino = id >= 0 ? particionDe(id) : 0;
+                lineas.get(destino).add(linea);
+                numeros.get(destino).add(numeroLinea);
+                if (++pendientes == LOTE_IMPORTACION) {
+                    repartir(lineas, numeros, parciales);
+                    pendientes = 0;
+                }
+            }
+            repartir(lineas, numeros, parciales);
+        } catch (IOException e) {
+            System.out.println("Error al importar contactos: " + e.getMessage());
+        }
+
+        List<CompletableFuture<Void>> guardados = new ArrayList<>();
+        for (int i = 0; i < particiones.length; i++) {
+            if (parciales[i].getImportados() > 0) {
+                guardados.add(particiones[i].guardar());
+            }
+            resultado.sumar(parciales[i]);
+        }
+        siguienteId.accumulateAndGet(siguienteIdParticiones(), Math::max);
+        CompletableFuture.allOf(guardados.toArray(new CompletableFuture<?>[0])).join();
+
+        System.out.println(resultado.informe());
+        return resultado;
+    }
+
+    /**
+     * Obtiene un futuro que se completa cuando todos los cambios hechos hasta
+     * ahora están guardados en los archivos de todas las particiones.
+     *
+     * @return El futuro de sincronización
+     */
+    @Override
+    public CompletableFuture<Void> sincronizar() {
+        CompletableFuture<?>[] futuros = new CompletableFuture<?>[particiones.length];
+        for (int i = 0; i < particiones.length; i++) {
+            futuros[i] = particiones[i].sincronizar();
+        }
+        return CompletableFuture.allOf(futuros);
+    }
+
+    /**
+     * Guarda los cambios pendientes de todas las particiones y detiene sus
+     * hilos de escritura. Debe llamarse antes de terminar la aplicación.
+     */
+    @Override
+    public void cerrar() {
+        enTodas(particion -> {
+            particion.cerrar();
+            return null;
+        });
+    }
+
+    private GestorContactos particion(int id) {
+        return particiones[particionDe(id)];
+    }
+
+    /**
+     * Ejecuta una operación en todas las particiones en paralelo y espera sus
+     * resultados.
+     *
+     * @return Los resultados, en el orden de las particiones
+     */
+    private <T> List<T> enTodas(Function<GestorContactos, T> operacion) {
+        List<CompletableFuture<T>> futuros = new ArrayList<>(particiones.length);
+        for (GestorContactos particion : particiones) {
+            futuros.add(CompletableFuture.supplyAsync(() -> operacion.apply(particion)));
+        }
+        List<T> resultados = new ArrayList<>(particiones.length);
+        for (CompletableFuture<T> futuro : futuros) {
+            resultados.add(futuro.join());
+        }
+        return resultados;
+    }
+
+    /**
+     * Combina los resultados parciales de las particiones ordenados por ID.
+     */
+    private static List<Contacto> combinar(List<List<Contacto>> parciales) {
+        int total = 0;
+        for (List<Contacto> parcial : parciales) {
+            total += parcial.size();
+        }
+        List<Contacto> combinados = new ArrayList<>(total);
+        for (List<Contacto> parcial : parciales) {
+            combinados.addAll(parcial);
+        }
+        // Cada parcial suele venir ya ordenado: la ordenación solo mezcla tramos
+        combinados.sort(Comparator.comparingInt(Contacto::getId));
+        return Collections.unmodifiableList(combinados);
+    }
+
+    /**
+     * Agrega en paralelo las líneas pendientes de cada partición y vacía las
+     * listas.
+     */
+    private void repartir(List<List<String>> lineas, List<List<Long>> numeros, ResultadoImportacion[] parciales) {
+        List<CompletableFuture<Void>> futuros = new ArrayList<>(particiones.length);
+        for (int i = 0; i < particiones.length; i++) {
+            if (lineas.get(i).isEmpty())
+                continue;
+            GestorContactos particion = particiones[i];
+            List<String> lote = new ArrayList<>(lineas.get(i));
+            List<Long> numerosLote = new ArrayList<>(numeros.get(i));
+            ResultadoImportacion parcial = parciales[i];
+            futuros.add(CompletableFuture.runAsync(
+                    () -> particion.agregarLineasCSV(lote, numerosLote::get, parcial, false)));
+            lineas.get(i).clear();
+            numeros.get(i).clear();
+        }
+        CompletableFuture.allOf(futuros.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private int siguienteIdParticiones() {
+        int siguiente = 1;
+        for (GestorContactos particion : particiones) {
+            siguiente = Math.max(siguiente, particion.getSiguienteId());
+        }
+        return siguiente;
+    }
+
+    /**
+     * Crea el archivo de una partición con solo la cabecera si todavía no
+     * existe, para que la partición arranque vacía sin error.
+     */
+    private static void crearSiNoExiste(String archivo) {
+        Path ruta = Paths.get(archivo);
+        if (Files.exists(ruta))
+            return;
+        try {
+            Files.writeString(ruta, Contacto.CABECERA_CSV + System.lineSeparator());
+        } catch (IOException e) {
+            System.out.println("Error al crear " + archivo + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias que se puede registrar desde muchos hilos a la vez
+ * sin bloqueos.
+ *
+ * Sigue la idea de HdrHistogram: los valores menores que 16 ns tienen un
+ * cubo propio y el resto se agrupa por potencias de dos, cada una dividida
+ * en 8 subcubos, de modo que el error relativo de un percentil es como mucho
+ * del 12,5% sea cual sea la escala. Registrar un valor es calcular su cubo e
+ * incrementar un contador atómico; los percentiles se calculan al leer. Las
+ * lecturas no son una instantánea exacta si se registran valores a la vez,
+ * lo que basta para métricas.
+ *
+ */
+public class HistogramaLatencias {
+    private static final int LINEALES = 16;
+    private static final int BITS_SUBCUBO = 3;
+    private static final int SUBCUBOS = 1 << BITS_SUBCUBO;
+    /** Potencia de dos del mayor valor distinguible: 2^40 ns son unos 18 minutos. */
+    private static final int EXPONENTE_MAXIMO = 40;
+    private static final int CUBOS = LINEALES + (EXPONENTE_MAXIMO - 4 + 1) * SUBCUBOS;
+
+    private final AtomicLongArray cubos = new AtomicLongArray(CUBOS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Registra una medida.
+     *
+     * @param nanos Duración en nanosegundos (los negativos cuentan como 0)
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        cubos.incrementAndGet(cubo(valor));
+        cantidad.increment();
+        suma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    /**
+     * @return El número de medidas registradas
+     */
+    public long cantidad() {
+        return cantidad.sum();
+    }
+
+    /**
+     * @return La media de las medidas en nanosegundos (0 si no hay ninguna)
+     */
+    public double mediaNanos() {
+        long n = cantidad.sum();
+        return n == 0 ? 0 : suma.sum() / (double) n;
+    }
+
+    /**
+     * @return La mayor medida registrada en nanosegundos
+     */
+    public long maximoNanos() {
+        return maximo.get();
+    }
+
+    /**
+     * Calcula un percentil de las medidas registradas.
+     *
+     * @param percentil Percentil entre 0 y 100
+     * @return El límite superior del cubo que contiene el percentil, en
+     *         nanosegundos, sin pasar del máximo registrado (0 si no hay
+     *         medidas)
+     */
+    public long percentilNanos(double percentil) {
+        long total = 0;
+        long[] copia = new long[CUBOS];
+        for (int i = 0; i < CUBOS; i++) {
+            copia[i] = cubos.get(i);
+            total += copia[i];
+        }
+        if (total == 0)
+            return 0;
+
+        long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBOS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Calcula el cubo de un valor.
+     */
+    private static int cubo(long valor) {
+        if (valor < LINEALES)
+            return (int) valor;
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente > EXPONENTE_MAXIMO)
+            return CUBOS - 1;
+        int subcubo = (int) (valor >>> (exponente - BITS_SUBCUBO)) & (SUBCUBOS - 1);
+        return LINEALES + (exponente - 4) * SUBCUBOS + subcubo;
+    }
+
+    /**
+     * Calcula el mayor valor que cae en un cubo.
+     */
+    private static long limiteSuperior(int cubo) {
+        if (cubo < LINEALES)
+            return cubo;
+        int exponente = 4 + (cubo - LINEALES) / SUBCUBOS;
+        int subcubo = (cubo - LINEALES) % SUBCUBOS;
+        return ((long) (SUBCUBOS + subcubo + 1) << (exponente - BITS_SUBCUBO)) - 1;
+    }
+}
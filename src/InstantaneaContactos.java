@@ -0,0 +1,87 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Vista congelada de los contactos y de todos los índices en un momento dado.
+ *
+ * Se toma con el bloqueo de lectura del gestor, que solo se mantiene mientras
+ * se congelan el almacén (por copia en escritura) y los índices; después se
+ * puede escribir en disco desde otro hilo mientras el gestor sigue aceptando
+ * modificaciones, que no la alteran.
+ *
+ */
+public class InstantaneaContactos {
+    private static final String CSV_SEPARATOR = ",";
+
+    private final List<Contacto> contactos;
+    private final Map<String, Supplier<List<String>>> indices;
+
+    /**
+     * Constructor de la clase InstantaneaContactos.
+     *
+     * @param contactos Contactos congelados (AlmacenContactos.instantanea())
+     * @param indices   Recorridos congelados de los índices por nombre de
+     *                  archivo (GestionIndices.instantanea())
+     */
+    public InstantaneaContactos(List<Contacto> contactos, Map<String, Supplier<List<String>>> indices) {
+        this.contactos = contactos;
+        this.indices = indices;
+    }
+
+    /**
+     * @return El número de contactos de la instantánea
+     */
+    public int getContactos() {
+        return contactos.size();
+    }
+
+    /**
+     * @return El número de índices de la instantánea
+     */
+    public int getIndices() {
+        return indices.size();
+    }
+
+    /**
+     * Escribe la instantánea en un directorio: los contactos en un archivo CSV
+     * y cada índice en su archivo "campo-tipo.txt", con el mismo formato que
+     * GestionIndices.guardarIndices(). Cada archivo se sustituye de forma
+     * atómica, así que nunca queda uno a medias.
+     *
+     * @param directorio       Directorio de destino (se crea si no existe)
+     * @param archivoContactos Nombre del archivo CSV de contactos
+     * @return Los bytes escritos en total
+     * @throws IOException si ocurre un error al escribir algún archivo
+     */
+    public long escribir(Path directorio, String archivoContactos) throws IOException {
+        Files.createDirectories(directorio);
+        long bytes = 0;
+
+        // Primero los índices: el CSV de contactos, escrito el último, marca la instantánea completa
+        for (Map.Entry<String, Supplier<List<String>>> indice : indices.entrySet()) {
+            Path archivo = directorio.resolve(indice.getKey());
+            List<String> valores = indice.getValue().get();
+            EscritorPersistencia.escribirAtomicamente(archivo, writer -> {
+                if (!valores.isEmpty()) {
+                    writer.write(String.join(CSV_SEPARATOR, valores));
+                }
+            });
+            bytes += Files.size(archivo);
+        }
+
+        Path archivo = directorio.resolve(archivoContactos);
+        EscritorPersistencia.escribirAtomicamente(archivo, writer -> {
+            writer.write(Contacto.CABECERA_CSV);
+            writer.newLine();
+            for (Contacto contacto : contactos) {
+                writer.write(contacto.toCSV());
+                writer.newLine();
+            }
+        });
+        return bytes + Files.size(archivo);
+    }
+}
@@ -0,0 +1,224 @@
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversión mínima entre contactos y JSON para el servidor HTTP.
+ *
+ * Solo cubre lo que necesita el servicio: escribir contactos y listas de
+ * contactos, y leer objetos planos cuyos valores son cadenas o null.
+ *
+ */
+public class Json {
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private Json() {
+    }
+
+    /**
+     * Convierte un contacto en un objeto JSON.
+     *
+     * @param contacto El contacto a convertir
+     * @return El objeto JSON en texto
+     */
+    public static String contacto(Contacto contacto) {
+        StringBuilder sb = new StringBuilder(160);
+        escribirContacto(sb, contacto);
+        return sb.toString();
+    }
+
+    /**
+     * Convierte una lista de contactos en un arreglo JSON.
+     *
+     * @param contactos Los contactos a convertir
+     * @return El arreglo JSON en texto
+     */
+    public static String contactos(List<Contacto> contactos) {
+        StringBuilder sb = new StringBuilder(2 + contactos.size() * 160);
+        sb.append('[');
+        for (int i = 0; i < contactos.size(); i++) {
+            if (i > 0)
+                sb.append(',');
+            escribirContacto(sb, contactos.get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Crea un objeto JSON con un único atributo de texto.
+     *
+     * @param nombre Nombre del atributo
+     * @param valor  Valor del atributo
+     * @return El objeto JSON en texto
+     */
+    public static String objeto(String nombre, String valor) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        escribirTexto(sb, nombre);
+        sb.append(':');
+        escribirTexto(sb, valor);
+        return sb.append('}').toString();
+    }
+
+    private static void escribirContacto(StringBuilder sb, Contacto contacto) {
+        sb.append("{\"id\":").append(contacto.getId());
+        atributo(sb, "nombre", contacto.getNombre());
+        atributo(sb, "apellido", contacto.getApellido());
+        atributo(sb, "apodo", contacto.getApodo());
+        atributo(sb, "telefono", contacto.getTelefono());
+        atributo(sb, "email", contacto.getEmail());
+        atributo(sb, "direccion", contacto.getDireccion());
+        atributo(sb, "fechaNacimiento", contacto.getFechaNacimiento() != null
+                ? contacto.getFechaNacimiento().format(FORMATO_FECHA) : null);
+        sb.append('}');
+    }
+
+    private static void atributo(StringBuilder sb, String nombre, String valor) {
+        sb.append(',');
+        escribirTexto(sb, nombre);
+        sb.append(':');
+        escribirTexto(sb, valor);
+    }
+
+    private static void escribirTexto(StringBuilder sb, String valor) {
+        if (valor == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * Lee un objeto JSON plano cuyos valores son cadenas, números o null. Los
+     * números se devuelven como texto.
+     *
+     * @param texto El objeto JSON
+     * @return Mapa atributo -> valor, en el orden en que aparecen
+     * @throws IllegalArgumentException Si el texto no es un objeto plano válido
+     */
+    public static Map<String, String> leerObjeto(String texto) {
+        Lector lector = new Lector(texto);
+        Map<String, String> resultado = new LinkedHashMap<>();
+        lector.esperar('{');
+        if (!lector.consumir('}')) {
+            do {
+                String nombre = lector.leerTexto();
+                lector.esperar(':');
+                resultado.put(nombre, lector.leerValor());
+            } while (lector.consumir(','));
+            lector.esperar('}');
+        }
+        lector.saltarEspacios();
+        if (!lector.alFinal()) {
+            throw new IllegalArgumentException("Contenido inesperado tras el objeto JSON en la posición " + lector.pos);
+        }
+        return resultado;
+    }
+
+    /**
+     * Recorre el texto de un objeto JSON carácter a carácter.
+     */
+    private static class Lector {
+        private final String texto;
+        private int pos;
+
+        Lector(String texto) {
+            this.texto = texto;
+        }
+
+        boolean alFinal() {
+            return pos >= texto.length();
+        }
+
+        void saltarEspacios() {
+            while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean consumir(char c) {
+            saltarEspacios();
+            if (pos < texto.length() && texto.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void esperar(char c) {
+            if (!consumir(c)) {
+                throw new IllegalArgumentException("Se esperaba '" + c + "' en la posición " + pos);
+            }
+        }
+
+        String leerValor() {
+            saltarEspacios();
+            if (texto.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            if (pos < texto.length() && texto.charAt(pos) == '"') {
+                return leerTexto();
+            }
+            int inicio = pos;
+            while (pos < texto.length() && "+-.0123456789eE".indexOf(texto.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (inicio == pos) {
+                throw new IllegalArgumentException("Valor no admitido en la posición " + pos);
+            }
+            return texto.substring(inicio, pos);
+        }
+
+        String leerTexto() {
+            esperar('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos++);
+                if (c == '"')
+                    return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= texto.length())
+                    break;
+                char escapado = texto.charAt(pos++);
+                switch (escapado) {
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > texto.length())
+                            throw new IllegalArgumentException("Escape \\u incompleto en la posición " + pos);
+                        sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> sb.append(escapado);
+                }
+            }
+            throw new IllegalArgumentException("Cadena JSON sin cerrar");
+        }
+    }
+}
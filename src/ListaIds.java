@@ -0,0 +1,169 @@
+import java.util.Arrays;
+
+/**
+ * Conjunto ordenado de IDs de contactos guardado en un arreglo de enteros.
+ *
+ * Se utiliza como lista de apariciones (posting list) de cada valor de un
+ * índice: permite saber qué contactos tienen un valor y combinar los
+ * resultados de varios índices mediante intersecciones y uniones lineales.
+ *
+ */
+public class ListaIds {
+    private static final int[] VACIO = new int[0];
+
+    private int[] ids;
+    private int tamano;
+
+    /**
+     * Constructor de una lista de IDs vacía.
+     */
+    public ListaIds() {
+        ids = new int[2];
+    }
+
+    /**
+     * Agrega un ID manteniendo el orden. Si ya existía no se duplica.
+     *
+     * @param id El ID a agregar
+     * @return true si el ID se agregó, false si ya estaba en la lista
+     */
+    public boolean agregar(int id) {
+        int pos = Arrays.binarySearch(ids, 0, tamano, id);
+        if (pos >= 0)
+            return false;
+
+        pos = -pos - 1;
+        if (tamano == ids.length) {
+            ids = Arrays.copyOf(ids, tamano * 2);
+        }
+        System.arraycopy(ids, pos, ids, pos + 1, tamano - pos);
+        ids[pos] = id;
+        tamano++;
+        return true;
+    }
+
+    /**
+     * Elimina un ID de la lista.
+     *
+     * @param id El ID a eliminar
+     * @return true si el ID estaba en la lista, false en caso contrario
+     */
+    public boolean eliminar(int id) {
+        int pos = Arrays.binarySearch(ids, 0, tamano, id);
+        if (pos < 0)
+            return false;
+
+        System.arraycopy(ids, pos + 1, ids, pos, tamano - pos - 1);
+        tamano--;
+        return true;
+    }
+
+    /**
+     * @param id El ID a comprobar
+     * @return true si el ID está en la lista
+     */
+    public boolean contiene(int id) {
+        return Arrays.binarySearch(ids, 0, tamano, id) >= 0;
+    }
+
+    /**
+     * @return El número de IDs de la lista
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * @return true si la lista no contiene IDs
+     */
+    public boolean estaVacia() {
+        return tamano == 0;
+    }
+
+    /**
+     * @return Una copia ordenada de los IDs de la lista
+     */
+    public int[] aArreglo() {
+        return tamano == 0 ? VACIO : Arrays.copyOf(ids, tamano);
+    }
+
+    /**
+     * Calcula la intersección de dos arreglos ordenados de IDs.
+     *
+     * @param a Primer arreglo ordenado
+     * @param b Segundo arreglo ordenado
+     * @return Un arreglo ordenado con los IDs presentes en ambos
+     */
+    public static int[] interseccion(int[] a, int[] b) {
+        int[] resultado = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                resultado[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(resultado, k);
+    }
+
+    /**
+     * Calcula la unión de dos arreglos ordenados de IDs.
+     *
+     * @param a Primer arreglo ordenado
+     * @param b Segundo arreglo ordenado
+     * @return Un arreglo ordenado con los IDs presentes en alguno de los dos
+     */
+    public static int[] union(int[] a, int[] b) {
+        int[] resultado = new int[a.length + b.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                resultado[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                resultado[k++] = b[j++];
+            } else {
+                resultado[k++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) {
+            resultado[k++] = a[i++];
+        }
+        while (j < b.length) {
+            resultado[k++] = b[j++];
+        }
+        return Arrays.copyOf(resultado, k);
+    }
+
+    /**
+     * Calcula la diferencia de dos arreglos ordenados de IDs.
+     *
+     * @param a Arreglo ordenado del que se quitan IDs
+     * @param b Arreglo ordenado con los IDs a quitar
+     * @return Un arreglo ordenado con los IDs de a que no están en b
+     */
+    public static int[] diferencia(int[] a, int[] b) {
+        int[] resultado = new int[a.length];
+        int i = 0, j = 0, k = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                resultado[k++] = a[i++];
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) {
+            resultado[k++] = a[i++];
+        }
+        return Arrays.copyOf(resultado, k);
+    }
+}
@@ -1,4 +1,7 @@
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.InputMismatchException;
+import java.util.List;
 import java.util.Scanner;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -12,11 +15,46 @@ public class Main {
      * Método principal que inicia la aplicación de gestión de contactos.
      * Proporciona un menú interactivo para que el usuario pueda realizar diversas operaciones.
      *
-     * @param args Argumentos de línea de comandos (no utilizados)
+     * @param args Argumentos de línea de comandos ("--columnar" para guardar los
+     *             contactos en memoria por columnas, "--servidor puerto" para
+     *             atender peticiones HTTP en lugar de mostrar el menú,
+     *             "--script archivo" para ejecutar un guion de órdenes, o "-"
+     *             para leerlo de la entrada estándar, "--seguir [ruta]"
+     *             para agregar las filas que otros procesos añadan a
+     *             contacts.csv o al archivo o directorio indicado, y
+     *             "--particiones n" para repartir los contactos en n
+     *             particiones con un GestorContactosParticionado)
      */
     public static void main(String[] args) {
+        boolean columnar = Arrays.asList(args).contains("--columnar");
+        int particiones = particiones(args);
+        if (particiones < 1)
+            return;
+
+        // Instancia para gestionar contactos; unico es null si están repartidos en particiones
+        GestorContactos unico = particiones == 1 ? new GestorContactos("contacts.csv", columnar) : null;
+        ServicioContactos gestor = unico != null ? unico
+                : new GestorContactosParticionado("contacts.csv", particiones, columnar);
+
+        int posSeguir = Arrays.asList(args).indexOf("--seguir");
+        if (posSeguir >= 0 && disponible(unico)) {
+            boolean conRuta = posSeguir + 1 < args.length && !args[posSeguir + 1].startsWith("--");
+            unico.seguirArchivo(conRuta ? args[posSeguir + 1] : "contacts.csv");
+        }
+
+        int posServidor = Arrays.asList(args).indexOf("--servidor");
+        if (posServidor >= 0) {
+            iniciarServidor(gestor, posServidor + 1 < args.length ? args[posServidor + 1] : "8080");
+            return;
+        }
+
+        int posScript = Arrays.asList(args).indexOf("--script");
+        if (posScript >= 0) {
+            new EjecutorScript(gestor).ejecutar(posScript + 1 < args.length ? args[posScript + 1] : "-");
+            gestor.cerrar();
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
-        GestorContactos gestor = new GestorContactos(); // Instancia para gestionar contactos
         DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
         while (true) {
@@ -32,6 +70,10 @@ public class Main {
                 System.out.println("8. Mostrar recorrido por niveles en índice");
                 System.out.println("9. Buscar contacto en índice");
                 System.out.println("10. Salir");
+                System.out.println("11. Reporte de memoria de cadenas");
+                System.out.println("12. Buscar contactos por campo sin índice");
+                System.out.println("13. Reimportar cambios desde CSV");
+                System.out.println("14. Guardar instantánea de contactos e índices");
                 System.out.print("Seleccione una opción: ");
 
                 int opcion = scanner.nextInt();
@@ -105,15 +147,19 @@ public class Main {
 
                     case 4:
                         // Visualizar todos los contactos
+                        if (!disponible(unico))
+                            break;
                         System.out.println("Lista de contactos:");
-                        gestor.visualizarContactos();
+                        unico.visualizarContactos();
                         break;
 
                     case 5:
                         // Exportar contactos a un archivo CSV
                         System.out.print("Ruta del archivo CSV a exportar: ");
                         String rutaExportar = scanner.nextLine();
-                        gestor.exportarContactos(rutaExportar);
+                        if (!disponible(unico))
+                            break;
+                        unico.exportarContactos(rutaExportar);
                         System.out.println("Contactos exportados correctamente.");
                         break;
 
@@ -121,7 +167,23 @@ public class Main {
                         // Importar contactos desde un archivo CSV
                         System.out.print("Ruta del archivo CSV a importar: ");
                         String rutaImportar = scanner.nextLine();
-                        gestor.importarContactosDesdeCSV(rutaImportar);
+                        if (unico == null) {
+                            // Cada fila va a la partición de su ID; las de IDs existentes se omiten
+                            gestor.importarContactosDesdeCSV(rutaImportar);
+                            System.out.println("Contactos importados correctamente.");
+                            break;
+                        }
+                        System.out.print("Contactos repetidos (OMITIR/FUSIONAR/REPORTAR/PERMITIR) [OMITIR]: ");
+                        String modoDuplicados = scanner.nextLine().trim().toUpperCase();
+                        DetectorDuplicados.Modo modo = DetectorDuplicados.Modo.OMITIR;
+                        try {
+                            if (!modoDuplicados.isEmpty()) {
+                                modo = DetectorDuplicados.Modo.valueOf(modoDuplicados);
+                            }
+                        } catch (IllegalArgumentException e) {
+                            System.out.println("Modo inválido. Se omitirán los contactos repetidos.");
+                        }
+                        unico.importarContactosDesdeCSV(rutaImportar, modo);
                         System.out.println("Contactos importados correctamente.");
                         break;
 
@@ -144,7 +206,13 @@ public class Main {
                         // Mostrar recorrido por niveles de un índice
                         System.out.print("Ingrese el campo del índice a mostrar: ");
                         String campoMostrar = scanner.nextLine();
-                        gestor.mostrarRecorridoPorNivel(campoMostrar);
+                        if (unico != null) {
+                            unico.mostrarRecorridoPorNivel(campoMostrar);
+                        } else {
+                            String recorrido = gestor.recorridoPorNivel(campoMostrar);
+                            System.out.println(recorrido != null ? recorrido
+                                    : "No existe un índice para el campo '" + campoMostrar + "' o está vacío.");
+                        }
                         break;
 
                     case 9:
@@ -165,9 +233,52 @@ public class Main {
                     case 10:
                         // Salir de la aplicación
                         System.out.println("Saliendo...");
+                        gestor.cerrar();
                         scanner.close();
                         return;
 
+                    case 11:
+                        // Mostrar el ahorro de memoria del diccionario de cadenas
+                        System.out.println(gestor.reporteMemoria());
+                        break;
+
+                    case 12:
+                        // Buscar recorriendo todos los contactos en paralelo
+                        System.out.print("Ingrese el campo a buscar (nombre, apellido, etc.): ");
+                        String campoRecorrido = scanner.nextLine();
+                        System.out.print("Ingrese el valor a buscar: ");
+                        String valorRecorrido = scanner.nextLine();
+
+                        List<Contacto> encontrados = gestor.buscarPorRecorrido(campoRecorrido,
+                                valor -> valor.toString().equals(valorRecorrido));
+                        if (encontrados.isEmpty()) {
+                            System.out.println("No se encontraron contactos.");
+                        } else {
+                            encontrados.forEach(System.out::println);
+                        }
+                        break;
+
+                    case 13:
+                        // Aplicar solo las altas, bajas y cambios de un archivo completo
+                        System.out.print("Ruta del archivo CSV con todos los contactos: ");
+                        String rutaReimportar = scanner.nextLine();
+                        if (!disponible(unico))
+                            break;
+                        unico.reimportarContactosDesdeCSV(rutaReimportar);
+                        break;
+
+                    case 14:
+                        // La instantánea se escribe en segundo plano; el menú sigue disponible
+                        System.out.print("Directorio de la instantánea: ");
+                        String directorioInstantanea = scanner.nextLine();
+                        if (!disponible(unico))
+                            break;
+                        unico.guardarInstantanea(directorioInstantanea).thenAccept(
+                                bytes -> System.out.println("Instantánea guardada en " + directorioInstantanea
+                                        + " (" + bytes + " bytes)"));
+                        System.out.println("Guardando instantánea en segundo plano...");
+                        break;
+
                     default:
                         System.out.println("Opción no válida. Intente de nuevo.");
                         break;
@@ -178,4 +289,60 @@ public class Main {
             }
         }
     }
+
+    /**
+     * Lee el número de particiones de la opción "--particiones n".
+     *
+     * @param args Argumentos de línea de comandos
+     * @return El número de particiones (1 si no se indica), o 0 si no es válido
+     */
+    private static int particiones(String[] args) {
+        int pos = Arrays.asList(args).indexOf("--particiones");
+        if (pos < 0)
+            return 1;
+        String valor = pos + 1 < args.length ? args[pos + 1] : "";
+        try {
+            int particiones = Integer.parseInt(valor);
+            if (particiones >= 1)
+                return particiones;
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        System.out.println("Número de particiones inválido: " + valor);
+        return 0;
+    }
+
+    /**
+     * Comprueba si una opción que necesita un único GestorContactos está
+     * disponible y, si no, lo indica.
+     *
+     * @param unico El gestor sin particiones, o null si hay particiones
+     * @return true si la opción está disponible
+     */
+    private static boolean disponible(GestorContactos unico) {
+        if (unico == null) {
+            System.out.println("Opción no disponible con --particiones.");
+        }
+        return unico != null;
+    }
+
+    /**
+     * Arranca el servidor HTTP de contactos. El servidor sigue atendiendo
+     * peticiones hasta que se detiene la aplicación.
+     *
+     * @param gestor Gestor de contactos a exponer
+     * @param puerto Puerto en el que escuchar
+     */
+    private static void iniciarServidor(ServicioContactos gestor, String puerto) {
+        try {
+            ServidorContactos servidor = new ServidorContactos(gestor, Integer.parseInt(puerto));
+            servidor.iniciar();
+            System.out.println("Servidor de contactos escuchando en http://localhost:" + servidor.getPuerto()
+                    + "/contactos");
+        } catch (NumberFormatException e) {
+            System.out.println("Puerto inválido: " + puerto);
+        } catch (IOException e) {
+            System.out.println("Error al iniciar el servidor: " + e.getMessage());
+        }
+    }
 }
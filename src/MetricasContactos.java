@@ -0,0 +1,180 @@
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas de un GestorContactos: un histograma de latencias por operación,
+ * los bytes escritos en disco y los tamaños de contactos e índices.
+ *
+ * Registrar una medida no toma ningún bloqueo (contadores LongAdder y
+ * cubos atómicos), así que se puede hacer en cada operación. Los tamaños no
+ * se guardan: se piden al gestor cuando una herramienta JMX los lee.
+ *
+ */
+public class MetricasContactos implements MetricasContactosMXBean {
+    /**
+     * Operaciones con histograma de latencias propio.
+     */
+    public enum Operacion {
+        BUSQUEDA_INDICE, CONSTRUCCION_INDICE, CONSULTA, ALTA, ACTUALIZACION, BAJA, IMPORTACION, GUARDADO
+    }
+
+    private final Map<Operacion, HistogramaLatencias> histogramas = new EnumMap<>(Operacion.class);
+    private final LongAdder bytesEscritos = new LongAdder();
+    private final IntSupplier contactos;
+    private final Supplier<Map<String, Integer>> valoresPorIndice;
+    private ObjectName nombre;
+
+    /**
+     * Constructor de métricas sin fuentes de tamaños, que informan de 0
+     * contactos y ningún índice.
+     */
+    public MetricasContactos() {
+        this(() -> 0, Collections::emptyMap);
+    }
+
+    /**
+     * Constructor de la clase MetricasContactos.
+     *
+     * @param contactos        Fuente del número de contactos en memoria
+     * @param valoresPorIndice Fuente del número de valores de cada índice
+     */
+    public MetricasContactos(IntSupplier contactos, Supplier<Map<String, Integer>> valoresPorIndice) {
+        for (Operacion operacion : Operacion.values()) {
+            histogramas.put(operacion, new HistogramaLatencias());
+        }
+        this.contactos = contactos;
+        this.valoresPorIndice = valoresPorIndice;
+    }
+
+    /**
+     * Registra la duración de una operación.
+     *
+     * @param operacion La operación medida
+     * @param inicio    Valor de System.nanoTime() al empezar la operación
+     */
+    public void registrar(Operacion operacion, long inicio) {
+        histogramas.get(operacion).registrar(System.nanoTime() - inicio);
+    }
+
+    /**
+     * Suma bytes escritos en disco.
+     *
+     * @param bytes Número de bytes
+     */
+    public void sumarBytesEscritos(long bytes) {
+        bytesEscritos.add(bytes);
+    }
+
+    /**
+     * Publica las métricas en el servidor de MBeans de la plataforma. Si ya
+     * hay otro gestor publicado con el mismo archivo se añade un número de
+     * instancia al nombre.
+     *
+     * @param archivo Archivo de contactos del gestor, que identifica el MBean
+     */
+    public synchronized void publicar(String archivo) {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        String base = "GestorContactos:type=Metricas,name=" + ObjectName.quote(archivo);
+        try {
+            for (int instancia = 1; nombre == null; instancia++) {
+                ObjectName candidato = new ObjectName(instancia == 1 ? base : base + ",instancia=" + instancia);
+                try {
+                    servidor.registerMBean(this, candidato);
+                    nombre = candidato;
+                } catch (InstanceAlreadyExistsException e) {
+                    // Probar con el siguiente número de instancia
+                }
+            }
+        } catch (JMException e) {
+            System.out.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retira las métricas del servidor de MBeans si estaban publicadas.
+     */
+    public synchronized void retirar() {
+        if (nombre == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(nombre);
+        } catch (JMException e) {
+            System.out.println("No se pudieron retirar las métricas de JMX: " + e.getMessage());
+        }
+        nombre = null;
+    }
+
+    /**
+     * Obtiene la estadística actual de una operación.
+     *
+     * @param operacion La operación
+     * @return Su número de llamadas y latencias
+     */
+    public Estadistica estadistica(Operacion operacion) {
+        return new Estadistica(histogramas.get(operacion));
+    }
+
+    @Override
+    public Estadistica getBusquedasIndice() {
+        return estadistica(Operacion.BUSQUEDA_INDICE);
+    }
+
+    @Override
+    public Estadistica getConstruccionesIndice() {
+        return estadistica(Operacion.CONSTRUCCION_INDICE);
+    }
+
+    @Override
+    public Estadistica getConsultas() {
+        return estadistica(Operacion.CONSULTA);
+    }
+
+    @Override
+    public Estadistica getAltas() {
+        return estadistica(Operacion.ALTA);
+    }
+
+    @Override
+    public Estadistica getActualizaciones() {
+        return estadistica(Operacion.ACTUALIZACION);
+    }
+
+    @Override
+    public Estadistica getBajas() {
+        return estadistica(Operacion.BAJA);
+    }
+
+    @Override
+    public Estadistica getImportaciones() {
+        return estadistica(Operacion.IMPORTACION);
+    }
+
+    @Override
+    public Estadistica getGuardados() {
+        return estadistica(Operacion.GUARDADO);
+    }
+
+    @Override
+    public long getBytesEscritos() {
+        return bytesEscritos.sum();
+    }
+
+    @Override
+    public int getContactos() {
+        return contactos.getAsInt();
+    }
+
+    @Override
+    public Map<String, Integer> getValoresPorIndice() {
+        return valoresPorIndice.get();
+    }
+}
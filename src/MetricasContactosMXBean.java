@@ -0,0 +1,141 @@
+import java.util.Map;
+
+/**
+ * Interfaz de gestión de las métricas de un GestorContactos, publicada en el
+ * servidor de MBeans de la plataforma con el nombre
+ * GestorContactos:type=Metricas,name="archivo".
+ *
+ * Cada operación se publica como un atributo compuesto con su número de
+ * llamadas y su latencia (media, p50, p90, p99 y máximo en milisegundos),
+ * de modo que jconsole, jmc o cualquier exportador JMX lo lean sin clases
+ * propias del proyecto.
+ *
+ */
+public interface MetricasContactosMXBean {
+    /**
+     * @return Búsquedas sobre los árboles de índice (por valor y por rango)
+     */
+    Estadistica getBusquedasIndice();
+
+    /**
+     * @return Construcciones de índices por lotes, al crear un índice o
+     *         reconstruirlo tras una importación
+     */
+    Estadistica getConstruccionesIndice();
+
+    /**
+     * @return Consultas del gestor, incluidas las respondidas desde la caché
+     */
+    Estadistica getConsultas();
+
+    /**
+     * @return Llamadas de alta de contactos, hasta que el cambio queda en
+     *         memoria
+     */
+    Estadistica getAltas();
+
+    /**
+     * @return Llamadas de actualización de contactos, hasta que el cambio
+     *         queda en memoria
+     */
+    Estadistica getActualizaciones();
+
+    /**
+     * @return Llamadas de baja de contactos, hasta que el cambio queda en
+     *         memoria
+     */
+    Estadistica getBajas();
+
+    /**
+     * @return Importaciones de archivos CSV
+     */
+    Estadistica getImportaciones();
+
+    /**
+     * @return Escrituras del archivo de contactos a disco
+     */
+    Estadistica getGuardados();
+
+    /**
+     * @return Bytes escritos en total al guardar el archivo de contactos
+     */
+    long getBytesEscritos();
+
+    /**
+     * @return Número de contactos en memoria
+     */
+    int getContactos();
+
+    /**
+     * @return Número de valores distintos de cada índice, por campo
+     */
+    Map<String, Integer> getValoresPorIndice();
+
+    /**
+     * Número de llamadas y latencia de una operación.
+     */
+    class Estadistica {
+        private final long cantidad;
+        private final double mediaMs;
+        private final double p50Ms;
+        private final double p90Ms;
+        private final double p99Ms;
+        private final double maximoMs;
+
+        /**
+         * Constructor de la clase Estadistica a partir de un histograma.
+         *
+         * @param histograma Histograma de latencias de la operación
+         */
+        public Estadistica(HistogramaLatencias histograma) {
+            this.cantidad = histograma.cantidad();
+            this.mediaMs = histograma.mediaNanos() / 1e6;
+            this.p50Ms = histograma.percentilNanos(50) / 1e6;
+            this.p90Ms = histograma.percentilNanos(90) / 1e6;
+            this.p99Ms = histograma.percentilNanos(99) / 1e6;
+            this.maximoMs = histograma.maximoNanos() / 1e6;
+        }
+
+        /**
+         * @return Número de llamadas registradas
+         */
+        public long getCantidad() {
+            return cantidad;
+        }
+
+        /**
+         * @return Latencia media en milisegundos
+         */
+        public double getMediaMs() {
+            return mediaMs;
+        }
+
+        /**
+         * @return Percentil 50 de la latencia en milisegundos
+         */
+        public double getP50Ms() {
+            return p50Ms;
+        }
+
+        /**
+         * @return Percentil 90 de la latencia en milisegundos
+         */
+        public double getP90Ms() {
+            return p90Ms;
+        }
+
+        /**
+         * @return Percentil 99 de la latencia en milisegundos
+         */
+        public double getP99Ms() {
+            return p99Ms;
+        }
+
+        /**
+         * @return Latencia máxima en milisegundos
+         */
+        public double getMaximoMs() {
+            return maximoMs;
+        }
+    }
+}
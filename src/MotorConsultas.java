@@ -0,0 +1,270 @@
+import java.util.*;
+
+/**
+ * Motor que ejecuta consultas con varios predicados sobre los contactos.
+ *
+ * Para cada predicado con índice obtiene la lista ordenada de IDs desde
+ * GestionIndices; las combinaciones Y se resuelven intersecando las listas
+ * empezando por la más selectiva y las combinaciones O uniéndolas. La
+ * selectividad se estima con el número de IDs que cada predicado tiene en su
+ * índice, contado sin copiar las listas. Los predicados sin índice se aplican
+ * como filtro sobre los candidatos, y solo si ningún índice es aplicable se
+ * recorre el almacén completo.
+ *
+ */
+public class MotorConsultas {
+    /**
+     * Número de candidatos por debajo del cual los predicados restantes de una
+     * combinación Y se comprueban contacto a contacto en lugar de usar su índice.
+     */
+    private static final int UMBRAL_FILTRO = 32;
+
+    /**
+     * Resultado de una consulta: IDs encontrados y plan de ejecución seguido.
+     */
+    public static class Resultado {
+        private final int[] ids;
+        private final List<String> plan;
+
+        Resultado(int[] ids, List<String> plan) {
+            this.ids = ids;
+            this.plan = plan;
+        }
+
+        /**
+         * @return Los IDs de los contactos que cumplen la consulta, ordenados
+         */
+        public int[] getIds() {
+            return ids;
+        }
+
+        /**
+         * @return Las líneas del plan de ejecución (índices usados, filtros, etc.)
+         */
+        public List<String> getPlan() {
+            return plan;
+        }
+    }
+
+    private GestionIndices gestionIndices;
+    private AlmacenContactos contactos;
+    private BusquedaParalela busquedaParalela;
+
+    /**
+     * Constructor de la clase MotorConsultas.
+     *
+     * @param gestionIndices Índices disponibles
+     * @param contactos      Almacén de contactos sobre el que se consulta
+     */
+    public MotorConsultas(GestionIndices gestionIndices, AlmacenContactos contactos) {
+        this.gestionIndices = gestionIndices;
+        this.contactos = contactos;
+        this.busquedaParalela = new BusquedaParalela();
+    }
+
+    /**
+     * Ejecuta una consulta.
+     *
+     * @param consulta La consulta a ejecutar
+     * @return Los IDs encontrados y el plan de ejecución
+     */
+    public Resultado ejecutar(Consulta consulta) {
+        List<String> plan = new ArrayList<>();
+        plan.add("Consulta: " + consulta);
+
+        int[] ids = evaluar(consulta, plan, 1);
+        if (ids == null) {
+            plan.add("  Recorrido completo en paralelo de " + contactos.tamano()
+                    + " contactos (ningún índice aplicable)");
+            ids = recorrerTodo(consulta);
+        }
+        plan.add("Resultado: " + ids.length + " contactos");
+        return new Resultado(ids, plan);
+    }
+
+    /**
+     * Evalúa una consulta usando los índices.
+     *
+     * @param consulta La consulta a evaluar
+     * @param plan     Lista donde se anotan los pasos
+     * @param nivel    Nivel de anidamiento (para sangrar el plan)
+     * @return Los IDs ordenados, o null si la consulta no puede resolverse con
+     *         índices
+     */
+    private int[] evaluar(Consulta consulta, List<String> plan, int nivel) {
+        switch (consulta.getTipo()) {
+            case Y:
+                return evaluarY(consulta, plan, nivel);
+            case O:
+                return evaluarO(consulta, plan, nivel);
+            default:
+                return evaluarPredicado(consulta, plan, nivel);
+        }
+    }
+
+    private int[] evaluarPredicado(Consulta consulta, List<String> plan, int nivel) {
+        String campo = consulta.getCampo();
+        if (!gestionIndices.tieneIndice(campo))
+            return null;
+
+        int[] ids = consulta.getTipo() == Consulta.Tipo.IGUAL
+                ? gestionIndices.idsDe(campo, consulta.getDesde())
+                : gestionIndices.idsEnRango(campo, consulta.getDesde(), consulta.getHasta());
+        plan.add(sangria(nivel) + "Índice " + gestionIndices.getTipoIndice(campo) + " '" + campo + "': "
+                + consulta + " -> " + ids.length + " IDs");
+        return ids;
+    }
+
+    private int[] evaluarY(Consulta consulta, List<String> plan, int nivel) {
+        // Primero los hijos que dan menos IDs según sus índices; a igual
+        // estimación, igualdades, luego prefijos, rangos y combinaciones anidadas
+        List<Consulta> hijos = new ArrayList<>(consulta.getHijos());
+        hijos.sort(Comparator.comparingInt(MotorConsultas::prioridadTipo));
+        Map<Consulta, Long> estimados = new IdentityHashMap<>();
+        List<String> orden = new ArrayList<>();
+        for (Consulta hijo : hijos) {
+            long ids = estimarIds(hijo);
+            estimados.put(hijo, ids);
+            orden.add(hijo + (ids == Long.MAX_VALUE ? " (sin índice)" : " (" + ids + " IDs)"));
+        }
+        hijos.sort(Comparator.comparingLong(estimados::get));
+        plan.add(sangria(nivel) + "Estimación: " + String.join(", ", orden));
+
+        int[] candidatos = null;
+        List<Consulta> filtros = new ArrayList<>();
+
+        for (Consulta hijo : hijos) {
+            if (candidatos != null && candidatos.length <= UMBRAL_FILTRO) {
+                filtros.add(hijo);
+                continue;
+            }
+            List<String> planHijo = new ArrayList<>();
+            int[] ids = evaluar(hijo, planHijo, nivel + 1);
+            if (ids == null) {
+                filtros.add(hijo);
+                continue;
+            }
+            plan.addAll(planHijo);
+            if (candidatos == null) {
+                candidatos = ids;
+            } else {
+                candidatos = ListaIds.interseccion(candidatos, ids);
+                plan.add(sangria(nivel) + "Intersección -> " + candidatos.length + " IDs");
+            }
+        }
+
+        if (candidatos == null)
+            return null;
+
+        if (!filtros.isEmpty()) {
+            plan.add(sangria(nivel) + "Filtro directo sobre " + candidatos.length + " candidatos: " + filtros);
+            candidatos = filtrar(candidatos, filtros);
+        }
+        return candidatos;
+    }
+
+    private int[] evaluarO(Consulta consulta, List<String> plan, int nivel) {
+        List<String> planHijos = new ArrayList<>();
+        int[] resultado = new int[0];
+
+        for (Consulta hijo : consulta.getHijos()) {
+            int[] ids = evaluar(hijo, planHijos, nivel + 1);
+            if (ids == null) {
+                // Basta un predicado sin índice para tener que revisar todos los contactos
+                return null;
+            }
+            resultado = ListaIds.union(resultado, ids);
+        }
+
+        plan.addAll(planHijos);
+        plan.add(sangria(nivel) + "Unión -> " + resultado.length + " IDs");
+        return resultado;
+    }
+
+    /**
+     * Conserva solo los candidatos que cumplen todos los filtros.
+     */
+    private int[] filtrar(int[] candidatos, List<Consulta> filtros) {
+        int[] resultado = new int[candidatos.length];
+        int k = 0;
+        for (int id : candidatos) {
+            Contacto contacto = contactos.buscarPorId(id);
+            if (contacto != null && cumpleTodos(contacto, filtros)) {
+                resultado[k++] = id;
+            }
+        }
+        return Arrays.copyOf(resultado, k);
+    }
+
+    /**
+     * Evalúa la consulta sobre todos los contactos del almacén.
+     */
+    private int[] recorrerTodo(Consulta consulta) {
+        return busquedaParalela.buscar(contactos, consulta::cumple);
+    }
+
+    private static boolean cumpleTodos(Contacto contacto, List<Consulta> filtros) {
+        for (Consulta filtro : filtros) {
+            if (!filtro.cumple(contacto))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Estima cuántos IDs devolverá una consulta a partir de sus índices: una
+     * combinación Y como mucho los de su hijo más selectivo y una O la suma de
+     * los de sus hijos.
+     *
+     * @param consulta La consulta a estimar
+     * @return El número estimado de IDs, o Long.MAX_VALUE si hace falta
+     *         recorrer todos los contactos
+     */
+    private long estimarIds(Consulta consulta) {
+        switch (consulta.getTipo()) {
+            case Y: {
+                long minimo = Long.MAX_VALUE;
+                for (Consulta hijo : consulta.getHijos()) {
+                    minimo = Math.min(minimo, estimarIds(hijo));
+                }
+                return minimo;
+            }
+            case O: {
+                long total = 0;
+                for (Consulta hijo : consulta.getHijos()) {
+                    long ids = estimarIds(hijo);
+                    if (ids == Long.MAX_VALUE)
+                        return Long.MAX_VALUE;
+                    total += ids;
+                }
+                return total;
+            }
+            case IGUAL: {
+                long ids = gestionIndices.contarIds(consulta.getCampo(), consulta.getDesde());
+                return ids < 0 ? Long.MAX_VALUE : ids;
+            }
+            default: {
+                long ids = gestionIndices.contarIdsEnRango(consulta.getCampo(), consulta.getDesde(),
+                        consulta.getHasta());
+                return ids < 0 ? Long.MAX_VALUE : ids;
+            }
+        }
+    }
+
+    /**
+     * Orden de los hijos de una combinación Y con la misma estimación, de los
+     * que suelen dar menos IDs a los que suelen dar más.
+     */
+    private static int prioridadTipo(Consulta consulta) {
+        return switch (consulta.getTipo()) {
+            case IGUAL -> 0;
+            case PREFIJO -> 1;
+            case RANGO -> 2;
+            default -> 3;
+        };
+    }
+
+    private static String sangria(int nivel) {
+        return "  ".repeat(nivel);
+    }
+}
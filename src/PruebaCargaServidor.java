@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga del servidor HTTP que se ejecuta por completo en la máquina
+ * local.
+ *
+ * Arranca un ServidorContactos sobre una copia temporal del archivo de
+ * contactos y lanza muchos clientes concurrentes que mezclan búsquedas por
+ * valor, por prefijo, por ID y altas. Al terminar muestra el número de
+ * peticiones por segundo y la latencia de cada tipo de petición.
+ *
+ * Uso: java PruebaCargaServidor [clientes] [segundos] [archivo.csv]
+ *
+ */
+public class PruebaCargaServidor {
+    private static final String[] TIPOS = { "GET valor", "GET prefijo", "GET id", "POST" };
+
+    /**
+     * Método principal de la prueba de carga.
+     *
+     * @param args Número de clientes (200 por defecto), duración en segundos
+     *             (10 por defecto) y archivo CSV de partida (contacts.csv por
+     *             defecto)
+     * @throws Exception Si no se puede preparar el servidor
+     */
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Path origen = Paths.get(args.length > 2 ? args[2] : "contacts.csv");
+
+        // Se trabaja sobre una copia para no modificar el archivo original con las altas
+        Path copia = Files.createTempFile("prueba-carga", ".csv");
+        if (Files.exists(origen)) {
+            Files.copy(origen, copia, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.writeString(copia, Contacto.CABECERA_CSV + System.lineSeparator());
+        }
+
+        GestorContactos gestor = new GestorContactos(copia.toString(), false);
+        gestor.crearIndice("apellido", "AVL");
+        gestor.crearIndice("nombre", "BST");
+        int contactosIniciales = Math.max(1, gestor.cantidadContactos());
+
+        // Valores reales de los datos para que las búsquedas encuentren resultados
+        List<String> apellidos = new ArrayList<>();
+        List<String> prefijos = new ArrayList<>();
+        for (int id = 1; id <= Math.min(contactosIniciales, 1000); id++) {
+            Contacto contacto = gestor.buscarPorId(id);
+            if (contacto == null)
+                continue;
+            if (contacto.getApellido() != null)
+                apellidos.add(contacto.getApellido());
+            if (contacto.getNombre() != null && contacto.getNombre().length() >= 2)
+                prefijos.add(contacto.getNombre().substring(0, 2));
+        }
+        if (apellidos.isEmpty())
+            apellidos.add("Mora");
+        if (prefijos.isEmpty())
+            prefijos.add("An");
+
+        ServidorContactos servidor = new ServidorContactos(gestor, 0);
+        servidor.iniciar();
+        String base = "http://localhost:" + servidor.getPuerto() + "/contactos";
+        System.out.println("Servidor en " + base + " con " + clientes + " clientes durante " + segundos + " s");
+
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        List<RegistroLatencias[]> latencias = new ArrayList<>();
+        AtomicLong errores = new AtomicLong();
+        CountDownLatch terminados = new CountDownLatch(clientes);
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+
+        for (int c = 0; c < clientes; c++) {
+            RegistroLatencias[] propias = new RegistroLatencias[TIPOS.length];
+            for (int t = 0; t < TIPOS.length; t++) {
+                propias[t] = new RegistroLatencias();
+            }
+            latencias.add(propias);
+            Random aleatorio = new Random(c);
+
+            Thread hilo = new Thread(() -> {
+                try {
+                    int n = 0;
+                    while (System.nanoTime() < fin) {
+                        int tipo = elegirTipo(aleatorio);
+                        HttpRequest peticion = crearPeticion(base, tipo, aleatorio, contactosIniciales,
+                                apellidos, prefijos, n++);
+                        long inicio = System.nanoTime();
+                        try {
+                            HttpResponse<String> respuesta = cliente.send(peticion,
+                                    HttpResponse.BodyHandlers.ofString());
+                            if (respuesta.statusCode() >= 500) {
+                                errores.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errores.incrementAndGet();
+                        }
+                        propias[tipo].registrar(System.nanoTime() - inicio);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    terminados.countDown();
+                }
+            }, "cliente-" + c);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+
+        terminados.await();
+        servidor.detener();
+        gestor.cerrar();
+        Files.deleteIfExists(copia);
+
+        long total = 0;
+        System.out.println(RegistroLatencias.cabecera());
+        for (int t = 0; t < TIPOS.length; t++) {
+            RegistroLatencias todas = new RegistroLatencias();
+            for (RegistroLatencias[] propias : latencias) {
+                todas.combinar(propias[t]);
+            }
+            total += todas.cantidad();
+            System.out.println(todas.resumen(TIPOS[t]));
+        }
+        System.out.printf("Total: %d peticiones, %.0f peticiones/s, %d errores%n", total,
+                total / (double) segundos, errores.get());
+    }
+
+    /**
+     * Elige el tipo de petición: 60% búsquedas por valor, 20% por prefijo,
+     * 15% por ID y 5% altas.
+     */
+    private static int elegirTipo(Random aleatorio) {
+        int r = aleatorio.nextInt(100);
+        if (r < 60)
+            return 0;
+        if (r < 80)
+            return 1;
+        if (r < 95)
+            return 2;
+        return 3;
+    }
+
+    private static HttpRequest crearPeticion(String base, int tipo, Random aleatorio, int contactos,
+                                             List<String> apellidos, List<String> prefijos, int n) {
+        String apellido = apellidos.get(aleatorio.nextInt(apellidos.size()));
+        switch (tipo) {
+            case 0:
+                return HttpRequest.newBuilder(URI.create(base + "?campo=apellido&valor="
+                        + URLEncoder.encode(apellido, StandardCharsets.UTF_8))).build();
+            case 1:
+                return HttpRequest.newBuilder(URI.create(base + "?campo=nombre&prefijo="
+                        + URLEncoder.encode(prefijos.get(aleatorio.nextInt(prefijos.size())),
+                                StandardCharsets.UTF_8))).build();
+            case 2:
+                return HttpRequest.newBuilder(URI.create(base + "/" + (1 + aleatorio.nextInt(contactos)))).build();
+            default:
+                String cuerpo = "{\"nombre\":\"Carga" + n + "\",\"apellido\":\"" + apellido
+                        + "\",\"telefono\":\"" + n + "\",\"email\":\"carga" + n + "@prueba.com\"}";
+                return HttpRequest.newBuilder(URI.create(base))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(cuerpo)).build();
+        }
+    }
+}
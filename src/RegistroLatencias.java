@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/**
+ * Registro de latencias de un tipo de operación para calcular percentiles.
+ *
+ * Guarda cada medida en nanosegundos en un arreglo que crece según hace
+ * falta. No es seguro para varios hilos: cada hilo usa su propio registro y
+ * al final se combinan con combinar.
+ *
+ */
+public class RegistroLatencias {
+    private long[] medidas = new long[64];
+    private int cantidad;
+    private long total;
+
+    /**
+     * Registra una medida.
+     *
+     * @param nanos Duración de la operación en nanosegundos
+     */
+    public void registrar(long nanos) {
+        if (cantidad == medidas.length) {
+            medidas = Arrays.copyOf(medidas, cantidad * 2);
+        }
+        medidas[cantidad++] = nanos;
+        total += nanos;
+    }
+
+    /**
+     * Agrega a este registro todas las medidas de otro.
+     *
+     * @param otro El registro a combinar
+     */
+    public void combinar(RegistroLatencias otro) {
+        if (cantidad + otro.cantidad > medidas.length) {
+            medidas = Arrays.copyOf(medidas, Math.max(cantidad + otro.cantidad, medidas.length * 2));
+        }
+        System.arraycopy(otro.medidas, 0, medidas, cantidad, otro.cantidad);
+        cantidad += otro.cantidad;
+        total += otro.total;
+    }
+
+    /**
+     * @return El número de medidas registradas
+     */
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return La suma de todas las medidas en nanosegundos
+     */
+    public long totalNanos() {
+        return total;
+    }
+
+    /**
+     * Genera una línea con la cantidad y los percentiles p50, p90, p99 y el
+     * máximo, en el formato de las tablas de resultados.
+     *
+     * @param nombre Nombre del tipo de operación
+     * @return La línea formateada
+     */
+    public String resumen(String nombre) {
+        if (cantidad == 0) {
+            return String.format("%-14s %10d", nombre, 0);
+        }
+        long[] ordenadas = Arrays.copyOf(medidas, cantidad);
+        Arrays.sort(ordenadas);
+        return String.format("%-14s %10d %10.3f %10.3f %10.3f %10.3f", nombre, cantidad,
+                percentil(ordenadas, 50), percentil(ordenadas, 90), percentil(ordenadas, 99),
+                ordenadas[cantidad - 1] / 1_000_000.0);
+    }
+
+    /**
+     * @return La cabecera de las tablas generadas con resumen
+     */
+    public static String cabecera() {
+        return String.format("%-14s %10s %10s %10s %10s %10s", "Operación", "Cantidad", "p50 ms", "p90 ms",
+                "p99 ms", "máx ms");
+    }
+
+    private static double percentil(long[] ordenadas, int percentil) {
+        int pos = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, pos)] / 1_000_000.0;
+    }
+}
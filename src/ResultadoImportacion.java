@@ -0,0 +1,305 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Resultado de importar un archivo CSV de contactos: cuántas filas se leyeron,
+ * cuántos contactos se importaron, cuántas filas repetidas se omitieron o
+ * fusionaron y qué filas se rechazaron y por qué. En una reimportación
+ * incremental también cuenta los contactos actualizados, los eliminados y
+ * las filas que no cambiaron.
+ *
+ * Las filas rechazadas se guardan con su número de línea en el archivo (la
+ * cabecera es la línea 1), de modo que un archivo con muchas filas erróneas
+ * se puede corregir a partir del informe. Rechazar una fila no lanza ninguna
+ * excepción: el motivo se anota aquí y la importación sigue.
+ *
+ */
+public class ResultadoImportacion {
+    /**
+     * Número máximo de filas rechazadas que se muestran en el informe.
+     */
+    private static final int RECHAZOS_EN_INFORME = 10;
+
+    /**
+     * Fila del archivo que no se pudo importar.
+     */
+    public static class Rechazo {
+        private final long numeroLinea;
+        private final String linea;
+        private final String motivo;
+
+        Rechazo(long numeroLinea, String linea, String motivo) {
+            this.numeroLinea = numeroLinea;
+            this.linea = linea;
+            this.motivo = motivo;
+        }
+
+        /**
+         * @return El número de línea en el archivo (0 si no se conoce)
+         */
+        public long getNumeroLinea() {
+            return numeroLinea;
+        }
+
+        /**
+         * @return El contenido de la línea rechazada
+         */
+        public String getLinea() {
+            return linea;
+        }
+
+        /**
+         * @return El motivo del rechazo
+         */
+        public String getMotivo() {
+            return motivo;
+        }
+
+        @Override
+        public String toString() {
+            return "Línea " + numeroLinea + ": " + motivo + " -> " + linea;
+        }
+    }
+
+    private final String archivo;
+    private final List<Rechazo> rechazos = new ArrayList<>();
+    private final List<Rechazo> duplicados = new ArrayList<>();
+    private long filas;
+    private long importados;
+    private long omitidos;
+    private long fusionados;
+    private long actualizados;
+    private long sinCambios;
+    private long eliminados;
+
+    /**
+     * Constructor de la clase ResultadoImportacion.
+     *
+     * @param archivo Archivo importado
+     */
+    public ResultadoImportacion(String archivo) {
+        this.archivo = archivo;
+    }
+
+    /**
+     * Anota una fila importada.
+     */
+    void importada() {
+        filas++;
+        importados++;
+    }
+
+    /**
+     * Anota una fila repetida que se descartó sin más.
+     */
+    void omitida() {
+        filas++;
+        omitidos++;
+    }
+
+    /**
+     * Anota una fila repetida cuyos datos se fusionaron con el contacto
+     * existente.
+     */
+    void fusionada() {
+        filas++;
+        fusionados++;
+    }
+
+    /**
+     * Anota una fila reimportada que cambió los datos de un contacto.
+     */
+    void actualizada() {
+        filas++;
+        actualizados++;
+    }
+
+    /**
+     * Anota una fila reimportada igual al contacto guardado.
+     */
+    void sinCambio() {
+        filas++;
+        sinCambios++;
+    }
+
+    /**
+     * Anota los contactos eliminados por no aparecer en el archivo
+     * reimportado.
+     *
+     * @param cantidad Número de contactos eliminados
+     */
+    void eliminados(long cantidad) {
+        eliminados += cantidad;
+    }
+
+    /**
+     * Anota una fila repetida que se descartó como conflicto.
+     *
+     * @param numeroLinea Número de línea en el archivo
+     * @param linea       Contenido de la línea
+     * @param motivo      Contacto con el que coincide
+     */
+    void duplicada(long numeroLinea, String linea, String motivo) {
+        filas++;
+        duplicados.add(new Rechazo(numeroLinea, linea, motivo));
+    }
+
+    /**
+     * Anota una fila rechazada.
+     *
+     * @param numeroLinea Número de línea en el archivo
+     * @param linea       Contenido de la línea
+     * @param motivo      Motivo del rechazo
+     */
+    void rechazar(long numeroLinea, String linea, String motivo) {
+        filas++;
+        rechazos.add(new Rechazo(numeroLinea, linea, motivo));
+    }
+
+    /**
+     * Suma a este resultado el de otra parte de la misma importación, por
+     * ejemplo el de una partición de un GestorContactosParticionado. Las filas
+     * rechazadas y en conflicto quedan ordenadas por número de línea.
+     *
+     * @param otro El resultado a sumar
+     */
+    void sumar(ResultadoImportacion otro) {
+        filas += otro.filas;
+        importados += otro.importados;
+        omitidos += otro.omitidos;
+        fusionados += otro.fusionados;
+        actualizados += otro.actualizados;
+        sinCambios += otro.sinCambios;
+        eliminados += otro.eliminados;
+        rechazos.addAll(otro.rechazos);
+        rechazos.sort(Comparator.comparingLong(Rechazo::getNumeroLinea));
+        duplicados.addAll(otro.duplicados);
+        duplicados.sort(Comparator.comparingLong(Rechazo::getNumeroLinea));
+    }
+
+    /**
+     * @return El archivo importado
+     */
+    public String getArchivo() {
+        return archivo;
+    }
+
+    /**
+     * @return El número de filas de datos leídas, sin contar la cabecera
+     */
+    public long getFilas() {
+        return filas;
+    }
+
+    /**
+     * @return El número de contactos importados
+     */
+    public long getImportados() {
+        return importados;
+    }
+
+    /**
+     * @return El número de filas repetidas que se omitieron
+     */
+    public long getOmitidos() {
+        return omitidos;
+    }
+
+    /**
+     * @return El número de filas repetidas fusionadas con un contacto existente
+     */
+    public long getFusionados() {
+        return fusionados;
+    }
+
+    /**
+     * @return El número de contactos actualizados en una reimportación
+     */
+    public long getActualizados() {
+        return actualizados;
+    }
+
+    /**
+     * @return El número de filas reimportadas que no cambiaron
+     */
+    public long getSinCambios() {
+        return sinCambios;
+    }
+
+    /**
+     * @return El número de contactos eliminados en una reimportación
+     */
+    public long getEliminados() {
+        return eliminados;
+    }
+
+    /**
+     * @return Las filas repetidas anotadas como conflicto, en orden de aparición
+     */
+    public List<Rechazo> getDuplicados() {
+        return Collections.unmodifiableList(duplicados);
+    }
+
+    /**
+     * @return Las filas rechazadas, en orden de aparición
+     */
+    public List<Rechazo> getRechazos() {
+        return Collections.unmodifiableList(rechazos);
+    }
+
+    /**
+     * @return true si no se rechazó ninguna fila
+     */
+    public boolean sinErrores() {
+        return rechazos.isEmpty();
+    }
+
+    /**
+     * Genera un informe con el resumen de la importación, las primeras filas
+     * rechazadas y los primeros conflictos por duplicados.
+     *
+     * @return El informe en varias líneas
+     */
+    public String informe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Importados ").append(importados).append(" de ").append(filas).append(" contactos desde ")
+                .append(archivo);
+        if (actualizados > 0 || sinCambios > 0 || eliminados > 0) {
+            sb.append(System.lineSeparator()).append("  ").append(actualizados).append(" actualizados, ")
+                    .append(eliminados).append(" eliminados, ").append(sinCambios).append(" sin cambios");
+        }
+        if (omitidos > 0) {
+            sb.append(System.lineSeparator()).append("  ").append(omitidos).append(" filas repetidas omitidas");
+        }
+        if (fusionados > 0) {
+            sb.append(System.lineSeparator()).append("  ").append(fusionados)
+                    .append(" filas repetidas fusionadas con contactos existentes");
+        }
+        anexar(sb, duplicados, " filas repetidas en conflicto");
+        anexar(sb, rechazos, " filas rechazadas");
+        return sb.toString();
+    }
+
+    /**
+     * Añade al informe el número de filas de una lista y las primeras de ellas.
+     */
+    private static void anexar(StringBuilder sb, List<Rechazo> lista, String titulo) {
+        if (lista.isEmpty())
+            return;
+        sb.append(System.lineSeparator()).append("  ").append(lista.size()).append(titulo);
+        for (int i = 0; i < Math.min(RECHAZOS_EN_INFORME, lista.size()); i++) {
+            sb.append(System.lineSeparator()).append("    ").append(lista.get(i));
+        }
+        if (lista.size() > RECHAZOS_EN_INFORME) {
+            sb.append(System.lineSeparator()).append("    ... y ")
+                    .append(lista.size() - RECHAZOS_EN_INFORME).append(" más");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return informe();
+    }
+}
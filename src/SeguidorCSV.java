@@ -0,0 +1,333 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Sigue un archivo CSV de contactos que otros procesos van ampliando, o un
+ * directorio de entrada con varios, y agrega las filas nuevas sin reiniciar
+ * la aplicación ni volver a importar todo.
+ *
+ * Un hilo propio espera los avisos de un WatchService sobre el directorio y,
+ * por cada archivo modificado, lee desde la posición en bytes hasta la que
+ * llegó la vez anterior. Solo se consumen líneas completas: una fila que el
+ * productor aún no terminó de escribir se lee en el siguiente aviso. Si el
+ * archivo se trunca o se reescribe (la posición recordada ya no cae justo
+ * después de un salto de línea), se vuelve a leer desde el principio; las
+ * filas cuyo ID ya existe se omiten, así que no se duplican contactos.
+ *
+ * Al seguir un archivo, lo que ya contenía al arrancar se da por cargado y
+ * solo se leen las filas añadidas después. Al seguir un directorio se leen
+ * completos los archivos .csv que ya había y los que aparezcan.
+ *
+ * Si se sigue el propio archivo de contactos, el EscritorPersistencia lo
+ * reescribe a través de reescribir(): antes de cada escritura se agregan las
+ * filas que otros procesos hayan añadido, para que entren en la instantánea,
+ * y después la posición pasa al final de lo escrito, de modo que el seguidor
+ * no vuelve a leer el archivo entero tras cada cambio de la aplicación. Las
+ * filas que un productor añada mientras se escribe el archivo, o las que
+ * escriba en el archivo anterior si lo mantiene abierto, se pierden al
+ * sustituirlo; los productores que escriban a la vez que la aplicación
+ * modifica contactos deben dejar sus filas en un directorio de entrada
+ * seguido aparte.
+ *
+ */
+public class SeguidorCSV {
+    /**
+     * Bytes que se leen de una vez. Una línea más larga amplía el bloque.
+     */
+    private static final int TAMANO_BLOQUE = 1 << 20;
+
+    /**
+     * Hasta dónde se leyó un archivo seguido.
+     */
+    private static class Posicion {
+        long bytes;
+        long lineas;
+    }
+
+    /**
+     * Escritura completa del archivo seguido hecha por la propia aplicación.
+     */
+    public interface Reescritura {
+        /**
+         * Escribe el archivo y lo pone en lugar del seguido. Debe llamar a
+         * reescrito() con lo que escribió.
+         *
+         * @throws IOException si ocurre un error al escribir
+         */
+        void escribir() throws IOException;
+    }
+
+    private final GestorContactos gestor;
+    private final Path directorio;
+    private final Path nombreArchivo;
+    private final boolean guardar;
+    private final WatchService vigilante;
+    // Las lecturas y las reescrituras del archivo seguido, de una en una
+    private final Object lectura = new Object();
+    // Solo se usa con 'lectura' tomado (y en el constructor antes de arrancar el hilo)
+    private final Map<Path, Posicion> posiciones = new HashMap<>();
+    private final Thread hilo;
+    private volatile boolean cerrado;
+
+    /**
+     * Constructor de la clase SeguidorCSV. Arranca el hilo seguidor.
+     *
+     * @param gestor  Gestor al que agregar los contactos nuevos
+     * @param ruta    Archivo CSV o directorio de entrada a seguir
+     * @param guardar true si los contactos agregados deben guardarse en el
+     *                archivo del gestor (false si la ruta es ese mismo
+     *                archivo, donde ya están escritos)
+     * @throws IOException si no se puede vigilar el directorio
+     */
+    public SeguidorCSV(GestorContactos gestor, Path ruta, boolean guardar) throws IOException {
+        this.gestor = gestor;
+        this.guardar = guardar;
+        Path absoluta = ruta.toAbsolutePath().normalize();
+        if (Files.isDirectory(absoluta)) {
+            this.directorio = absoluta;
+            this.nombreArchivo = null;
+        } else {
+            this.directorio = absoluta.getParent();
+            this.nombreArchivo = absoluta.getFileName();
+            posiciones.put(nombreArchivo, posicionFinal(absoluta));
+        }
+        this.vigilante = directorio.getFileSystem().newWatchService();
+        directorio.register(vigilante, ENTRY_CREATE, ENTRY_MODIFY);
+
+        this.hilo = new Thread(this::ejecutar, "seguidor-csv");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Detiene el hilo seguidor. Las filas que se estén agregando en ese
+     * momento terminan de agregarse.
+     */
+    public void cerrar() {
+        if (cerrado)
+            return;
+        cerrado = true;
+        try {
+            vigilante.close();
+        } catch (IOException e) {
+            System.out.println("Error al cerrar el seguimiento de " + directorio + ": " + e.getMessage());
+        }
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void ejecutar() {
+        if (nombreArchivo == null) {
+            leerTodos();
+        }
+        while (!cerrado) {
+            WatchKey clave;
+            try {
+                clave = vigilante.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> evento : clave.pollEvents()) {
+                if (evento.kind() == OVERFLOW) {
+                    // Se perdieron avisos: se revisan todos los archivos seguidos
+                    leerTodos();
+                } else if (sigue((Path) evento.context())) {
+                    leer((Path) evento.context());
+                }
+            }
+            if (!clave.reset()) {
+                System.out.println("Se dejó de seguir " + directorio + ": el directorio ya no existe");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reescribe el archivo seguido sin que el seguidor lo tome por un archivo
+     * nuevo. Antes de escribir agrega las filas completas que otros procesos
+     * hayan añadido desde la última lectura.
+     *
+     * @param reescritura Escritura del archivo completo
+     * @throws IOException si ocurre un error al escribir
+     */
+    public void reescribir(Reescritura reescritura) throws IOException {
+        synchronized (lectura) {
+            if (!cerrado && nombreArchivo != null) {
+                leer(nombreArchivo);
+            }
+            reescritura.escribir();
+        }
+    }
+
+    /**
+     * Anota que el archivo seguido es el que acaba de escribir la aplicación:
+     * la próxima lectura empezará tras sus líneas.
+     *
+     * @param bytes  Bytes escritos
+     * @param lineas Líneas escritas, cabecera incluida
+     */
+    public void reescrito(long bytes, long lineas) {
+        synchronized (lectura) {
+            if (nombreArchivo == null)
+                return;
+            Posicion posicion = posiciones.computeIfAbsent(nombreArchivo, n -> new Posicion());
+            posicion.bytes = bytes;
+            posicion.lineas = lineas;
+        }
+    }
+
+    private boolean sigue(Path nombre) {
+        return nombreArchivo != null ? nombreArchivo.equals(nombre) : nombre.toString().endsWith(".csv");
+    }
+
+    private void leerTodos() {
+        if (nombreArchivo != null) {
+            leer(nombreArchivo);
+            return;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*.csv")) {
+            for (Path archivo : archivos) {
+                leer(archivo.getFileName());
+            }
+        } catch (IOException e) {
+            System.out.println("Error al revisar " + directorio + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lee las líneas completas añadidas a un archivo desde la última lectura y
+     * las pasa al gestor.
+     */
+    private void leer(Path nombre) {
+        synchronized (lectura) {
+            leerDesdePosicion(nombre);
+        }
+    }
+
+    private void leerDesdePosicion(Path nombre) {
+        Path archivo = directorio.resolve(nombre);
+        Posicion posicion = posiciones.computeIfAbsent(nombre, n -> new Posicion());
+        ResultadoImportacion resultado = new ResultadoImportacion(archivo.toString());
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (!despuesDeLinea(canal, posicion.bytes)) {
+                // Truncado o reescrito: las filas que ya estaban se omitirán por su ID
+                posicion.bytes = 0;
+                posicion.lineas = 0;
+            }
+
+            ByteBuffer bloque = ByteBuffer.allocate(TAMANO_BLOQUE);
+            while (!cerrado) {
+                bloque.clear();
+                int leidos = canal.read(bloque, posicion.bytes);
+                if (leidos <= 0)
+                    break;
+                int finUltimaLinea = ultimoSaltoDeLinea(bloque.array(), leidos) + 1;
+                if (finUltimaLinea == 0) {
+                    if (leidos < bloque.capacity())
+                        break; // El productor aún no terminó la línea
+                    bloque = ByteBuffer.allocate(bloque.capacity() * 2);
+                    continue;
+                }
+
+                List<String> lineas = separarLineas(bloque.array(), finUltimaLinea);
+                long primeraLinea = posicion.lineas + 1;
+                posicion.bytes += finUltimaLinea;
+                posicion.lineas += lineas.size();
+                if (primeraLinea == 1 && lineas.get(0).equals(Contacto.CABECERA_CSV)) {
+                    lineas.remove(0);
+                    primeraLinea++;
+                }
+                gestor.agregarLineasCSV(lineas, primeraLinea, resultado, guardar);
+            }
+        } catch (NoSuchFileException e) {
+            // El archivo se borró o se está reemplazando; el próximo aviso lo volverá a leer
+            posiciones.remove(nombre);
+            return;
+        } catch (IOException e) {
+            System.out.println("Error al leer " + archivo + ": " + e.getMessage());
+            return;
+        }
+
+        if (resultado.getFilas() > 0) {
+            System.out.println(resultado.informe());
+        }
+    }
+
+    /**
+     * Comprueba que una posición sigue siendo el comienzo de una línea del
+     * archivo, es decir, que no pasa del final y que el byte anterior es un
+     * salto de línea.
+     */
+    private static boolean despuesDeLinea(FileChannel canal, long posicion) throws IOException {
+        if (posicion == 0)
+            return true;
+        if (canal.size() < posicion)
+            return false;
+        ByteBuffer anterior = ByteBuffer.allocate(1);
+        return canal.read(anterior, posicion - 1) == 1 && anterior.get(0) == '\n';
+    }
+
+    private static int ultimoSaltoDeLinea(byte[] bytes, int longitud) {
+        for (int i = longitud - 1; i >= 0; i--) {
+            if (bytes[i] == '\n')
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Separa en líneas los bytes de un bloque que termina en un salto de
+     * línea, en la codificación con la que se escribe el archivo de
+     * contactos. Como los bloques se cortan siempre en un '\n', ningún
+     * carácter UTF-8 queda partido.
+     */
+    private static List<String> separarLineas(byte[] bytes, int longitud) {
+        List<String> lineas = new ArrayList<>();
+        int inicio = 0;
+        for (int i = 0; i < longitud; i++) {
+            if (bytes[i] == '\n') {
+                int fin = i > inicio && bytes[i - 1] == '\r' ? i - 1 : i;
+                lineas.add(new String(bytes, inicio, fin - inicio, EscritorPersistencia.CODIFICACION));
+                inicio = i + 1;
+            }
+        }
+        return lineas;
+    }
+
+    /**
+     * Posición al final de las líneas completas que ya tiene un archivo.
+     */
+    private static Posicion posicionFinal(Path archivo) throws IOException {
+        Posicion posicion = new Posicion();
+        if (!Files.exists(archivo))
+            return posicion;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            ByteBuffer bloque = ByteBuffer.allocate(TAMANO_BLOQUE);
+            long leidosTotal = 0;
+            int leidos;
+            while ((leidos = canal.read(bloque.clear(), leidosTotal)) > 0) {
+                byte[] bytes = bloque.array();
+                for (int i = 0; i < leidos; i++) {
+                    if (bytes[i] == '\n') {
+                        posicion.lineas++;
+                        posicion.bytes = leidosTotal + i + 1;
+                    }
+                }
+                leidosTotal += leidos;
+            }
+        }
+        return posicion;
+    }
+}
@@ -0,0 +1,157 @@
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Interfaz de las operaciones sobre contactos que ofrecen tanto
+ * GestorContactos como GestorContactosParticionado.
+ *
+ * Permite que el servidor HTTP, el ejecutor de guiones y el menú trabajen
+ * con un único gestor o con uno repartido en particiones sin cambiar su
+ * lógica.
+ *
+ */
+public interface ServicioContactos {
+    /**
+     * Crea un índice para un campo y lo llena con los contactos existentes.
+     *
+     * @param campo     Campo sobre el que se creará el índice (nombre, apellido,
+     *                  etc.)
+     * @param tipoArbol Tipo de árbol a utilizar ("BST" o "AVL")
+     */
+    void crearIndice(String campo, String tipoArbol);
+
+    /**
+     * Agrega un nuevo contacto con el siguiente ID libre.
+     *
+     * @param nombre          Nombre del contacto
+     * @param apellido        Apellido del contacto
+     * @param apodo           Apodo del contacto
+     * @param telefono        Número de teléfono del contacto
+     * @param email           Correo electrónico del contacto (debe tener un formato
+     *                        válido)
+     * @param direccion       Dirección del contacto
+     * @param fechaNacimiento Fecha de nacimiento del contacto
+     * @return Un futuro que se completa con el ID asignado cuando el contacto
+     *         está guardado en disco, o de forma excepcional con
+     *         IllegalArgumentException si el email no es válido
+     */
+    CompletableFuture<Integer> agregarContacto(String nombre, String apellido, String apodo, String telefono,
+                                               String email, String direccion, LocalDate fechaNacimiento);
+
+    /**
+     * Elimina un contacto por su ID.
+     *
+     * @param id ID del contacto a eliminar
+     * @return Un futuro que se completa con true cuando la baja está guardada
+     *         en disco (ya completado con false si el contacto no existe)
+     */
+    CompletableFuture<Boolean> eliminarContacto(int id);
+
+    /**
+     * Actualiza los datos de un contacto existente por su ID.
+     *
+     * @param id              ID del contacto a actualizar
+     * @param nombre          Nuevo nombre del contacto
+     * @param apellido        Nuevo apellido del contacto
+     * @param apodo           Nuevo apodo del contacto
+     * @param telefono        Nuevo teléfono del contacto
+     * @param email           Nuevo email del contacto (debe tener formato válido)
+     * @param direccion       Nueva dirección del contacto
+     * @param fechaNacimiento Nueva fecha de nacimiento del contacto
+     * @return Un futuro que se completa con true cuando el cambio está guardado
+     *         en disco (ya completado con false si el contacto no existe)
+     */
+    CompletableFuture<Boolean> actualizarContacto(int id, String nombre, String apellido, String apodo,
+                                                  String telefono, String email, String direccion,
+                                                  LocalDate fechaNacimiento);
+
+    /**
+     * Busca un contacto por su ID.
+     *
+     * @param id ID del contacto
+     * @return El contacto, o null si no existe
+     */
+    Contacto buscarPorId(int id);
+
+    /**
+     * Comprueba si un valor existe en el índice de un campo.
+     *
+     * @param campo Nombre del campo indexado
+     * @param valor Valor a buscar
+     * @return true si el valor existe en el índice
+     */
+    boolean buscarEnIndice(String campo, String valor);
+
+    /**
+     * Obtiene los contactos cuyo campo tiene exactamente el valor indicado.
+     *
+     * @param campo Nombre del campo (nombre, apellido, etc.)
+     * @param valor Valor buscado
+     * @return Los contactos encontrados
+     */
+    List<Contacto> buscarContactos(String campo, String valor);
+
+    /**
+     * Busca contactos recorriendo todos los contactos, sin necesidad de que el
+     * campo tenga índice.
+     *
+     * @param campo     Nombre del campo a evaluar (nombre, apellido, etc.)
+     * @param predicado Condición que debe cumplir el valor del campo
+     * @return Los contactos que cumplen la condición, ordenados por ID
+     */
+    List<Contacto> buscarPorRecorrido(String campo, Predicate<Object> predicado);
+
+    /**
+     * Ejecuta una consulta con varios predicados combinados.
+     *
+     * @param consulta La consulta a ejecutar
+     * @return Los contactos que cumplen la consulta, ordenados por ID
+     */
+    List<Contacto> consultar(Consulta consulta);
+
+    /**
+     * @return El número de contactos
+     */
+    int cantidadContactos();
+
+    /**
+     * Importa contactos desde un archivo CSV.
+     *
+     * @param archivoCSV Ruta del archivo CSV desde donde se importarán los
+     *                   contactos
+     * @return El resultado con los contactos importados y las filas rechazadas
+     */
+    ResultadoImportacion importarContactosDesdeCSV(String archivoCSV);
+
+    /**
+     * Obtiene el recorrido por niveles de un índice como IDs separados por
+     * comas.
+     *
+     * @param campo Nombre del campo indexado
+     * @return Los IDs del recorrido, o null si no hay índice o está vacío
+     */
+    String recorridoPorNivel(String campo);
+
+    /**
+     * Genera el informe de memoria del diccionario de cadenas.
+     *
+     * @return El informe con los valores compartidos y los bytes ahorrados
+     */
+    String reporteMemoria();
+
+    /**
+     * Obtiene un futuro que se completa cuando todos los cambios hechos hasta
+     * ahora están guardados en disco.
+     *
+     * @return El futuro de sincronización
+     */
+    CompletableFuture<Void> sincronizar();
+
+    /**
+     * Guarda los cambios pendientes y detiene los hilos de escritura. Debe
+     * llamarse antes de terminar la aplicación.
+     */
+    void cerrar();
+}
@@ -0,0 +1,278 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP local que expone en JSON las operaciones de un
+ * ServicioContactos (un GestorContactos o uno repartido en particiones).
+ *
+ * Rutas disponibles:
+ * <ul>
+ * <li>GET /contactos/{id}: obtiene un contacto</li>
+ * <li>GET /contactos?campo=c&amp;valor=v: contactos con ese valor</li>
+ * <li>GET /contactos?campo=c&amp;desde=a&amp;hasta=b: contactos en un rango</li>
+ * <li>GET /contactos?campo=c&amp;prefijo=p: contactos cuyo valor empieza por p</li>
+ * <li>POST /contactos: agrega el contacto del cuerpo y devuelve su ID</li>
+ * <li>PUT /contactos/{id}: sustituye los datos de un contacto</li>
+ * <li>DELETE /contactos/{id}: elimina un contacto</li>
+ * </ul>
+ *
+ * Cada petición se atiende en un hilo virtual cuando la JVM los ofrece
+ * (Java 21 o superior) y, si no, en un pool fijo de hilos. Las altas,
+ * actualizaciones y bajas responden cuando el cambio ya está en disco.
+ *
+ */
+public class ServidorContactos {
+    private static final String RUTA = "/contactos";
+    private static final int COLA_CONEXIONES = 1024;
+    private static final int HILOS_SIN_HILOS_VIRTUALES = 64;
+
+    static {
+        // Sin esto la cabecera y el cuerpo de cada respuesta viajan en paquetes separados y el
+        // algoritmo de Nagle, junto al ACK retardado del cliente, añade unos 40 ms por petición
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ServicioContactos gestor;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+
+    /**
+     * Constructor de la clase ServidorContactos. El servidor solo escucha en
+     * la interfaz local.
+     *
+     * @param gestor Gestor de contactos al que se delegan las operaciones
+     * @param puerto Puerto en el que escuchar (0 para uno libre cualquiera)
+     * @throws IOException Si no se puede abrir el puerto
+     */
+    public ServidorContactos(ServicioContactos gestor, int puerto) throws IOException {
+        this.gestor = gestor;
+        this.servidor = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto),
+                COLA_CONEXIONES);
+        this.ejecutor = crearEjecutor();
+        servidor.setExecutor(ejecutor);
+        servidor.createContext(RUTA, this::atender);
+    }
+
+    /**
+     * Empieza a aceptar peticiones.
+     */
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Deja de aceptar peticiones y libera los hilos del servidor.
+     */
+    public void detener() {
+        servidor.stop(0);
+        ejecutor.shutdown();
+    }
+
+    /**
+     * @return El puerto en el que escucha el servidor
+     */
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Crea un ejecutor con un hilo virtual por petición si la JVM lo permite.
+     * Se busca por reflexión para que el proyecto siga compilando con Java 17.
+     */
+    private static ExecutorService crearEjecutor() {
+        try {
+            Method metodo = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) metodo.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newFixedThreadPool(HILOS_SIN_HILOS_VIRTUALES);
+        }
+    }
+
+    /**
+     * Atiende una petición a /contactos y responde siempre, también en caso
+     * de error.
+     */
+    private void atender(HttpExchange intercambio) throws IOException {
+        try {
+            String ruta = intercambio.getRequestURI().getPath();
+            String metodo = intercambio.getRequestMethod();
+            if (ruta.length() > RUTA.length() && ruta.charAt(RUTA.length()) != '/') {
+                responder(intercambio, 404, Json.objeto("error", "Ruta no encontrada: " + ruta));
+                return;
+            }
+            String resto = ruta.length() > RUTA.length() ? ruta.substring(RUTA.length() + 1) : "";
+
+            if (resto.isEmpty()) {
+                switch (metodo) {
+                    case "GET" -> buscar(intercambio);
+                    case "POST" -> agregar(intercambio);
+                    default -> responder(intercambio, 405, Json.objeto("error", "Método no permitido: " + metodo));
+                }
+                return;
+            }
+
+            int id;
+            try {
+                id = Integer.parseInt(resto);
+            } catch (NumberFormatException e) {
+                responder(intercambio, 404, Json.objeto("error", "Ruta no encontrada: " + ruta));
+                return;
+            }
+
+            switch (metodo) {
+                case "GET" -> obtener(intercambio, id);
+                case "PUT" -> actualizar(intercambio, id);
+                case "DELETE" -> eliminar(intercambio, id);
+                default -> responder(intercambio, 405, Json.objeto("error", "Método no permitido: " + metodo));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responder(intercambio, 400, Json.objeto("error", e.getMessage()));
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            int estado = causa instanceof IllegalArgumentException ? 400 : 500;
+            responder(intercambio, estado, Json.objeto("error", causa.getMessage()));
+        } catch (RuntimeException e) {
+            responder(intercambio, 500, Json.objeto("error", e.toString()));
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    private void obtener(HttpExchange intercambio, int id) throws IOException {
+        Contacto contacto = gestor.buscarPorId(id);
+        if (contacto == null) {
+            responder(intercambio, 404, Json.objeto("error", "No existe el contacto " + id));
+        } else {
+            responder(intercambio, 200, Json.contacto(contacto));
+        }
+    }
+
+    private void buscar(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = parametros(intercambio.getRequestURI().getRawQuery());
+        String campo = parametros.get("campo");
+        if (campo == null) {
+            throw new IllegalArgumentException("Falta el parámetro 'campo'");
+        }
+
+        Consulta consulta;
+        if (parametros.containsKey("valor")) {
+            consulta = Consulta.igual(campo, parametros.get("valor"));
+        } else if (parametros.containsKey("prefijo")) {
+            consulta = Consulta.prefijo(campo, parametros.get("prefijo"));
+        } else if (parametros.containsKey("desde") || parametros.containsKey("hasta")) {
+            consulta = Consulta.rango(campo, parametros.get("desde"), parametros.get("hasta"));
+        } else {
+            throw new IllegalArgumentException("Indique 'valor', 'prefijo' o 'desde'/'hasta'");
+        }
+
+        List<Contacto> encontrados = gestor.consultar(consulta);
+        responder(intercambio, 200, Json.contactos(encontrados));
+    }
+
+    private void agregar(HttpExchange intercambio) throws IOException {
+        Map<String, String> datos = datosContacto(intercambio);
+        int id = gestor.agregarContacto(datos.get("nombre"), datos.get("apellido"), datos.get("apodo"),
+                datos.get("telefono"), datos.get("email"), datos.get("direccion"), fecha(datos)).join();
+        intercambio.getResponseHeaders().set("Location", RUTA + "/" + id);
+        responder(intercambio, 201, "{\"id\":" + id + "}");
+    }
+
+    private void actualizar(HttpExchange intercambio, int id) throws IOException {
+        Map<String, String> datos = datosContacto(intercambio);
+        boolean actualizado = gestor.actualizarContacto(id, datos.get("nombre"), datos.get("apellido"),
+                datos.get("apodo"), datos.get("telefono"), datos.get("email"), datos.get("direccion"),
+                fecha(datos)).join();
+        if (actualizado) {
+            responder(intercambio, 200, Json.contacto(gestor.buscarPorId(id)));
+        } else {
+            responder(intercambio, 404, Json.objeto("error", "No existe el contacto " + id));
+        }
+    }
+
+    private void eliminar(HttpExchange intercambio, int id) throws IOException {
+        if (gestor.eliminarContacto(id).join()) {
+            responder(intercambio, 204, null);
+        } else {
+            responder(intercambio, 404, Json.objeto("error", "No existe el contacto " + id));
+        }
+    }
+
+    /**
+     * Lee los datos de un contacto del cuerpo de la petición. Rechaza los
+     * valores con comas, comillas o saltos de línea, que el archivo CSV de
+     * contactos no puede guardar sin romper la fila.
+     */
+    private static Map<String, String> datosContacto(HttpExchange intercambio) throws IOException {
+        Map<String, String> datos = Json.leerObjeto(leerCuerpo(intercambio));
+        for (Map.Entry<String, String> dato : datos.entrySet()) {
+            String valor = dato.getValue();
+            if (valor != null && valor.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+                throw new IllegalArgumentException("El campo '" + dato.getKey()
+                        + "' no puede contener comas, comillas ni saltos de línea");
+            }
+        }
+        return datos;
+    }
+
+    private static LocalDate fecha(Map<String, String> datos) {
+        String fecha = datos.get("fechaNacimiento");
+        return fecha == null || fecha.isEmpty() ? null : LocalDate.parse(fecha);
+    }
+
+    private static String leerCuerpo(HttpExchange intercambio) throws IOException {
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> parametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty())
+            return parametros;
+
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nombre = igual >= 0 ? par.substring(0, igual) : par;
+            String valor = igual >= 0 ? par.substring(igual + 1) : "";
+            parametros.put(URLDecoder.decode(nombre, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    /**
+     * Envía la respuesta con el estado y el cuerpo JSON indicados (sin cuerpo
+     * si es null).
+     */
+    private static void responder(HttpExchange intercambio, int estado, String cuerpo) throws IOException {
+        if (cuerpo == null) {
+            intercambio.sendResponseHeaders(estado, -1);
+            return;
+        }
+        byte[] bytes = cuerpo.getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+}